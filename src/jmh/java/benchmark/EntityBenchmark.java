@@ -0,0 +1,110 @@
+package benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entities.Account;
+import entities.Card;
+import entities.Money;
+import entities.Transaction;
+import entities.TransactionReferenceGenerator;
+import enumerado.CardType;
+
+/**
+ * Caminos calientes de las entidades: operaciones de saldo de {@link Account}
+ * y factorías y cálculos de {@link Transaction}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+
+    private static final Money AMOUNT = Money.of("50.00");
+    private static final Money COMMISSION = Money.of("2.50");
+
+    private Account account;
+    private Card card;
+    private Transaction withCommission;
+    private Transaction withoutCommission;
+    private TransactionReferenceGenerator referenceGenerator;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        account = new Account("0001", "ES0000000000000000000001", null);
+        account.setBalance(Money.of("1000000000000.00"));
+        card = new Card("4000000000000001", "hash", CardType.DEBIT,
+                new BigDecimal("600.00"), null, true, true, account);
+        withCommission = Transaction.createWithdrawal(account, card, AMOUNT, account.getBalance(), true, COMMISSION);
+        withoutCommission = Transaction.createWithdrawal(account, card, AMOUNT, account.getBalance(), false,
+                Money.ZERO);
+        referenceGenerator = new TransactionReferenceGenerator(1);
+    }
+
+    // ===== ACCOUNT =====
+
+    @Benchmark
+    public boolean accountCanWithdraw() {
+        return account.canWithdraw(AMOUNT);
+    }
+
+    @Benchmark
+    public Money accountDeposit() {
+        account.deposit(AMOUNT);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public Money accountWithdraw() {
+        account.withdraw(AMOUNT);
+        return account.getBalance();
+    }
+
+    // ===== TRANSACTION =====
+
+    @Benchmark
+    public Transaction createWithdrawal() {
+        return Transaction.createWithdrawal(account, card, AMOUNT, account.getBalance(), false, Money.ZERO);
+    }
+
+    @Benchmark
+    public Transaction createExternalWithdrawal() {
+        return Transaction.createWithdrawal(account, card, AMOUNT, account.getBalance(), true, COMMISSION);
+    }
+
+    @Benchmark
+    public Transaction createTransferOut() {
+        return Transaction.createTransferOut(account, AMOUNT, account.getBalance(),
+                "ES9121000418450200051332", "Luis García", COMMISSION);
+    }
+
+    // Lo que hace Transaction.generateReference()
+    @Benchmark
+    public String generateReference() {
+        return referenceGenerator.next();
+    }
+
+    @Benchmark
+    public Money netAmountWithCommission() {
+        return withCommission.getNetAmount();
+    }
+
+    @Benchmark
+    public Money netAmountWithoutCommission() {
+        return withoutCommission.getNetAmount();
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entities.Money;
+
+/**
+ * Aritmética de importes: {@link BigDecimal} frente a {@link Money}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private BigDecimal decimalBalance = new BigDecimal("1523.45");
+    private BigDecimal decimalAmount = new BigDecimal("50.00");
+
+    private Money moneyBalance = Money.of("1523.45");
+    private Money moneyAmount = Money.of("50.00");
+
+    // ===== BIGDECIMAL =====
+
+    @Benchmark
+    public BigDecimal decimalAdd() {
+        return decimalBalance.add(decimalAmount);
+    }
+
+    @Benchmark
+    public BigDecimal decimalSubtract() {
+        return decimalBalance.subtract(decimalAmount);
+    }
+
+    @Benchmark
+    public boolean decimalCompare() {
+        return decimalBalance.compareTo(decimalAmount) >= 0;
+    }
+
+    @Benchmark
+    public BigDecimal decimalNegate() {
+        return decimalAmount.negate();
+    }
+
+    // ===== MONEY =====
+
+    @Benchmark
+    public Money moneyAdd() {
+        return moneyBalance.plus(moneyAmount);
+    }
+
+    @Benchmark
+    public Money moneySubtract() {
+        return moneyBalance.minus(moneyAmount);
+    }
+
+    @Benchmark
+    public boolean moneyCompare() {
+        return moneyBalance.isGreaterThanOrEqual(moneyAmount);
+    }
+
+    @Benchmark
+    public Money moneyNegate() {
+        return moneyAmount.negate();
+    }
+}
@@ -0,0 +1,70 @@
+package benchmark;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+import service.RepositoryMetrics;
+import service.RepositoryMetricsInterceptor;
+
+/**
+ * Coste de {@link RepositoryMetricsInterceptor} por llamada: el mismo proxy
+ * de Spring AOP sin consejos y con el interceptor delante de un repositorio
+ * que no hace nada.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryMetricsBenchmark {
+
+    public interface Lookup {
+        Optional<String> findByCardNumber(String cardNumber);
+    }
+
+    private static final String CARD_NUMBER = "4000123412341234";
+
+    private Lookup plain;
+    private Lookup instrumented;
+
+    @Setup
+    public void setUp() {
+        Lookup target = cardNumber -> Optional.of(cardNumber);
+        plain = proxy(target, null);
+        instrumented = proxy(target, new RepositoryMetricsInterceptor(
+                new RepositoryMetrics(Duration.ofMillis(200), 100), Lookup.class));
+    }
+
+    @Benchmark
+    public Optional<String> proxyWithoutMetrics() {
+        return plain.findByCardNumber(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public Optional<String> proxyWithMetrics() {
+        return instrumented.findByCardNumber(CARD_NUMBER);
+    }
+
+    private static Lookup proxy(Lookup target, RepositoryMetricsInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addInterface(Lookup.class);
+        if (interceptor != null) {
+            factory.addAdvice(interceptor);
+        }
+        return (Lookup) factory.getProxy();
+    }
+}
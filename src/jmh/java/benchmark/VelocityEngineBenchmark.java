@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entities.Account;
+import entities.Card;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+import service.VelocityEngine;
+import service.VelocityRule;
+
+/**
+ * Coste de {@link VelocityEngine#check} con cuatro reglas y 10.000 tarjetas
+ * con retiros, y de registrar un retiro.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityEngineBenchmark {
+
+    private static final int CARDS = 10_000;
+    private static final Money AMOUNT = Money.of("20.00");
+
+    private VelocityEngine engine;
+    private Card[] cards;
+
+    @Setup
+    public void setUp() {
+        engine = new VelocityEngine(null, null, List.of(
+                VelocityRule.parse("card:1m:count:3"),
+                VelocityRule.parse("card:10m:count:6"),
+                VelocityRule.parse("card:24h:amount:1500.00"),
+                VelocityRule.parse("account:24h:count:20")), Clock.systemDefaultZone());
+        cards = new Card[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            Account account = new Account("A-" + i, "ES00" + i, null);
+            account.setId(UUID.randomUUID());
+            cards[i] = new Card(String.valueOf(4_000_000_000_000_000L + i), "hash", CardType.DEBIT,
+                    null, null, true, true, account);
+            cards[i].setId(UUID.randomUUID());
+            engine.registerWithdrawal(withdrawal(cards[i]));
+        }
+    }
+
+    @Benchmark
+    public Optional<VelocityRule> check() {
+        Card card = cards[ThreadLocalRandom.current().nextInt(CARDS)];
+        return engine.check(card.getAccount().getId(), card.getId(), AMOUNT);
+    }
+
+    @Benchmark
+    public void register() {
+        engine.registerWithdrawal(withdrawal(cards[ThreadLocalRandom.current().nextInt(CARDS)]));
+    }
+
+    private static Transaction withdrawal(Card card) {
+        return Transaction.createWithdrawal(card.getAccount(), card, AMOUNT, Money.ZERO, false, Money.ZERO);
+    }
+}
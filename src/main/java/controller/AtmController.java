@@ -0,0 +1,101 @@
+package controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import dto.AtmOperationRequest;
+import dto.AtmReceipt;
+import dto.HoldReceipt;
+import dto.RecentTransaction;
+import entities.Money;
+import service.AtmService;
+import service.ConflictException;
+
+@RestController
+@RequestMapping("/atm/cards/{cardNumber}")
+public class AtmController {
+
+    // Cabecera con la que el cajero marca los reintentos de una misma operación
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final AtmService atmService;
+
+    public AtmController(AtmService atmService) {
+        this.atmService = atmService;
+    }
+
+    @PostMapping("/withdrawals")
+    public AtmReceipt withdraw(@PathVariable String cardNumber, @RequestBody AtmOperationRequest request,
+                               @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return atmService.withdraw(cardNumber, request.amount(), request.externalAtm(), idempotencyKey);
+    }
+
+    // Retiro en dos fases: retención antes de dispensar, cobro o liberación después
+    @PostMapping("/holds")
+    public HoldReceipt placeHold(@PathVariable String cardNumber, @RequestBody AtmOperationRequest request) {
+        return atmService.placeHold(cardNumber, request.amount(), request.externalAtm());
+    }
+
+    @PostMapping("/holds/{holdId}/capture")
+    public AtmReceipt captureHold(@PathVariable String cardNumber, @PathVariable UUID holdId,
+                                  @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return atmService.captureHold(cardNumber, holdId, idempotencyKey);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable String cardNumber, @PathVariable UUID holdId) {
+        atmService.releaseHold(cardNumber, holdId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/deposits")
+    public AtmReceipt deposit(@PathVariable String cardNumber, @RequestBody AtmOperationRequest request,
+                              @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return atmService.deposit(cardNumber, request.amount(), idempotencyKey);
+    }
+
+    @GetMapping("/balance")
+    public Map<String, Money> balance(@PathVariable String cardNumber) {
+        return Map.of("balance", atmService.getBalance(cardNumber),
+                "available", atmService.getAvailableBalance(cardNumber));
+    }
+
+    @GetMapping("/movements")
+    public List<RecentTransaction> movements(@PathVariable String cardNumber,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return atmService.getLastMovements(cardNumber, limit);
+    }
+
+    // Tarjeta no válida, saldo o límite insuficiente, importe incorrecto
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> rejected(IllegalArgumentException e) {
+        return ResponseEntity.unprocessableEntity().body(Map.of("error", e.getMessage()));
+    }
+
+    // Retención cobrada o caducada mientras se liberaba
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Map<String, String>> conflict(ConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    // Sin conexiones de base de datos disponibles a tiempo
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> saturated(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,30 @@
+package controller;
+
+import java.util.UUID;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import dto.CustomerDashboard;
+import service.CustomerDashboardService;
+
+@RestController
+@RequestMapping("/customers")
+public class CustomerController {
+
+    private final CustomerDashboardService customerDashboardService;
+
+    public CustomerController(CustomerDashboardService customerDashboardService) {
+        this.customerDashboardService = customerDashboardService;
+    }
+
+    // Panel de cliente: cuentas, tarjetas y últimos movimientos
+    @GetMapping("/{customerId}/dashboard")
+    public CustomerDashboard dashboard(@PathVariable UUID customerId,
+                                       @RequestParam(defaultValue = "5") int lastTransactions) {
+        return customerDashboardService.getDashboard(customerId, lastTransactions);
+    }
+}
@@ -0,0 +1,34 @@
+package controller;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import dto.RepositoryMethodStats;
+import dto.RepositoryMetricsReport;
+import service.RepositoryMetrics;
+
+// GET /actuator/repositories: métodos de repositorio por tiempo total y últimas llamadas lentas.
+// Solo lectura: se publica sin autenticación junto a health
+@Component
+@Endpoint(id = "repositories")
+public class RepositoryMetricsEndpoint {
+
+    private final RepositoryMetrics repositoryMetrics;
+
+    public RepositoryMetricsEndpoint(RepositoryMetrics repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @ReadOperation
+    public RepositoryMetricsReport report() {
+        return repositoryMetrics.report();
+    }
+
+    // GET /actuator/repositories/{método}, p. ej. CardRepository.findByCardNumber(String)
+    @ReadOperation
+    public RepositoryMethodStats method(@Selector String method) {
+        return repositoryMetrics.getStats(method).orElse(null);
+    }
+}
@@ -0,0 +1,50 @@
+package controller;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import enumerado.ExportFormat;
+import service.StatementExportService;
+
+@RestController
+@RequestMapping("/accounts/{accountId}/statement")
+public class StatementController {
+
+    private final StatementExportService statementExportService;
+
+    public StatementController(StatementExportService statementExportService) {
+        this.statementExportService = statementExportService;
+    }
+
+    // Extracto completo escrito directamente en la respuesta
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable UUID accountId,
+                                                        @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        String filename = "extracto-" + accountId + "." + exportFormat.name().toLowerCase(Locale.ROOT);
+
+        StreamingResponseBody body = output -> statementExportService.export(accountId, exportFormat, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // Formato desconocido
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
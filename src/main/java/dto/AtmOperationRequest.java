@@ -0,0 +1,10 @@
+package dto;
+
+import entities.Money;
+
+/**
+ * Petición de retiro o ingreso en cajero. {@code externalAtm} solo se tiene
+ * en cuenta en los retiros.
+ */
+public record AtmOperationRequest(Money amount, boolean externalAtm) {
+}
@@ -0,0 +1,26 @@
+package dto;
+
+import java.time.LocalDateTime;
+
+import entities.Money;
+import entities.Transaction;
+import enumerado.TransactionType;
+
+/**
+ * Justificante de una operación en cajero.
+ */
+public record AtmReceipt(
+        String transactionReference,
+        TransactionType type,
+        Money amount,
+        Money commission,
+        Money balance,
+        LocalDateTime createdAt) {
+
+    // El importe del justificante es siempre positivo, también en los retiros
+    public static AtmReceipt of(Transaction transaction) {
+        return new AtmReceipt(transaction.getTransactionReference(), transaction.getType(),
+                transaction.getAmount().abs(), transaction.getCommission(), transaction.getBalanceAfter(),
+                transaction.getCreatedAt());
+    }
+}
@@ -0,0 +1,27 @@
+package dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import enumerado.CardType;
+
+/**
+ * Instantánea inmutable de los datos de una tarjeta necesarios para
+ * autorizar una operación en cajero. Se obtiene en una sola consulta, sin
+ * recorrer las relaciones perezosas de {@code Card} y {@code Account}.
+ */
+public record CardAuthorization(
+        UUID cardId,
+        String cardNumber,
+        CardType type,
+        BigDecimal dailyWithdrawalLimit,
+        BigDecimal creditLimit,
+        boolean active,
+        boolean pinChanged,
+        UUID accountId) {
+
+    // Equivalente a findActiveAndReadyCard
+    public boolean isReady() {
+        return active && pinChanged;
+    }
+}
@@ -0,0 +1,14 @@
+package dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtenida por búsqueda de clave (keyset). El cursor
+ * es opaco para el cliente y es null cuando no hay más resultados.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,39 @@
+package dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import entities.Money;
+import enumerado.CardType;
+
+/**
+ * Panel de cliente: cuentas con su saldo, tarjetas y últimos movimientos.
+ */
+public record CustomerDashboard(
+        UUID customerId,
+        String customerNumber,
+        String firstName,
+        String lastName,
+        List<AccountOverview> accounts) {
+
+    public record AccountOverview(
+            UUID id,
+            String accountNumber,
+            String iban,
+            String accountType,
+            Money balance,
+            boolean active,
+            List<CardSummary> cards,
+            List<RecentTransaction> lastTransactions) {
+    }
+
+    public record CardSummary(
+            UUID id,
+            String maskedNumber,
+            CardType type,
+            boolean active,
+            BigDecimal dailyWithdrawalLimit,
+            BigDecimal creditLimit) {
+    }
+}
@@ -0,0 +1,37 @@
+package dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import enumerado.CardType;
+
+/**
+ * Cliente a importar con sus cuentas y tarjetas, tal como llega del fichero.
+ */
+public record CustomerImport(
+        String customerNumber,
+        String firstName,
+        String lastName,
+        String email,
+        String documentNumber,
+        String phoneNumber,
+        List<AccountImport> accounts) {
+
+    public record AccountImport(
+            String accountNumber,
+            String iban,
+            String accountType,
+            BigDecimal balance,
+            List<CardImport> cards) {
+    }
+
+    public record CardImport(
+            String cardNumber,
+            String pinHash,
+            CardType type,
+            BigDecimal dailyWithdrawalLimit,
+            BigDecimal creditLimit,
+            boolean active,
+            boolean pinChanged) {
+    }
+}
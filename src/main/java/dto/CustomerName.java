@@ -0,0 +1,9 @@
+package dto;
+
+import java.util.UUID;
+
+/**
+ * Nombre y apellidos de un cliente, sin hidratar la entidad.
+ */
+public record CustomerName(UUID id, String firstName, String lastName) {
+}
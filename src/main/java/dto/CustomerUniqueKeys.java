@@ -0,0 +1,7 @@
+package dto;
+
+/**
+ * Claves únicas de un cliente, sin hidratar la entidad.
+ */
+public record CustomerUniqueKeys(String customerNumber, String email, String documentNumber) {
+}
@@ -0,0 +1,30 @@
+package dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import entities.Money;
+import enumerado.CardType;
+
+/**
+ * Fila plana cliente + cuenta + tarjeta de la consulta del panel de cliente.
+ * Los campos de cuenta o tarjeta son null si el cliente no tiene ninguna.
+ */
+public record DashboardRow(
+        UUID customerId,
+        String customerNumber,
+        String firstName,
+        String lastName,
+        UUID accountId,
+        String accountNumber,
+        String iban,
+        String accountType,
+        Money balance,
+        Boolean accountActive,
+        UUID cardId,
+        String cardNumber,
+        CardType cardType,
+        Boolean cardActive,
+        BigDecimal dailyWithdrawalLimit,
+        BigDecimal creditLimit) {
+}
@@ -0,0 +1,18 @@
+package dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import entities.Money;
+
+/**
+ * Retención abierta para un retiro en cajero, con el saldo disponible que
+ * queda tras reservarla.
+ */
+public record HoldReceipt(
+        UUID holdId,
+        Money amount,
+        Money commission,
+        Money availableBalance,
+        LocalDateTime expiresAt) {
+}
@@ -0,0 +1,23 @@
+package dto;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva. {@code resumedFrom} es el número de
+ * clientes del fichero que ya estaban confirmados según el checkpoint.
+ */
+public record ImportSummary(
+        long resumedFrom,
+        long customers,
+        long accounts,
+        long cards,
+        long skipped,
+        long rejected,
+        List<String> errors,
+        Duration elapsed) {
+
+    public double customersPerSecond() {
+        return elapsed.isZero() ? 0.0 : customers * 1_000_000_000.0 / elapsed.toNanos();
+    }
+}
@@ -0,0 +1,24 @@
+package dto;
+
+import java.util.UUID;
+
+import entities.Money;
+
+/**
+ * Resultado del replay del libro mayor de una cuenta: el saldo reconstruido
+ * desde la instantánea de apertura frente al calculado con la última
+ * instantánea, y las transacciones cuyo {@code balanceAfter} no coincide
+ * con el saldo acumulado.
+ */
+public record LedgerVerification(
+        UUID accountId,
+        Money replayedBalance,
+        Money ledgerBalance,
+        long transactions,
+        long mismatches,
+        String firstMismatchReference) {
+
+    public boolean isConsistent() {
+        return mismatches == 0 && replayedBalance.equals(ledgerBalance);
+    }
+}
@@ -0,0 +1,20 @@
+package dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import entities.Money;
+import enumerado.TransactionType;
+
+/**
+ * Movimiento reciente de una cuenta, sin hidratar la entidad.
+ */
+public record RecentTransaction(
+        UUID accountId,
+        UUID id,
+        TransactionType type,
+        Money amount,
+        Money balanceAfter,
+        String description,
+        LocalDateTime createdAt) {
+}
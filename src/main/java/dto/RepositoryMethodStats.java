@@ -0,0 +1,20 @@
+package dto;
+
+/**
+ * Métricas acumuladas de un método de repositorio. Los tiempos están en
+ * microsegundos e incluyen la transacción que abre el propio repositorio;
+ * las filas y sentencias son medias por llamada.
+ */
+public record RepositoryMethodStats(
+        String method,
+        long calls,
+        long errors,
+        double totalMillis,
+        double meanMicros,
+        double p50Micros,
+        double p95Micros,
+        double p99Micros,
+        double maxMicros,
+        double rowsPerCall,
+        double statementsPerCall) {
+}
@@ -0,0 +1,12 @@
+package dto;
+
+import java.util.List;
+
+/**
+ * Contenido del endpoint {@code /actuator/repositories}: los métodos
+ * ordenados por tiempo total y las últimas llamadas lentas.
+ */
+public record RepositoryMetricsReport(
+        List<RepositoryMethodStats> methods,
+        List<SlowRepositoryCall> slowCalls) {
+}
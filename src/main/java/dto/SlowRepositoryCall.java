@@ -0,0 +1,17 @@
+package dto;
+
+import java.time.Instant;
+
+/**
+ * Llamada a un repositorio que ha superado {@code repository-metrics.slow-threshold}.
+ * Los parámetros van ya enmascarados.
+ */
+public record SlowRepositoryCall(
+        Instant at,
+        String method,
+        double millis,
+        long statements,
+        long rows,
+        boolean failed,
+        String parameters) {
+}
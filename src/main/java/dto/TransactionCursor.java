@@ -0,0 +1,40 @@
+package dto;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posición (created_at, id) de la última transacción devuelta en una página.
+ * Se serializa como Base64 URL-safe para que el cliente la trate como opaca.
+ */
+public record TransactionCursor(LocalDateTime createdAt, UUID id) {
+
+    private static final int LENGTH = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .putLong(createdAt.toEpochSecond(ZoneOffset.UTC))
+                .putInt(createdAt.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor no válido", e);
+        }
+        if (bytes.length != LENGTH) {
+            throw new IllegalArgumentException("Cursor no válido");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        return new TransactionCursor(createdAt, new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
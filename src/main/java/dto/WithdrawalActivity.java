@@ -0,0 +1,13 @@
+package dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import entities.Money;
+
+/**
+ * Retiro reducido a lo que necesita el control de velocidad. La tarjeta es
+ * null en los retiros sin tarjeta.
+ */
+public record WithdrawalActivity(UUID accountId, UUID cardId, Money amount, LocalDateTime createdAt) {
+}
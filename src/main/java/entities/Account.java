@@ -1,23 +1,28 @@
 package entities;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+// Sin caché de segundo nivel: el saldo y la versión cambian con cada movimiento
 @Entity
 @Table(name = "accounts")
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
     
     @Column(name = "account_number", nullable = false, unique = true, length = 20)
     private String accountNumber;
     
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal balance = BigDecimal.ZERO; 
+    private Money balance = Money.ZERO; 
+    
+    // Control de concurrencia optimista sobre el saldo
+    @Version
+    @Column(nullable = false)
+    private Long version;
     
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Transaction> transactions = new ArrayList<>();
@@ -29,7 +34,7 @@ public class Account {
     private String accountType; 
     
     @Column(name = "is_active", nullable = false)
-    private boolean isActive = true;
+    private boolean active = true;
     
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Card> cards = new ArrayList<>(); 
@@ -45,22 +50,22 @@ public class Account {
         this.accountNumber = accountNumber;
         this.iban = iban;
         this.customer = customer;
-        this.balance = BigDecimal.ZERO;
-        this.isActive = true;
+        this.balance = Money.ZERO;
+        this.active = true;
     }
     
     // Métodos de negocio
-    public boolean canWithdraw(BigDecimal amount) {
-        return balance.compareTo(amount) >= 0;
+    public boolean canWithdraw(Money amount) {
+        return balance.isGreaterThanOrEqual(amount);
     }
     
-    public void deposit(BigDecimal amount) {
-        this.balance = this.balance.add(amount);
+    public void deposit(Money amount) {
+        this.balance = this.balance.plus(amount);
     }
     
-    public void withdraw(BigDecimal amount) {
+    public void withdraw(Money amount) {
         if (canWithdraw(amount)) {
-            this.balance = this.balance.subtract(amount);
+            this.balance = this.balance.minus(amount);
         } else {
             throw new IllegalArgumentException("Saldo insuficiente");
         }
@@ -75,6 +80,10 @@ public class Account {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getAccountNumber() {
         return accountNumber;
     }
@@ -83,11 +92,11 @@ public class Account {
         this.accountNumber = accountNumber;
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
     }
 
@@ -108,11 +117,11 @@ public class Account {
     }
 
     public boolean isActive() {
-        return isActive;
+        return active;
     }
 
     public void setActive(boolean active) {
-        isActive = active;
+        this.active = active;
     }
 
     public List<Card> getCards() {
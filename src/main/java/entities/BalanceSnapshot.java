@@ -0,0 +1,79 @@
+package entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Saldo de una cuenta en el modo libro mayor, válido hasta la transacción
+ * de secuencia {@code cutoffSequence} incluida. El saldo vigente es el de la
+ * última instantánea más el neto de las transacciones de secuencia mayor.
+ * La secuencia la asigna el alta con el cerrojo de la cuenta, así que el
+ * corte no depende de que el reloj avance.
+ *
+ * La instantánea de apertura recoge el saldo de la columna
+ * {@code accounts.balance} al entrar la cuenta en el modo libro mayor y no
+ * se borra nunca: es el punto de partida de la verificación por replay.
+ */
+@Entity
+@Table(name = "balance_snapshots", indexes = {
+    @Index(name = "idx_balance_snapshots_account_cutoff", columnList = "account_id, cutoff_sequence DESC")
+})
+public class BalanceSnapshot {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private Money balance;
+
+    // Secuencia de la última transacción incluida en el saldo (0 si ninguna)
+    @Column(name = "cutoff_sequence", nullable = false)
+    private long cutoffSequence;
+
+    @Column(name = "is_opening", nullable = false)
+    private boolean opening;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public BalanceSnapshot() {
+        // Constructor vacío para JPA
+    }
+
+    public BalanceSnapshot(Account account, Money balance, long cutoffSequence, boolean opening) {
+        this.account = account;
+        this.balance = balance;
+        this.cutoffSequence = cutoffSequence;
+        this.opening = opening;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public Money getBalance() {
+        return balance;
+    }
+
+    public long getCutoffSequence() {
+        return cutoffSequence;
+    }
+
+    public boolean isOpening() {
+        return opening;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
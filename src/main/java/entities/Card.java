@@ -3,14 +3,17 @@ package entities;
 import java.math.BigDecimal;
 import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import enumerado.CardType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -18,12 +21,16 @@ import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "cards")
+// Caché de segundo nivel (regiones en hibernate-cache.conf)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cards")
+@NaturalIdCache(region = "cards-by-number")
 public class Card {
     
 	@Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
     
+    @NaturalId(mutable = true)
     @Column(name = "card_number", nullable = false, unique = true, length = 16)
     private String cardNumber;
     
@@ -41,7 +48,7 @@ public class Card {
     private BigDecimal creditLimit;
     
     @Column(name = "is_active", nullable = false)
-    private boolean isActive = false;
+    private boolean active = false;
     
     @Column(name = "pin_changed", nullable = false)
     private boolean pinChanged = false;
@@ -61,7 +68,7 @@ public class Card {
 	    this.type = type;
 	    this.dailyWithdrawalLimit = dailyWithdrawalLimit;
 	    this.creditLimit = creditLimit;
-	    this.isActive = isActive;
+	    this.active = isActive;
 	    this.pinChanged = pinChanged;
 	    this.account = account;
     }
@@ -116,11 +123,11 @@ public class Card {
     }
     
     public boolean isActive() { 
-    	return isActive; 
+    	return active; 
     }
     
     public void setActive(boolean active) { 
-    	isActive = active; 
+    	this.active = active; 
     }
     
     public boolean isPinChanged() { 
@@ -138,4 +145,4 @@ public class Card {
     public void setAccount(Account account) { 
     	this.account = account; 
     }
-}
\ No newline at end of file
+}
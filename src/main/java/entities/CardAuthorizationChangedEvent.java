@@ -0,0 +1,8 @@
+package entities;
+
+/**
+ * Evento de dominio publicado al modificar o borrar una {@link Card}, para
+ * invalidar la autorización cacheada.
+ */
+public record CardAuthorizationChangedEvent(String cardNumber) {
+}
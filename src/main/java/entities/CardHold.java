@@ -0,0 +1,101 @@
+package entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import enumerado.HoldStatus;
+
+/**
+ * Retención de un retiro autorizado y pendiente de dispensar. Reserva
+ * {@code amount} más {@code commission} del saldo de la cuenta y
+ * {@code amount} del límite diario de la tarjeta hasta que se cobra, se
+ * libera o caduca en {@code expiresAt}.
+ */
+@Entity
+@Table(name = "card_holds", indexes = {
+    @Index(name = "idx_card_holds_status_expires", columnList = "status, expires_at")
+})
+public class CardHold {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "card_id", nullable = false)
+    private Card card;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private Money amount;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private Money commission = Money.ZERO;
+
+    @Column(name = "is_external_atm", nullable = false)
+    private boolean externalAtm;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private HoldStatus status = HoldStatus.OPEN;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public CardHold() {
+        // Constructor vacío para JPA
+    }
+
+    public CardHold(Account account, Card card, Money amount, Money commission,
+                    boolean externalAtm, LocalDateTime expiresAt) {
+        this.account = account;
+        this.card = card;
+        this.amount = amount;
+        this.commission = commission;
+        this.externalAtm = externalAtm;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    public Money getCommission() {
+        return commission;
+    }
+
+    public boolean isExternalAtm() {
+        return externalAtm;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -1,17 +1,27 @@
 package entities;
 
 import jakarta.persistence.*;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
 @Table(name = "customers")
+// Caché de segundo nivel (regiones en hibernate-cache.conf); las cuentas no se cachean
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customers")
+@NaturalIdCache(region = "customers-by-number")
 public class Customer {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
     
+    @NaturalId(mutable = true)
     @Column(name = "customer_number", nullable = false, unique = true)
     private String customerNumber;
     
@@ -24,11 +34,14 @@ public class Customer {
     @Column(nullable = false, unique = true, length = 100)
     private String email;
     
+    @Column(name = "document_number", unique = true, length = 20)
+    private String documentNumber;
+    
     @Column(name = "phone_number", length = 20)
     private String phoneNumber;
     
     @Column(name = "is_active", nullable = false)
-    private boolean isActive = true;
+    private boolean active = true;
     
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Account> accounts = new ArrayList<>();
@@ -43,7 +56,7 @@ public class Customer {
 		this.lastName = lastName;
 		this.email = email;
 		this.phoneNumber = phoneNumber;
-		this.isActive = isActive;
+		this.active = isActive;
 		this.accounts = accounts;
 	}
 
@@ -87,6 +100,14 @@ public class Customer {
 		this.email = email;
 	}
 
+	public String getDocumentNumber() {
+		return documentNumber;
+	}
+
+	public void setDocumentNumber(String documentNumber) {
+		this.documentNumber = documentNumber;
+	}
+
 	public String getPhoneNumber() {
 		return phoneNumber;
 	}
@@ -96,11 +117,11 @@ public class Customer {
 	}
 
 	public boolean isActive() {
-		return isActive;
+		return active;
 	}
 
 	public void setActive(boolean isActive) {
-		this.isActive = isActive;
+		this.active = isActive;
 	}
 
 	public List<Account> getAccounts() {
@@ -110,7 +131,4 @@ public class Customer {
 	public void setAccounts(List<Account> accounts) {
 		this.accounts = accounts;
 	}
-
-    
-   
-}
\ No newline at end of file
+}
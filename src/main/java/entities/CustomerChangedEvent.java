@@ -0,0 +1,8 @@
+package entities;
+
+/**
+ * Evento de dominio publicado al crear, modificar o borrar un
+ * {@link Customer}.
+ */
+public record CustomerChangedEvent(Customer customer, boolean removed) {
+}
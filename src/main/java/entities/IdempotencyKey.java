@@ -0,0 +1,63 @@
+package entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Clave de idempotencia de una operación de cajero ya ejecutada y la
+ * transacción que produjo. Se inserta en la misma transacción de base de
+ * datos que el movimiento, así que existe si y solo si la operación se
+ * confirmó. La clave es el resumen de la clave del cliente, la tarjeta y la
+ * operación; la huella, el de los datos de la petición.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_created", columnList = "created_at")
+})
+public class IdempotencyKey {
+
+    // Longitud máxima de la clave que envía el cliente
+    public static final int MAX_LENGTH = 100;
+
+    // SHA-256 en hexadecimal
+    private static final int DIGEST_LENGTH = 64;
+
+    @Id
+    @Column(name = "idempotency_key", length = DIGEST_LENGTH)
+    private String idempotencyKey;
+
+    @Column(name = "request_fingerprint", nullable = false, length = DIGEST_LENGTH)
+    private String requestFingerprint;
+
+    @Column(name = "transaction_reference", nullable = false, length = 50)
+    private String transactionReference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public IdempotencyKey() {
+        // Constructor vacío para JPA
+    }
+
+    public IdempotencyKey(String idempotencyKey, String requestFingerprint, String transactionReference) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+        this.transactionReference = transactionReference;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public String getTransactionReference() {
+        return transactionReference;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
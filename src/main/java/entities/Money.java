@@ -0,0 +1,88 @@
+package entities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Importe en euros con dos decimales, guardado como número entero de céntimos.
+ *
+ * Sustituye a {@link BigDecimal} en la aritmética de saldos e importes: las
+ * operaciones trabajan sobre un {@code long} y lanzan
+ * {@link ArithmeticException} si se desbordan en lugar de perder precisión.
+ * En base de datos se guarda en las columnas NUMERIC(15,2) existentes a
+ * través de {@link MoneyConverter}.
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    // Lanza ArithmeticException si el importe tiene más de dos decimales
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    // ===== ARITMÉTICA =====
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public Money abs() {
+        return cents >= 0 ? this : negate();
+    }
+
+    // ===== COMPARACIONES =====
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isGreaterThanOrEqual(Money other) {
+        return cents >= other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    // ===== CONVERSIÓN =====
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -1,18 +1,21 @@
 package entities;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 import enumerado.TransactionType;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_account_created", columnList = "account_id, created_at DESC, id"),
+    @Index(name = "idx_transactions_created", columnList = "created_at, id"),
+    @Index(name = "idx_transactions_account_sequence", columnList = "account_id, ledger_sequence")
+})
 public class Transaction {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
     
     // Relación con Account
@@ -32,11 +35,11 @@ public class Transaction {
     
     // Monto (positivo para ingresos, negativo para retiros)
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
     
     // Saldo después de la transacción
     @Column(name = "balance_after", precision = 15, scale = 2, nullable = false)
-    private BigDecimal balanceAfter;
+    private Money balanceAfter;
     
     // Descripción legible para el usuario
     @Column(length = 255)
@@ -56,7 +59,7 @@ public class Transaction {
     
     // Comisión aplicada (si es cajero externo o transferencia externa)
     @Column(precision = 10, scale = 2)
-    private BigDecimal commission = BigDecimal.ZERO;
+    private Money commission = Money.ZERO;
     
     // Si la operación se hizo en cajero del mismo banco o externo
     @Column(name = "is_external_atm")
@@ -78,6 +81,11 @@ public class Transaction {
     @Column(name = "atm_location", length = 200)
     private String atmLocation;
     
+    // Modo libro mayor: posición en el log de la cuenta, creciente sin depender del reloj
+    // (null en las transacciones anteriores a la entrada de la cuenta en el modo)
+    @Column(name = "ledger_sequence")
+    private Long ledgerSequence;
+    
     // ===== CONSTRUCTORES =====
     
     public Transaction() {
@@ -86,7 +94,7 @@ public class Transaction {
     
     // Constructor básico para retiro/depósito
     public Transaction(Account account, Card card, TransactionType type, 
-                      BigDecimal amount, BigDecimal balanceAfter, String description) {
+                      Money amount, Money balanceAfter, String description) {
         this.account = account;
         this.card = card;
         this.type = type;
@@ -98,8 +106,8 @@ public class Transaction {
     }
     
     // Constructor para transferencias
-    public Transaction(Account account, TransactionType type, BigDecimal amount,
-                      BigDecimal balanceAfter, String description,
+    public Transaction(Account account, TransactionType type, Money amount,
+                      Money balanceAfter, String description,
                       String destinationIban, String destinationName) {
         this.account = account;
         this.type = type;
@@ -114,8 +122,8 @@ public class Transaction {
     
     // Constructor con comisión (cajero externo)
     public Transaction(Account account, Card card, TransactionType type,
-                      BigDecimal amount, BigDecimal balanceAfter, 
-                      String description, BigDecimal commission, boolean externalAtm) {
+                      Money amount, Money balanceAfter, 
+                      String description, Money commission, boolean externalAtm) {
         this.account = account;
         this.card = card;
         this.type = type;
@@ -130,12 +138,12 @@ public class Transaction {
     
     
     public static Transaction createWithdrawal(Account account, Card card, 
-                                              BigDecimal amount, BigDecimal balanceAfter,
-                                              boolean isExternalAtm, BigDecimal commission) {
+                                              Money amount, Money balanceAfter,
+                                              boolean isExternalAtm, Money commission) {
         String desc = isExternalAtm ? 
             "Retiro en cajero externo" : "Retiro en cajero propio";
         
-        if (commission.compareTo(BigDecimal.ZERO) > 0) {
+        if (commission.isPositive()) {
             desc += " (Comisión: " + commission + "€)";
         }
         
@@ -150,7 +158,7 @@ public class Transaction {
     }
     
     public static Transaction createDeposit(Account account, Card card,
-                                           BigDecimal amount, BigDecimal balanceAfter) {
+                                           Money amount, Money balanceAfter) {
         Transaction transaction = new Transaction(
             account, card, TransactionType.DEPOSIT,
             amount, balanceAfter, "Ingreso en cajero"
@@ -160,14 +168,14 @@ public class Transaction {
         return transaction;
     }
     
-    public static Transaction createTransferOut(Account account, BigDecimal amount,
-                                               BigDecimal balanceAfter, 
+    public static Transaction createTransferOut(Account account, Money amount,
+                                               Money balanceAfter, 
                                                String destinationIban, 
                                                String destinationName,
-                                               BigDecimal commission) {
+                                               Money commission) {
         String desc = "Transferencia a " + destinationName + " (" + destinationIban + ")";
         
-        if (commission.compareTo(BigDecimal.ZERO) > 0) {
+        if (commission.isPositive()) {
             desc += " (Comisión: " + commission + "€)";
         }
         
@@ -182,8 +190,8 @@ public class Transaction {
         return transaction;
     }
     
-    public static Transaction createTransferIn(Account account, BigDecimal amount,
-                                              BigDecimal balanceAfter,
+    public static Transaction createTransferIn(Account account, Money amount,
+                                              Money balanceAfter,
                                               String originIban, String originName) {
         String desc = "Transferencia desde " + originName + " (" + originIban + ")";
         
@@ -199,9 +207,7 @@ public class Transaction {
     
     private void generateReference() {
     	// Generar una referencia única para la transacción
-        this.transactionReference = "TXN-" + 
-            LocalDateTime.now().getYear() + "-" +
-            String.format("%08d", Math.abs(this.hashCode()));
+        this.transactionReference = TransactionReferenceGenerator.getDefault().next();
     }
     
     
@@ -238,19 +244,19 @@ public class Transaction {
         this.type = type;
     }
     
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
     
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
     
-    public BigDecimal getBalanceAfter() {
+    public Money getBalanceAfter() {
         return balanceAfter;
     }
     
-    public void setBalanceAfter(BigDecimal balanceAfter) {
+    public void setBalanceAfter(Money balanceAfter) {
         this.balanceAfter = balanceAfter;
     }
     
@@ -286,11 +292,11 @@ public class Transaction {
         this.destinationName = destinationName;
     }
     
-    public BigDecimal getCommission() {
+    public Money getCommission() {
         return commission;
     }
     
-    public void setCommission(BigDecimal commission) {
+    public void setCommission(Money commission) {
         this.commission = commission;
     }
     
@@ -334,6 +340,14 @@ public class Transaction {
         this.atmLocation = atmLocation;
     }
     
+    public Long getLedgerSequence() {
+        return ledgerSequence;
+    }
+    
+    public void setLedgerSequence(Long ledgerSequence) {
+        this.ledgerSequence = ledgerSequence;
+    }
+    
     // ===== MÉTODOS DE NEGOCIO =====
     
     public boolean isWithdrawal() {
@@ -349,10 +363,10 @@ public class Transaction {
                this.type == TransactionType.TRANSFER_OUT;
     }
     
-    public BigDecimal getNetAmount() {
+    public Money getNetAmount() {
         // Monto neto (después de comisiones)
-        if (this.commission.compareTo(BigDecimal.ZERO) > 0) {
-            return this.amount.subtract(this.commission);
+        if (this.commission.isPositive()) {
+            return this.amount.minus(this.commission);
         }
         return this.amount;
     }
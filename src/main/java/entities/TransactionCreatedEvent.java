@@ -0,0 +1,9 @@
+package entities;
+
+/**
+ * Evento de dominio publicado al insertar una nueva {@link Transaction}. Se
+ * entrega de forma síncrona dentro de la transacción que inserta la fila o,
+ * con {@link service.TransactionJournal}, al quedar escrita en el journal.
+ */
+public record TransactionCreatedEvent(Transaction transaction) {
+}
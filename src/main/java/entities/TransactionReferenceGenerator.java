@@ -0,0 +1,86 @@
+package entities;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de referencias de transacción únicas y ordenables, al estilo
+ * Snowflake, sin consultar la base de datos.
+ *
+ * Cada identificador es un long de 63 bits: 41 bits de milisegundos desde
+ * 2024-01-01T00:00Z, 10 bits de nodo y 12 bits de secuencia. La referencia
+ * es "TXN-" seguido del identificador en 19 dígitos decimales, así que el
+ * orden alfabético coincide con el orden de generación.
+ *
+ * El estado (milisegundo y secuencia) vive en un único {@link AtomicLong};
+ * si se agota la secuencia de un milisegundo se toma prestado el siguiente,
+ * por lo que nunca se bloquea ni se repite un valor aunque el reloj
+ * retroceda. Fuera del String final no reserva memoria.
+ */
+public final class TransactionReferenceGenerator {
+
+    public static final long EPOCH_MILLIS = 1704067200000L;
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final String PREFIX = "TXN-";
+    private static final int DIGITS = 19;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+
+    private static final ThreadLocal<byte[]> BUFFER =
+            ThreadLocal.withInitial(TransactionReferenceGenerator::initBuffer);
+
+    private static volatile TransactionReferenceGenerator defaultInstance = new TransactionReferenceGenerator(0);
+
+    private final long nodeBits;
+    private final AtomicLong lastTick = new AtomicLong();
+
+    public TransactionReferenceGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Identificador de nodo fuera de rango: " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    // Generador usado por las factorías de Transaction
+    public static TransactionReferenceGenerator getDefault() {
+        return defaultInstance;
+    }
+
+    public static void setDefault(TransactionReferenceGenerator generator) {
+        defaultInstance = generator;
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long tick;
+        long next;
+        do {
+            tick = lastTick.get();
+            next = Math.max(tick + 1, now);
+        } while (!lastTick.compareAndSet(tick, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    public String next() {
+        return format(nextId());
+    }
+
+    public static String format(long id) {
+        byte[] buffer = BUFFER.get();
+        for (int i = buffer.length - 1; i >= PREFIX.length(); i--) {
+            buffer[i] = (byte) ('0' + (id % 10));
+            id /= 10;
+        }
+        return new String(buffer, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] initBuffer() {
+        byte[] buffer = new byte[PREFIX.length() + DIGITS];
+        System.arraycopy(PREFIX.getBytes(StandardCharsets.ISO_8859_1), 0, buffer, 0, PREFIX.length());
+        return buffer;
+    }
+}
@@ -0,0 +1,20 @@
+package entities;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Identificador UUID versión 7 generado por {@link UuidV7Generator}.
+ * Sustituye a {@code @GeneratedValue(strategy = GenerationType.UUID)}.
+ */
+@IdGeneratorType(UuidV7IdentifierGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface UuidV7 {
+}
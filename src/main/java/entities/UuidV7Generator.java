@@ -0,0 +1,52 @@
+package entities;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generador de UUID versión 7 (RFC 9562) ordenados por tiempo.
+ *
+ * Los 48 bits altos son la marca de tiempo Unix en milisegundos, de modo que
+ * las claves nuevas se insertan al final del índice primario en lugar de
+ * repartirse por todo el árbol. Cada hilo mantiene su propio contador de
+ * 12 bits dentro del milisegundo, sin bloqueos, y los 62 bits bajos son
+ * aleatorios para que dos hilos no colisionen. Si el contador se agota o el
+ * reloj retrocede, la marca de tiempo del hilo avanza un milisegundo para
+ * conservar el orden.
+ *
+ * Se genera en el propio proceso, sin ir a la base de datos, y puede usarse
+ * directamente cuando se necesita el identificador antes de insertar la fila.
+ */
+public final class UuidV7Generator {
+
+    private static final int MAX_SEQUENCE = 0xFFF;
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private UuidV7Generator() {
+    }
+
+    public static UUID generate() {
+        State state = STATE.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+
+        if (now > state.lastMillis) {
+            state.lastMillis = now;
+            // Arranque aleatorio en la mitad baja para dejar margen al contador
+            state.sequence = random.nextInt(MAX_SEQUENCE / 2);
+        } else if (++state.sequence > MAX_SEQUENCE) {
+            state.lastMillis++;
+            state.sequence = 0;
+        }
+
+        long msb = (state.lastMillis << 16) | 0x7000L | state.sequence;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private static final class State {
+        private long lastMillis = -1;
+        private int sequence;
+    }
+}
@@ -0,0 +1,15 @@
+package entities;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Adaptador de {@link UuidV7Generator} para Hibernate. Se aplica con {@link UuidV7}.
+ */
+public class UuidV7IdentifierGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return UuidV7Generator.generate();
+    }
+}
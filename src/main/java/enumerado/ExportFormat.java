@@ -0,0 +1,25 @@
+package enumerado;
+
+public enum ExportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+    
+    private final String mediaType;
+    
+    ExportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+    
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat fromName(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportación no válido: " + name);
+    }
+}
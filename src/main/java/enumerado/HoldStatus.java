@@ -0,0 +1,18 @@
+package enumerado;
+
+public enum HoldStatus {
+    OPEN("Abierta"),
+    CAPTURED("Cobrada"),
+    RELEASED("Liberada"),
+    EXPIRED("Caducada");
+    
+    private final String description;
+    
+    HoldStatus(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
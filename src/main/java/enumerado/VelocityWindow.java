@@ -0,0 +1,41 @@
+package enumerado;
+
+import java.time.Duration;
+
+public enum VelocityWindow {
+    ONE_MINUTE("1m", Duration.ofMinutes(1), 12),
+    TEN_MINUTES("10m", Duration.ofMinutes(10), 20),
+    ONE_DAY("24h", Duration.ofHours(24), 48);
+    
+    private final String label;
+    private final Duration length;
+    private final int buckets;
+    
+    VelocityWindow(String label, Duration length, int buckets) {
+        this.label = label;
+        this.length = length;
+        this.buckets = buckets;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public Duration getLength() {
+        return length;
+    }
+    
+    // Cubetas del anillo: la ventana avanza de una en una (5 s, 30 s y 30 min)
+    public int getBuckets() {
+        return buckets;
+    }
+    
+    public static VelocityWindow fromLabel(String label) {
+        for (VelocityWindow window : values()) {
+            if (window.label.equalsIgnoreCase(label)) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("Ventana de velocidad no válida: " + label);
+    }
+}
@@ -0,0 +1,19 @@
+package repository;
+
+import java.util.UUID;
+
+import entities.Money;
+
+/**
+ * Actualizaciones condicionales del saldo de {@link AccountRepository} sin
+ * cargar la cuenta. Si la cuenta ya está en el contexto de persistencia se
+ * refresca; el resto de entidades gestionadas no se tocan.
+ */
+public interface AccountBalanceUpdates {
+
+    // 0 si la cuenta no existe o no tiene saldo suficiente
+    int debitIfSufficient(UUID id, Money amount);
+
+    // 0 si la cuenta no existe
+    int credit(UUID id, Money amount);
+}
@@ -0,0 +1,63 @@
+package repository;
+
+import java.util.UUID;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import entities.Account;
+import entities.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+// Transaccional como SimpleJpaRepository: el UPDATE y el refresco van en la misma transacción
+@Transactional
+public class AccountBalanceUpdatesImpl implements AccountBalanceUpdates {
+
+    // SQL nativo: HQL no admite aritmética sobre atributos con AttributeConverter.
+    // Se incrementa la versión para que las escrituras optimistas detecten el cambio.
+    private static final String DEBIT = "UPDATE accounts SET balance = balance - :amount, version = version + 1 "
+            + "WHERE id = :id AND balance >= :amount";
+    private static final String CREDIT = "UPDATE accounts SET balance = balance + :amount, version = version + 1 "
+            + "WHERE id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int debitIfSufficient(UUID id, Money amount) {
+        return update(DEBIT, id, amount);
+    }
+
+    @Override
+    public int credit(UUID id, Money amount) {
+        return update(CREDIT, id, amount);
+    }
+
+    private int update(String sql, UUID id, Money amount) {
+        // Los cambios pendientes de la transacción exterior van antes que el UPDATE
+        entityManager.flush();
+        // Sin HINT_NATIVE_SPACES Hibernate vaciaría toda la caché de segundo nivel en cada UPDATE
+        int updated = entityManager.createNativeQuery(sql)
+                .setHint(HINT_NATIVE_SPACES, "accounts")
+                .setParameter("amount", amount.toBigDecimal())
+                .setParameter("id", id)
+                .executeUpdate();
+        if (updated > 0) {
+            refreshIfManaged(entityManager.unwrap(SessionImplementor.class), id);
+        }
+        return updated;
+    }
+
+    // Solo la cuenta afectada: vaciar el contexto entero desconectaría las entidades del llamante
+    private void refreshIfManaged(SessionImplementor session, UUID id) {
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Account.class);
+        Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+        if (managed != null) {
+            session.refresh(managed);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import entities.Account;
+import entities.Money;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface AccountRepository extends JpaRepository<Account, UUID>, AccountBalanceUpdates {
+    
+    // BÚSQUEDAS BÁSICAS
+    Optional<Account> findByAccountNumber(String accountNumber);
+    Optional<Account> findByIban(String iban);
+    boolean existsByIdAndActiveTrue(UUID id);
+    
+    // SALDO de la columna: en modo libro mayor es solo el de apertura (leer con LedgerService.getBalance)
+    @Query("SELECT a.balance FROM Account a WHERE a.id = :id")
+    Optional<Money> findBalanceById(@Param("id") UUID id);
+    
+    // ACTUALIZACIONES CONDICIONALES (sin cargar la entidad): en AccountBalanceUpdates
+}
@@ -0,0 +1,39 @@
+package repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import entities.BalanceSnapshot;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, UUID> {
+
+    // Instantánea vigente (la de corte más reciente)
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.account.id = :accountId " +
+           "ORDER BY s.cutoffSequence DESC, s.createdAt DESC")
+    List<BalanceSnapshot> findLatest(@Param("accountId") UUID accountId, Pageable limit);
+
+    default Optional<BalanceSnapshot> findLatestByAccountId(UUID accountId) {
+        return findLatest(accountId, Pageable.ofSize(1)).stream().findFirst();
+    }
+
+    Optional<BalanceSnapshot> findByAccountIdAndOpeningTrue(UUID accountId);
+    
+    // Cuentas que operan en modo libro mayor
+    @Query("SELECT s.account.id FROM BalanceSnapshot s WHERE s.opening = true")
+    List<UUID> findLedgerAccountIds();
+
+    // Compactación: solo se conservan la apertura y la instantánea indicada
+    @Modifying
+    @Query("DELETE FROM BalanceSnapshot s WHERE s.account.id = :accountId " +
+           "AND s.opening = false AND s.id <> :keepId")
+    int deleteSuperseded(@Param("accountId") UUID accountId, @Param("keepId") UUID keepId);
+}
@@ -0,0 +1,31 @@
+package repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import entities.CardHold;
+import enumerado.HoldStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CardHoldRepository extends JpaRepository<CardHold, UUID> {
+
+    List<CardHold> findByStatus(HoldStatus status);
+
+    // Cierra la retención solo si sigue abierta; devuelve 0 si otro la cerró antes
+    @Modifying
+    @Query("UPDATE CardHold h SET h.status = :status WHERE h.id = :id AND h.status = enumerado.HoldStatus.OPEN")
+    int close(@Param("id") UUID id, @Param("status") HoldStatus status);
+
+    // Caducidad en bloque de las retenciones abiertas vencidas
+    @Modifying
+    @Query("UPDATE CardHold h SET h.status = enumerado.HoldStatus.EXPIRED " +
+           "WHERE h.status = enumerado.HoldStatus.OPEN AND h.expiresAt <= :now")
+    int expireDue(@Param("now") LocalDateTime now);
+}
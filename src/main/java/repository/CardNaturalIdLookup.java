@@ -0,0 +1,14 @@
+package repository;
+
+import java.util.Optional;
+
+import entities.Card;
+
+/**
+ * Búsqueda de {@link CardRepository} por id natural: resuelve el número de
+ * tarjeta con la caché de segundo nivel antes de ir a la base de datos.
+ */
+public interface CardNaturalIdLookup {
+
+    Optional<Card> findByCardNumber(String cardNumber);
+}
@@ -0,0 +1,30 @@
+package repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import entities.Card;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import service.ReadReplicaDataSource;
+
+// Transaccional como SimpleJpaRepository: fuera de una transacción la sesión se cerraría tras el unwrap
+@Transactional(readOnly = true)
+public class CardNaturalIdLookupImpl implements CardNaturalIdLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Card> findByCardNumber(String cardNumber) {
+        if (cardNumber == null) {
+            return Optional.empty();
+        }
+        // En el primario: un fallo leído de una réplica atrasada dejaría la fila vieja en la caché compartida
+        return ReadReplicaDataSource.onPrimary(() -> entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Card.class)
+                .loadOptional(cardNumber));
+    }
+}
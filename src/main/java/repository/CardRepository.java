@@ -3,24 +3,29 @@ package repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import dto.CardAuthorization;
 import entities.Account;
 import entities.Card;
 import entities.Customer;
 import enumerado.CardType;
+import jakarta.persistence.QueryHint;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, UUID> {
+public interface CardRepository extends JpaRepository<Card, UUID>, CardNaturalIdLookup {
     
-    // BÚSQUEDAS BÁSICAS
-    Optional<Card> findByCardNumber(String cardNumber);
+    // BÚSQUEDAS BÁSICAS (findByCardNumber: por id natural, en CardNaturalIdLookup)
     List<Card> findByAccount(Account account);
     List<Card> findByAccountId(UUID accountId);
     
@@ -36,22 +41,33 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
     List<Card> findByType(CardType type);
     List<Card> findByTypeAndActiveTrue(CardType type);
     
-    // TARJETAS DE UN CLIENTE (a través de sus cuentas)
-    @Query("SELECT c FROM Card c WHERE c.account.customer = :customer")
+    // TARJETAS DE UN CLIENTE (a través de sus cuentas; la cuenta viene en la misma consulta)
+    @Query("SELECT c FROM Card c JOIN FETCH c.account a WHERE a.customer = :customer")
     List<Card> findByCustomer(@Param("customer") Customer customer);
     
-    @Query("SELECT c FROM Card c WHERE c.account.customer.id = :customerId")
+    @Query("SELECT c FROM Card c JOIN FETCH c.account a WHERE a.customer.id = :customerId")
     List<Card> findByCustomerId(@Param("customerId") UUID customerId);
     
     // VERIFICACIONES
     boolean existsByCardNumber(String cardNumber);
     boolean existsByCardNumberAndActiveTrue(String cardNumber);
     
+    // Todos los números de tarjeta (carga del filtro de Bloom; requiere transacción abierta)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.cardNumber FROM Card c")
+    Stream<String> streamCardNumbers();
+    
     // CONSULTAS PARA CAJERO AUTOMÁTICO
     @Query("SELECT c FROM Card c WHERE c.cardNumber = :cardNumber " +
            "AND c.active = true AND c.pinChanged = true")
     Optional<Card> findActiveAndReadyCard(@Param("cardNumber") String cardNumber);
     
+    // INSTANTÁNEA DE AUTORIZACIÓN (una sola consulta, sin hidratar la entidad)
+    @Query("SELECT new dto.CardAuthorization(c.id, c.cardNumber, c.type, " +
+           "c.dailyWithdrawalLimit, c.creditLimit, c.active, c.pinChanged, c.account.id) " +
+           "FROM Card c WHERE c.cardNumber = :cardNumber")
+    Optional<CardAuthorization> findAuthorizationByCardNumber(@Param("cardNumber") String cardNumber);
+    
     // CONSULTA PARA VALIDAR RETIRO (incluye límites)
     @Query("SELECT c FROM Card c WHERE c.id = :cardId " +
            "AND c.active = true " +
@@ -60,11 +76,15 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
     Optional<Card> findValidCardForWithdrawal(@Param("cardId") UUID cardId);
     
     // ESTADÍSTICAS
+    @ReportingQuery
     long countByType(CardType type);
+    @ReportingQuery
     long countByActiveTrue();
+    @ReportingQuery
     long countByActiveTrueAndType(CardType type);
     
     // TARJETAS POR LÍMITE DE CRÉDITO
+    @ReportingQuery
     @Query("SELECT c FROM Card c WHERE c.type = 'CREDIT' " +
            "AND c.creditLimit >= :minLimit AND c.creditLimit <= :maxLimit")
     List<Card> findCreditCardsByLimitRange(
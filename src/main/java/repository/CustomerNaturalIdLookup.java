@@ -0,0 +1,15 @@
+package repository;
+
+import java.util.Optional;
+
+import entities.Customer;
+
+/**
+ * Búsqueda de {@link CustomerRepository} por id natural: resuelve el número
+ * de cliente con la caché de segundo nivel antes de ir a la base de datos.
+ */
+public interface CustomerNaturalIdLookup {
+
+    // Buscar por número de cliente (debe ser único)
+    Optional<Customer> findByCustomerNumber(String customerNumber);
+}
@@ -0,0 +1,30 @@
+package repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import entities.Customer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import service.ReadReplicaDataSource;
+
+// Transaccional como SimpleJpaRepository: fuera de una transacción la sesión se cerraría tras el unwrap
+@Transactional(readOnly = true)
+public class CustomerNaturalIdLookupImpl implements CustomerNaturalIdLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Customer> findByCustomerNumber(String customerNumber) {
+        if (customerNumber == null) {
+            return Optional.empty();
+        }
+        // En el primario: un fallo leído de una réplica atrasada dejaría la fila vieja en la caché compartida
+        return ReadReplicaDataSource.onPrimary(() -> entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Customer.class)
+                .loadOptional(customerNumber));
+    }
+}
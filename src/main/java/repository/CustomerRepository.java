@@ -1,46 +1,93 @@
 package repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import dto.CustomerName;
+import dto.CustomerUniqueKeys;
+import dto.DashboardRow;
 import entities.Customer;
+import jakarta.persistence.QueryHint;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+public interface CustomerRepository extends JpaRepository<Customer, UUID>, CustomerNaturalIdLookup {
     
-    // Buscar por número de cliente (debe ser único)
-    Optional<Customer> findByCustomerNumber(String customerNumber);
+    // findByCustomerNumber: por id natural, en CustomerNaturalIdLookup
     
-    // Buscar por DNI/NIF
+    // Buscar por DNI/NIF (caché de consultas; se invalida con cualquier escritura en customers)
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                  @QueryHint(name = HINT_CACHE_REGION, value = "customers-by-key") })
     Optional<Customer> findByDocumentNumber(String documentNumber);
     
-    // Buscar por email
+    // Buscar por email (caché de consultas)
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                  @QueryHint(name = HINT_CACHE_REGION, value = "customers-by-key") })
     Optional<Customer> findByEmail(String email);
     
     // Buscar clientes activos
     List<Customer> findByActiveTrue();
     
-    // Buscar por nombre (búsqueda flexible)
-    List<Customer> findByFirstNameContainingIgnoreCase(String firstName);
-    List<Customer> findByLastNameContainingIgnoreCase(String lastName);
-    
+    // Minúsculas con tilde y su forma sin ella: las búsquedas por nombre comparan como CustomerNameIndex
+    String ACCENTED = "áàâäãéèêëíìîïóòôöõúùûüñç";
+    String UNACCENTED = "aaaaaeeeeiiiiooooouuuunc";
+
+    // Buscar por nombre (búsqueda flexible, sin tildes). Recorren la tabla: son
+    // el respaldo de CustomerSearchService mientras carga su índice en memoria
+    @Query("SELECT c FROM Customer c WHERE " +
+           "FUNCTION('TRANSLATE', LOWER(c.firstName), '" + ACCENTED + "', '" + UNACCENTED + "') LIKE " +
+           "CONCAT('%', FUNCTION('TRANSLATE', LOWER(:firstName), '" + ACCENTED + "', '" + UNACCENTED + "'), '%')")
+    List<Customer> findByFirstNameContainingIgnoreCase(@Param("firstName") String firstName);
+
+    @Query("SELECT c FROM Customer c WHERE " +
+           "FUNCTION('TRANSLATE', LOWER(c.lastName), '" + ACCENTED + "', '" + UNACCENTED + "') LIKE " +
+           "CONCAT('%', FUNCTION('TRANSLATE', LOWER(:lastName), '" + ACCENTED + "', '" + UNACCENTED + "'), '%')")
+    List<Customer> findByLastNameContainingIgnoreCase(@Param("lastName") String lastName);
+
     // Búsqueda combinada nombre/apellido
     @Query("SELECT c FROM Customer c WHERE " +
-           "LOWER(c.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :query, '%'))")
+           "FUNCTION('TRANSLATE', LOWER(CONCAT(c.firstName, ' ', c.lastName)), '" + ACCENTED + "', '" +
+           UNACCENTED + "') LIKE " +
+           "CONCAT('%', FUNCTION('TRANSLATE', LOWER(TRIM(:query)), '" + ACCENTED + "', '" + UNACCENTED + "'), '%')")
     List<Customer> searchByName(@Param("query") String query);
     
+    // Nombres por lotes ordenados por id (carga del índice de búsqueda)
+    @Query("SELECT new dto.CustomerName(c.id, c.firstName, c.lastName) FROM Customer c " +
+           "WHERE c.id > :afterId ORDER BY c.id")
+    List<CustomerName> findNamesAfter(@Param("afterId") UUID afterId, Pageable pageable);
+    
+    // Panel de cliente: cliente, cuentas y tarjetas en una sola consulta
+    @Query("SELECT new dto.DashboardRow(cu.id, cu.customerNumber, cu.firstName, cu.lastName, " +
+           "a.id, a.accountNumber, a.iban, a.accountType, a.balance, a.active, " +
+           "c.id, c.cardNumber, c.type, c.active, c.dailyWithdrawalLimit, c.creditLimit) " +
+           "FROM Customer cu LEFT JOIN cu.accounts a LEFT JOIN a.cards c " +
+           "WHERE cu.id = :customerId " +
+           "ORDER BY a.accountNumber, c.cardNumber")
+    List<DashboardRow> findDashboardRows(@Param("customerId") UUID customerId);
+    
     // Verificar existencia
     boolean existsByCustomerNumber(String customerNumber);
     boolean existsByEmail(String email);
     boolean existsByDocumentNumber(String documentNumber);
     
+    // Claves únicas de todos los clientes (carga de los filtros de Bloom; requiere transacción abierta)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new dto.CustomerUniqueKeys(c.customerNumber, c.email, c.documentNumber) FROM Customer c")
+    Stream<CustomerUniqueKeys> streamUniqueKeys();
+    
     // Contar clientes activos
+    @ReportingQuery
     long countByActiveTrue();
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Consulta de informes: se ejecuta en una transacción de solo lectura y, con
+ * réplica configurada ({@code datasource.replica.url}), en la réplica, para
+ * no competir con las escrituras de los cajeros en el primario. Si se llama
+ * dentro de una transacción de escritura se une a ella y lee del primario.
+ */
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReportingQuery {
+}
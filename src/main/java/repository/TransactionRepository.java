@@ -1,26 +1,38 @@
 package repository;
 
 
+import dto.RecentTransaction;
+import dto.TransactionCursor;
+import dto.WithdrawalActivity;
 import entities.Account;
+import entities.Money;
 import entities.Transaction;
 import enumerado.TransactionType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
     
-    
+    // HISTORIAL: solo la tabla caliente; con el archivo, los equivalentes de service.TransactionArchive
     List<Transaction> findByAccountOrderByCreatedAtDesc(Account account);
     Page<Transaction> findByAccount(Account account, Pageable pageable);
     
@@ -30,18 +42,48 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
     // Por rango de fechas
     List<Transaction> findByAccountAndCreatedAtBetween(Account account, LocalDateTime start, LocalDateTime end);
     
-    // Retiros de hoy
+    // Retiros desde un instante (rango sobre created_at, aprovecha el índice)
     @Query("SELECT t FROM Transaction t WHERE t.account = :account " +
            "AND t.type = 'WITHDRAWAL' " +
-           "AND DATE(t.createdAt) = CURRENT_DATE")
-    List<Transaction> findTodayWithdrawals(@Param("account") Account account);
+           "AND t.createdAt >= :since")
+    List<Transaction> findWithdrawalsSince(@Param("account") Account account,
+                                           @Param("since") LocalDateTime since);
     
-    // Total retirado hoy
-    @Query("SELECT COALESCE(SUM(ABS(t.amount)), 0) FROM Transaction t " +
+    // Retiros de hoy
+    default List<Transaction> findTodayWithdrawals(Account account) {
+        return findWithdrawalsSince(account, LocalDate.now().atStartOfDay());
+    }
+    
+    // Total retirado desde un instante (el literal 0.00BD fija el tipo decimal del COALESCE)
+    @Query("SELECT COALESCE(SUM(ABS(t.amount)), 0.00BD) FROM Transaction t " +
            "WHERE t.account = :account " +
            "AND t.type = 'WITHDRAWAL' " +
-           "AND DATE(t.createdAt) = CURRENT_DATE")
-    BigDecimal getTodayWithdrawalTotal(@Param("account") Account account);
+           "AND t.createdAt >= :since")
+    BigDecimal getWithdrawalTotalSince(@Param("account") Account account,
+                                       @Param("since") LocalDateTime since);
+    
+    // Total retirado hoy
+    default BigDecimal getTodayWithdrawalTotal(Account account) {
+        return getWithdrawalTotalSince(account, LocalDate.now().atStartOfDay());
+    }
+    
+    // Totales retirados por cuenta y tarjeta (reconstrucción del acumulador diario)
+    @Query("SELECT t.account.id, c.id, COALESCE(SUM(ABS(t.amount)), 0.00BD) FROM Transaction t " +
+           "LEFT JOIN t.card c " +
+           "WHERE t.type = 'WITHDRAWAL' " +
+           "AND t.createdAt >= :since " +
+           "GROUP BY t.account.id, c.id")
+    List<Object[]> sumWithdrawalsSinceByAccountAndCard(@Param("since") LocalDateTime since);
+    
+    // Retiros desde un instante, en streaming (reconstrucción del control de velocidad)
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new dto.WithdrawalActivity(t.account.id, c.id, t.amount, t.createdAt) " +
+           "FROM Transaction t LEFT JOIN t.card c " +
+           "WHERE t.type = 'WITHDRAWAL' AND t.createdAt >= :since")
+    Stream<WithdrawalActivity> streamWithdrawalActivitySince(@Param("since") LocalDateTime since);
     
     // Por IBAN destino
     List<Transaction> findByDestinationIban(String destinationIban);
@@ -49,15 +91,79 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
     // Por referencia
     Optional<Transaction> findByTransactionReference(String transactionReference);
     
+    // Referencias de la lista que ya están insertadas (replay idempotente del journal)
+    @Query("SELECT t.transactionReference FROM Transaction t WHERE t.transactionReference IN :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+    
     // Últimas N transacciones
     @Query("SELECT t FROM Transaction t WHERE t.account = :account " +
            "ORDER BY t.createdAt DESC")
     List<Transaction> findLastTransactions(@Param("account") Account account, Pageable pageable);
     
+    // Paginación por clave (keyset) sobre (created_at DESC, id): página siguiente
+    // a la posición (createdAt, id). El predicado createdAt <= :createdAt permite
+    // el recorrido por rango del índice y el ORDER BY repite account_id para que
+    // el motor lea en el orden del índice sin ordenar en memoria
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId " +
+           "AND t.createdAt <= :createdAt " +
+           "AND (t.createdAt < :createdAt OR t.id > :id) " +
+           "ORDER BY t.account.id, t.createdAt DESC, t.id ASC")
+    List<Transaction> findPageAfter(@Param("accountId") UUID accountId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Pageable limit);
+    
+    // Extracto completo en streaming (requiere transacción abierta y cerrar el Stream)
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId " +
+           "ORDER BY t.createdAt DESC, t.id ASC")
+    Stream<Transaction> streamByAccountId(@Param("accountId") UUID accountId);
+    
+    // LIBRO MAYOR: secuencia de la última transacción de la cuenta (null si no hay ninguna en el modo)
+    @Query("SELECT MAX(t.ledgerSequence) FROM Transaction t WHERE t.account.id = :accountId")
+    Long findLatestLedgerSequence(@Param("accountId") UUID accountId);
+    
+    // Neto (importe menos comisión) posterior a una secuencia. SQL nativo porque HQL
+    // no admite aritmética sobre atributos con AttributeConverter
+    @Query(value = "SELECT COALESCE(SUM(t.amount - COALESCE(t.commission, 0)), 0) FROM transactions t " +
+                   "WHERE t.account_id = :accountId AND t.ledger_sequence > :sequence", nativeQuery = true)
+    BigDecimal sumNetAmountAfter(@Param("accountId") UUID accountId, @Param("sequence") long sequence);
+    
+    // Replay del libro mayor: transacciones posteriores a una secuencia, en orden de alta
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId AND t.ledgerSequence > :sequence " +
+           "ORDER BY t.ledgerSequence")
+    Stream<Transaction> streamAfter(@Param("accountId") UUID accountId, @Param("sequence") long sequence);
+    
+    // Últimos N movimientos de cada cuenta de un cliente (una sola consulta)
+    @Query("SELECT new dto.RecentTransaction(x.accountId, x.id, x.type, x.amount, " +
+           "x.balanceAfter, x.description, x.createdAt) " +
+           "FROM (SELECT t.account.id AS accountId, t.id AS id, t.type AS type, t.amount AS amount, " +
+           "      t.balanceAfter AS balanceAfter, t.description AS description, t.createdAt AS createdAt, " +
+           "      ROW_NUMBER() OVER (PARTITION BY t.account.id ORDER BY t.createdAt DESC, t.id) AS rn " +
+           "      FROM Transaction t WHERE t.account.customer.id = :customerId) x " +
+           "WHERE x.rn <= :limit " +
+           "ORDER BY x.accountId, x.createdAt DESC")
+    List<RecentTransaction> findRecentByCustomerId(@Param("customerId") UUID customerId,
+                                                   @Param("limit") long limit);
+    
+    // ARCHIVO: posiciones de las transacciones más antiguas anteriores a un instante
+    @Query("SELECT new dto.TransactionCursor(t.createdAt, t.id) FROM Transaction t " +
+           "WHERE t.createdAt < :before ORDER BY t.createdAt, t.id")
+    List<TransactionCursor> findPositionsBefore(@Param("before") LocalDateTime before, Pageable limit);
+    
     // Transacciones con comisión
-    List<Transaction> findByCommissionGreaterThan(BigDecimal zero);
+    @ReportingQuery
+    List<Transaction> findByCommissionGreaterThan(Money zero);
     
     // Transacciones desde cajeros externos
+    @ReportingQuery
     List<Transaction> findByExternalAtmTrue();
     
     // Estadísticas
@@ -0,0 +1,250 @@
+package service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import entities.Account;
+import entities.Money;
+import entities.Transaction;
+import jakarta.persistence.EntityManager;
+import repository.AccountRepository;
+import repository.TransactionRepository;
+
+/**
+ * Agrupa los abonos concurrentes a una misma cuenta ({@code DEPOSIT},
+ * {@code TRANSFER_IN}) y los aplica en una sola transacción: un UPDATE de
+ * la cuenta y los INSERT de todas las transacciones en un lote JDBC.
+ *
+ * El primer hilo que encuentra libre la cola de la cuenta hace de líder:
+ * espera hasta {@code coalescing.max-wait} a que se acumulen abonos (o
+ * hasta {@code coalescing.max-batch-size}), aplica el lote y repite
+ * mientras quede algo en la cola, hasta {@value #MAX_BATCHES_PER_LEADER}
+ * lotes una vez aplicado el suyo. Después cede la cola al dueño del primer
+ * abono pendiente, así que ningún llamante queda atrapado aplicando abonos
+ * ajenos con una cuenta muy activa. El resto espera su resultado; cada uno
+ * recibe su propia transacción con el {@code balanceAfter} que le
+ * corresponde según el orden de llegada. La cola de una cuenta se elimina
+ * en cuanto se vacía.
+ *
+ * Si el lote falla, todos sus abonos fallan con la misma excepción.
+ */
+@Service
+public class AccountCreditCoalescer {
+
+    static final int MAX_BATCHES_PER_LEADER = 4;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceService balanceService;
+    private final ConnectionPoolLimiter connectionPoolLimiter;
+    private final EntityManager entityManager;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    // Una cola por cuenta con abonos pendientes
+    private final ConcurrentMap<UUID, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder credits = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @Autowired
+    public AccountCreditCoalescer(AccountRepository accountRepository,
+                                  TransactionRepository transactionRepository,
+                                  BalanceService balanceService,
+                                  ConnectionPoolLimiter connectionPoolLimiter,
+                                  EntityManager entityManager,
+                                  @Value("${coalescing.enabled:false}") boolean enabled,
+                                  @Value("${coalescing.max-batch-size:100}") int maxBatchSize,
+                                  @Value("${coalescing.max-wait:1ms}") Duration maxWait) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("El lote debe admitir al menos un abono");
+        }
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.balanceService = balanceService;
+        this.connectionPoolLimiter = connectionPoolLimiter;
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Abona {@code amount} a la cuenta con la transacción que crea
+     * {@code movement} a partir de la cuenta y del saldo resultante, cuyo
+     * neto debe ser {@code amount}. Vuelve cuando el lote está confirmado.
+     */
+    public Transaction credit(UUID accountId, Money amount, BiFunction<Account, Money, Transaction> movement) {
+        if (amount == null || !amount.isPositive()) {
+            throw new IllegalArgumentException("El importe debe ser positivo");
+        }
+        Credit credit = new Credit(amount, movement, Thread.currentThread(), new CompletableFuture<>());
+        // Dentro de compute: una cola vacía solo se elimina si nadie acaba de encolar en ella
+        Lane lane = lanes.compute(accountId, (k, current) -> {
+            Lane target = current != null ? current : new Lane();
+            target.queue.add(credit);
+            target.size.incrementAndGet();
+            return target;
+        });
+        if (lane.size.get() >= maxBatchSize) {
+            Thread leader = lane.leader;
+            if (leader != null) {
+                LockSupport.unpark(leader);
+            }
+        }
+        // Espera su resultado; si entre tanto la cola se queda sin líder, lo es este hilo
+        boolean interrupted = false;
+        while (!credit.result().isDone()) {
+            if (lane.draining.compareAndSet(false, true)) {
+                drain(accountId, lane, credit);
+            } else {
+                LockSupport.park(this);
+                interrupted |= Thread.interrupted();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            return credit.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // ===== ESTADÍSTICAS =====
+
+    public long getCreditCount() {
+        return credits.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    // ===== INTERNOS =====
+
+    // Aplica lotes hasta vaciar la cola o agotar el turno, y después la suelta
+    private void drain(UUID accountId, Lane lane, Credit own) {
+        lane.leader = Thread.currentThread();
+        try {
+            // El turno cuenta a partir del lote que incluye su propio abono
+            int batches = 0;
+            while (lane.size.get() > 0 && batches < MAX_BATCHES_PER_LEADER) {
+                if (own.result().isDone()) {
+                    batches++;
+                }
+                applyNextBatch(accountId, lane);
+            }
+        } finally {
+            lane.leader = null;
+            lane.draining.set(false);
+        }
+        if (lane.size.get() > 0) {
+            // Turno agotado o abonos llegados al soltar la cola: el primero pendiente toma el relevo
+            Credit next = lane.queue.peek();
+            if (next != null) {
+                LockSupport.unpark(next.owner());
+            }
+        } else {
+            lanes.computeIfPresent(accountId, (k, current) -> current.size.get() == 0 ? null : current);
+        }
+    }
+
+    private void applyNextBatch(UUID accountId, Lane lane) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        long remaining;
+        while (lane.size.get() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        List<Credit> batch = new ArrayList<>(maxBatchSize);
+        Credit next;
+        while (batch.size() < maxBatchSize && (next = lane.queue.poll()) != null) {
+            batch.add(next);
+        }
+        lane.size.addAndGet(-batch.size());
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            List<Transaction> transactions = connectionPoolLimiter.call(() -> apply(accountId, batch));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(transactions.get(i));
+            }
+            credits.add(batch.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            for (Credit credit : batch) {
+                credit.result().completeExceptionally(e);
+            }
+        } finally {
+            for (Credit credit : batch) {
+                LockSupport.unpark(credit.owner());
+            }
+        }
+    }
+
+    private List<Transaction> apply(UUID accountId, List<Credit> batch) {
+        return balanceService.executeWithRetry(() -> {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new IllegalArgumentException("Cuenta no encontrada"));
+            if (!account.isActive()) {
+                throw new IllegalArgumentException("Cuenta inactiva");
+            }
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batch.size());
+            Money balance = account.getBalance();
+            List<Transaction> transactions = new ArrayList<>(batch.size());
+            for (Credit credit : batch) {
+                balance = balance.plus(credit.amount());
+                Transaction transaction = credit.movement().apply(account, balance);
+                if (!transaction.getNetAmount().equals(credit.amount())) {
+                    throw new IllegalStateException("El neto de la transacción no coincide con el abono");
+                }
+                transactions.add(transaction);
+            }
+            account.deposit(balance.minus(account.getBalance()));
+            return transactionRepository.saveAll(transactions);
+        });
+    }
+
+    private record Credit(Money amount, BiFunction<Account, Money, Transaction> movement, Thread owner,
+                          CompletableFuture<Transaction> result) {
+    }
+
+    private static final class Lane {
+        private final Queue<Credit> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile Thread leader;
+    }
+}
@@ -0,0 +1,265 @@
+package service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import dto.AtmReceipt;
+import dto.CardAuthorization;
+import dto.HoldReceipt;
+import dto.RecentTransaction;
+import entities.Account;
+import entities.Card;
+import entities.Money;
+import entities.Transaction;
+import repository.AccountRepository;
+import repository.CardRepository;
+import repository.TransactionRepository;
+import service.HoldService.OpenHold;
+import service.IdempotencyService.IdempotentRequest;
+
+/**
+ * Operaciones de cajero identificadas por número de tarjeta: retiro,
+ * ingreso, consulta de saldo y últimos movimientos.
+ *
+ * La tarjeta se valida con {@link CardAuthorizationCache}; el saldo
+ * disponible y el límite diario, descontadas las retenciones abiertas, con
+ * {@link HoldService}, y la frecuencia de retiros, con {@link VelocityEngine}.
+ * Un retiro puede hacerse de una vez o en dos fases:
+ * retención antes de dispensar y cobro después. Retiros, cobros e ingresos
+ * admiten una clave de idempotencia ({@link IdempotencyService}).
+ *
+ * Los movimientos de saldo pasan por {@link BalanceService#executeWithRetry},
+ * o por {@link LedgerService} en modo libro mayor, y cada operación ocupa
+ * como mucho un permiso de {@link ConnectionPoolLimiter}. Con
+ * {@code coalescing.enabled=true}, los ingresos fuera del modo libro mayor
+ * se agrupan por cuenta con {@link AccountCreditCoalescer}.
+ */
+@Service
+public class AtmService {
+
+    public static final int MAX_MOVEMENTS = 50;
+
+    private final CardAuthorizationCache cardAuthorizationCache;
+    private final HoldService holdService;
+    private final VelocityEngine velocityEngine;
+    private final IdempotencyService idempotencyService;
+    private final BalanceService balanceService;
+    private final LedgerService ledgerService;
+    private final AccountCreditCoalescer creditCoalescer;
+    private final TransactionHistoryService historyService;
+    private final ConnectionPoolLimiter connectionPoolLimiter;
+    private final AccountRepository accountRepository;
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final Money externalCommission;
+
+    public AtmService(CardAuthorizationCache cardAuthorizationCache,
+                      HoldService holdService,
+                      VelocityEngine velocityEngine,
+                      IdempotencyService idempotencyService,
+                      BalanceService balanceService,
+                      LedgerService ledgerService,
+                      AccountCreditCoalescer creditCoalescer,
+                      TransactionHistoryService historyService,
+                      ConnectionPoolLimiter connectionPoolLimiter,
+                      AccountRepository accountRepository,
+                      CardRepository cardRepository,
+                      TransactionRepository transactionRepository,
+                      @Value("${atm.external-commission:2.00}") BigDecimal externalCommission) {
+        this.cardAuthorizationCache = cardAuthorizationCache;
+        this.holdService = holdService;
+        this.velocityEngine = velocityEngine;
+        this.idempotencyService = idempotencyService;
+        this.balanceService = balanceService;
+        this.ledgerService = ledgerService;
+        this.creditCoalescer = creditCoalescer;
+        this.historyService = historyService;
+        this.connectionPoolLimiter = connectionPoolLimiter;
+        this.accountRepository = accountRepository;
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.externalCommission = Money.of(externalCommission);
+    }
+
+    // ===== OPERACIONES =====
+
+    public AtmReceipt withdraw(String cardNumber, Money amount, boolean externalAtm) {
+        return withdraw(cardNumber, amount, externalAtm, null);
+    }
+
+    // Con idempotencyKey, un reintento con la misma clave e importe devuelve el justificante original
+    public AtmReceipt withdraw(String cardNumber, Money amount, boolean externalAtm, String idempotencyKey) {
+        requirePositive(amount);
+        Money commission = commission(externalAtm);
+        IdempotentRequest request = IdempotencyService.request(idempotencyKey, "withdraw", cardNumber,
+                amount, externalAtm);
+        return idempotencyService.execute(request, () -> connectionPoolLimiter.call(() -> {
+            CardAuthorization card = authorize(cardNumber);
+            return holdService.withAccountLock(card.accountId(), () -> {
+                holdService.requireAvailable(card, amount, commission);
+                velocityEngine.requireAllowed(card, amount);
+                return debit(card, amount, commission, externalAtm, null, request);
+            });
+        }));
+    }
+
+    // Reserva el retiro mientras se dispensa el efectivo; se completa con captureHold o releaseHold
+    public HoldReceipt placeHold(String cardNumber, Money amount, boolean externalAtm) {
+        requirePositive(amount);
+        Money commission = commission(externalAtm);
+        return connectionPoolLimiter.call(() -> {
+            CardAuthorization card = authorize(cardNumber);
+            // Con el cerrojo, como el retiro: dos retenciones a la vez no pasan ambas la comprobación
+            OpenHold hold = holdService.withAccountLock(card.accountId(), () -> {
+                velocityEngine.requireAllowed(card, amount);
+                return holdService.place(card, amount, commission, externalAtm);
+            });
+            return new HoldReceipt(hold.id(), amount, commission,
+                    holdService.getAvailableBalance(card.accountId()), hold.expiresAt());
+        });
+    }
+
+    public AtmReceipt captureHold(String cardNumber, UUID holdId) {
+        return captureHold(cardNumber, holdId, null);
+    }
+
+    public AtmReceipt captureHold(String cardNumber, UUID holdId, String idempotencyKey) {
+        IdempotentRequest request = IdempotencyService.request(idempotencyKey, "capture", cardNumber, holdId);
+        return idempotencyService.execute(request, () -> connectionPoolLimiter.call(() -> {
+            CardAuthorization card = authorize(cardNumber);
+            UUID accountId = holdService.getOpenHold(card.cardId(), holdId).accountId();
+            return holdService.withAccountLock(accountId, () -> {
+                OpenHold hold = holdService.getOpenHold(card.cardId(), holdId);
+                return debit(card, hold.amount(), hold.commission(), hold.externalAtm(), hold, request);
+            });
+        }));
+    }
+
+    public void releaseHold(String cardNumber, UUID holdId) {
+        connectionPoolLimiter.call(() -> {
+            holdService.release(authorize(cardNumber).cardId(), holdId);
+            return null;
+        });
+    }
+
+    public AtmReceipt deposit(String cardNumber, Money amount) {
+        return deposit(cardNumber, amount, null);
+    }
+
+    public AtmReceipt deposit(String cardNumber, Money amount, String idempotencyKey) {
+        requirePositive(amount);
+        IdempotentRequest request = IdempotencyService.request(idempotencyKey, "deposit", cardNumber, amount);
+        return idempotencyService.execute(request, () -> {
+            if (!ledgerService.isEnabled() && creditCoalescer.isEnabled()) {
+                // El líder de cada lote ocupa el permiso; el resto espera sin conexión
+                CardAuthorization card = connectionPoolLimiter.call(() -> authorize(cardNumber));
+                return AtmReceipt.of(creditCoalescer.credit(card.accountId(), amount,
+                        (account, balance) -> recorded(request, Transaction.createDeposit(
+                                account, cardReference(card), amount, balance))));
+            }
+            return connectionPoolLimiter.call(() -> {
+                CardAuthorization card = authorize(cardNumber);
+                if (ledgerService.isEnabled()) {
+                    return AtmReceipt.of(ledgerService.append(card.accountId(), amount,
+                            (account, balance) -> recorded(request, Transaction.createDeposit(
+                                    account, cardReference(card), amount, balance))));
+                }
+                return balanceService.executeWithRetry(() -> {
+                    Account account = findActiveAccount(card.accountId());
+                    account.deposit(amount);
+                    Transaction transaction = Transaction.createDeposit(account, cardReference(card),
+                            amount, account.getBalance());
+                    return AtmReceipt.of(recorded(request, transactionRepository.save(transaction)));
+                });
+            });
+        });
+    }
+
+    // Saldo menos retenciones abiertas
+    public Money getAvailableBalance(String cardNumber) {
+        return connectionPoolLimiter.call(() -> holdService.getAvailableBalance(authorize(cardNumber).accountId()));
+    }
+
+    public Money getBalance(String cardNumber) {
+        return connectionPoolLimiter.call(() -> balanceService.getBalance(authorize(cardNumber).accountId()));
+    }
+
+    public List<RecentTransaction> getLastMovements(String cardNumber, int limit) {
+        if (limit < 1 || limit > MAX_MOVEMENTS) {
+            throw new IllegalArgumentException("Número de movimientos fuera de rango: " + limit);
+        }
+        return connectionPoolLimiter.call(() -> {
+            CardAuthorization card = authorize(cardNumber);
+            return historyService.getHistory(card.accountId(), null, limit).items().stream()
+                    .map(t -> new RecentTransaction(card.accountId(), t.getId(), t.getType(), t.getAmount(),
+                            t.getBalanceAfter(), t.getDescription(), t.getCreatedAt()))
+                    .toList();
+        });
+    }
+
+    // ===== INTERNOS =====
+
+    // Retiro con el cerrojo de la cuenta en HoldService; si viene de una retención, la cobra en la misma transacción
+    private AtmReceipt debit(CardAuthorization card, Money amount, Money commission, boolean externalAtm,
+                             OpenHold hold, IdempotentRequest request) {
+        if (ledgerService.isEnabled()) {
+            return AtmReceipt.of(ledgerService.append(card.accountId(), amount.plus(commission).negate(),
+                    (account, balance) -> {
+                        if (hold != null) {
+                            holdService.markCaptured(hold);
+                        }
+                        return recorded(request, Transaction.createWithdrawal(account, cardReference(card),
+                                amount, balance, externalAtm, commission));
+                    }));
+        }
+        return balanceService.executeWithRetry(() -> {
+            if (hold != null) {
+                holdService.markCaptured(hold);
+            }
+            Account account = findActiveAccount(card.accountId());
+            account.withdraw(amount.plus(commission));
+            Transaction transaction = Transaction.createWithdrawal(account, cardReference(card),
+                    amount, account.getBalance(), externalAtm, commission);
+            return AtmReceipt.of(recorded(request, transactionRepository.save(transaction)));
+        });
+    }
+
+    // Guarda la clave de idempotencia en la transacción del movimiento
+    private Transaction recorded(IdempotentRequest request, Transaction transaction) {
+        idempotencyService.record(request, transaction);
+        return transaction;
+    }
+
+    private Money commission(boolean externalAtm) {
+        return externalAtm ? externalCommission : Money.ZERO;
+    }
+
+    private CardAuthorization authorize(String cardNumber) {
+        return cardAuthorizationCache.findActiveAndReady(cardNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Tarjeta no válida o no activada"));
+    }
+
+    private Account findActiveAccount(UUID accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Cuenta no encontrada"));
+        if (!account.isActive()) {
+            throw new IllegalArgumentException("Cuenta inactiva");
+        }
+        return account;
+    }
+
+    // Referencia sin cargar la tarjeta: la autorización ya se ha validado
+    private Card cardReference(CardAuthorization card) {
+        return cardRepository.getReferenceById(card.cardId());
+    }
+
+    private static void requirePositive(Money amount) {
+        if (amount == null || !amount.isPositive()) {
+            throw new IllegalArgumentException("El importe debe ser positivo");
+        }
+    }
+}
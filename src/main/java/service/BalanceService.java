@@ -0,0 +1,190 @@
+package service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Money;
+import repository.AccountRepository;
+
+/**
+ * Movimientos de saldo seguros ante concurrencia.
+ *
+ * Por defecto carga la cuenta, aplica {@link Account#withdraw} o
+ * {@link Account#deposit} y confía en el {@code @Version} de la entidad:
+ * si otra transacción ha modificado la cuenta se reintenta con espera
+ * exponencial hasta agotar la {@link RetryPolicy}. Con el camino rápido
+ * activado, el saldo se actualiza con un UPDATE condicional que nunca
+ * entra en conflicto.
+ *
+ * Solo se reintenta cuando el servicio abre la transacción; si ya hay una
+ * en curso, el conflicto se propaga al llamante.
+ *
+ * En modo libro mayor la columna de saldo no se escribe: {@link #getBalance}
+ * lee el saldo de {@link LedgerService} y los movimientos directos se
+ * rechazan.
+ */
+@Service
+public class BalanceService {
+
+    private final AccountRepository accountRepository;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryPolicy retryPolicy;
+    private final boolean fastPath;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    @Autowired
+    public BalanceService(AccountRepository accountRepository,
+                          LedgerService ledgerService,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${balance.retry.max-attempts:5}") int maxAttempts,
+                          @Value("${balance.retry.initial-backoff:5ms}") Duration initialBackoff,
+                          @Value("${balance.retry.max-backoff:200ms}") Duration maxBackoff,
+                          @Value("${balance.fast-path.enabled:false}") boolean fastPath) {
+        this(accountRepository, ledgerService, new TransactionTemplate(transactionManager),
+                new RetryPolicy(maxAttempts, initialBackoff, maxBackoff), fastPath);
+    }
+
+    // Sin libro mayor
+    public BalanceService(AccountRepository accountRepository, TransactionTemplate transactionTemplate,
+                          RetryPolicy retryPolicy, boolean fastPath) {
+        this(accountRepository, null, transactionTemplate, retryPolicy, fastPath);
+    }
+
+    public BalanceService(AccountRepository accountRepository, LedgerService ledgerService,
+                          TransactionTemplate transactionTemplate, RetryPolicy retryPolicy, boolean fastPath) {
+        this.accountRepository = accountRepository;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.retryPolicy = retryPolicy;
+        this.fastPath = fastPath;
+    }
+
+    public Money getBalance(UUID accountId) {
+        if (isLedgerEnabled()) {
+            return ledgerService.getBalance(accountId);
+        }
+        return currentBalance(accountId);
+    }
+
+    // Devuelve el saldo tras el retiro
+    public Money withdraw(UUID accountId, Money amount) {
+        requireColumnMode();
+        if (fastPath) {
+            return inTransaction(() -> {
+                if (accountRepository.debitIfSufficient(accountId, amount) == 0) {
+                    findAccount(accountId);
+                    throw new IllegalArgumentException("Saldo insuficiente");
+                }
+                return currentBalance(accountId);
+            });
+        }
+        return executeWithRetry(() -> {
+            Account account = findAccount(accountId);
+            account.withdraw(amount);
+            return account.getBalance();
+        });
+    }
+
+    // Devuelve el saldo tras el ingreso
+    public Money deposit(UUID accountId, Money amount) {
+        requireColumnMode();
+        if (fastPath) {
+            return inTransaction(() -> {
+                if (accountRepository.credit(accountId, amount) == 0) {
+                    findAccount(accountId);
+                }
+                return currentBalance(accountId);
+            });
+        }
+        return executeWithRetry(() -> {
+            Account account = findAccount(accountId);
+            account.deposit(amount);
+            return account.getBalance();
+        });
+    }
+
+    /**
+     * Ejecuta la operación en una transacción nueva, repitiéndola si falla por
+     * un conflicto de versión. La operación debe poder repetirse completa.
+     */
+    public <T> T executeWithRetry(Supplier<T> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inTransaction(operation);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return inTransaction(operation);
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= retryPolicy.maxAttempts()) {
+                    throw e;
+                }
+                sleep(retryPolicy.backoffMillis(attempt));
+            }
+        }
+    }
+
+    // ===== ESTADÍSTICAS =====
+
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    // ===== INTERNOS =====
+
+    private boolean isLedgerEnabled() {
+        return ledgerService != null && ledgerService.isEnabled();
+    }
+
+    // En modo libro mayor un cambio en la columna no se vería: el saldo solo cambia con LedgerService.append
+    private void requireColumnMode() {
+        if (isLedgerEnabled()) {
+            throw new IllegalStateException("En modo libro mayor el saldo solo cambia con una transacción");
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> operation) {
+        attempts.increment();
+        return transactionTemplate.execute(status -> operation.get());
+    }
+
+    private Account findAccount(UUID accountId) {
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Cuenta no encontrada: " + accountId));
+    }
+
+    private Money currentBalance(UUID accountId) {
+        return accountRepository.findBalanceById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Cuenta no encontrada: " + accountId));
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido", e);
+        }
+    }
+}
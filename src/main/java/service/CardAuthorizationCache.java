@@ -0,0 +1,176 @@
+package service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import dto.CardAuthorization;
+import entities.CardAuthorizationChangedEvent;
+import repository.CardRepository;
+
+/**
+ * Caché de autorizaciones de tarjeta por número de tarjeta.
+ *
+ * Guarda una {@link CardAuthorization} por tarjeta con caducidad (TTL) y
+ * expulsión LRU al superar el tamaño máximo. Cualquier modificación de la
+ * tarjeta en la base de datos invalida la entrada
+ * ({@link EntityEventPublisher}).
+ * Las tarjetas inexistentes no se cachean.
+ *
+ * La carga se hace fuera del cerrojo: si la tarjeta se invalida mientras se
+ * está cargando, el resultado puede ser anterior al cambio y no se guarda.
+ */
+@Service
+public class CardAuthorizationCache {
+
+    private final CardRepository cardRepository;
+    private final Clock clock;
+    private final int maxSize;
+    private final Duration ttl;
+
+    private final LinkedHashMap<String, Entry> entries;
+    // Protegidos por entries: cargas en curso por tarjeta y generación de su última invalidación
+    private final Map<String, Integer> loading = new HashMap<>();
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public CardAuthorizationCache(CardRepository cardRepository,
+                                  @Value("${card-cache.max-size:10000}") int maxSize,
+                                  @Value("${card-cache.ttl:5m}") Duration ttl) {
+        this(cardRepository, Clock.systemUTC(), maxSize, ttl);
+    }
+
+    public CardAuthorizationCache(CardRepository cardRepository, Clock clock, int maxSize, Duration ttl) {
+        this.cardRepository = cardRepository;
+        this.clock = clock;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CardAuthorizationCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Autorización de la tarjeta, esté o no lista para operar
+    public Optional<CardAuthorization> get(String cardNumber) {
+        Instant now = clock.instant();
+        long startedAt;
+        synchronized (entries) {
+            Entry entry = entries.get(cardNumber);
+            if (entry != null) {
+                if (entry.expiresAt().isAfter(now)) {
+                    hits.increment();
+                    return Optional.of(entry.authorization());
+                }
+                entries.remove(cardNumber);
+                evictions.increment();
+            }
+            loading.merge(cardNumber, 1, Integer::sum);
+            startedAt = generation;
+        }
+        misses.increment();
+
+        Optional<CardAuthorization> loaded = Optional.empty();
+        try {
+            loaded = cardRepository.findAuthorizationByCardNumber(cardNumber);
+            return loaded;
+        } finally {
+            finishLoad(cardNumber, loaded, startedAt, now);
+        }
+    }
+
+    // Equivalente cacheado de CardRepository.findActiveAndReadyCard
+    public Optional<CardAuthorization> findActiveAndReady(String cardNumber) {
+        return get(cardNumber).filter(CardAuthorization::isReady);
+    }
+
+    public void invalidate(String cardNumber) {
+        synchronized (entries) {
+            entries.remove(cardNumber);
+            if (loading.containsKey(cardNumber)) {
+                invalidatedAt.put(cardNumber, ++generation);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            long invalidation = ++generation;
+            loading.keySet().forEach(cardNumber -> invalidatedAt.put(cardNumber, invalidation));
+        }
+    }
+
+    @EventListener
+    public void onCardAuthorizationChanged(CardAuthorizationChangedEvent event) {
+        String cardNumber = event.cardNumber();
+        invalidate(cardNumber);
+        // Una lectura concurrente podría volver a cargar el estado anterior al commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(cardNumber);
+                }
+            });
+        }
+    }
+
+    // Guarda lo cargado salvo que la tarjeta se haya invalidado desde startedAt
+    private void finishLoad(String cardNumber, Optional<CardAuthorization> loaded, long startedAt, Instant now) {
+        synchronized (entries) {
+            Long invalidation = invalidatedAt.get(cardNumber);
+            if (loaded.isPresent() && (invalidation == null || invalidation <= startedAt)) {
+                entries.put(cardNumber, new Entry(loaded.get(), now.plus(ttl)));
+            }
+            if (loading.merge(cardNumber, -1, Integer::sum) == 0) {
+                loading.remove(cardNumber);
+                invalidatedAt.remove(cardNumber);
+            }
+        }
+    }
+
+    // ===== ESTADÍSTICAS =====
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private record Entry(CardAuthorization authorization, Instant expiresAt) {
+    }
+}
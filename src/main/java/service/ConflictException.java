@@ -0,0 +1,12 @@
+package service;
+
+/**
+ * La operación choca con el estado actual del recurso (por ejemplo, liberar
+ * una retención que ya se ha cobrado o ha caducado). Se responde con 409.
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package service;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limita cuántas operaciones usan a la vez el pool de conexiones.
+ *
+ * Con hilos virtuales el número de peticiones en curso ya no está acotado
+ * por el pool de hilos del servidor: sin este límite, miles de peticiones
+ * esperarían dentro de Hikari hasta agotar su connection-timeout. Aquí
+ * esperan en un semáforo justo con tantos permisos como conexiones y, si no
+ * obtienen uno a tiempo, se rechazan con {@link RejectedExecutionException}.
+ */
+@Service
+public class ConnectionPoolLimiter {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long timeoutNanos;
+
+    @Autowired
+    public ConnectionPoolLimiter(
+            @Value("${atm.db-permits:${spring.datasource.hikari.maximum-pool-size:10}}") int maxPermits,
+            @Value("${atm.db-permit-timeout:5s}") Duration timeout) {
+        if (maxPermits < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un permiso");
+        }
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public <T> T call(Supplier<T> operation) {
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("Sin conexiones de base de datos disponibles");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Espera de conexión interrumpida", e);
+        }
+        try {
+            return operation.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+}
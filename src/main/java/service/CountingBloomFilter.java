@@ -0,0 +1,93 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom con contadores de 4 bits, que admite borrados.
+ *
+ * Cada posición es un contador (16 por {@code long}) en lugar de un bit:
+ * {@link #add} los incrementa y {@link #remove} los decrementa. Un contador
+ * que llega a 15 queda fijo, porque ya no se sabe cuántas claves lo usan;
+ * eso solo puede dejar falsos positivos. Borrar una clave que no se ha
+ * añadido sí puede provocar falsos negativos, así que solo debe hacerse con
+ * claves añadidas antes. Ocupa cuatro veces lo que un {@link BloomFilter}.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long MAX_COUNT = 0xF;
+
+    private final AtomicLongArray counters;
+    private final long counterCount;
+    private final int hashCount;
+
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        int words = Math.toIntExact((BloomFilter.optimalSlots(expectedInsertions, falsePositiveRate)
+                + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.counters = new AtomicLongArray(words);
+        this.counterCount = (long) words * COUNTERS_PER_WORD;
+        this.hashCount = BloomFilter.optimalHashes(expectedInsertions, counterCount);
+    }
+
+    public void add(String value) {
+        long h1 = BloomFilter.hash(value);
+        long h2 = BloomFilter.mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            update(Math.floorMod(h1 + i * h2, counterCount), 1);
+        }
+    }
+
+    public void remove(String value) {
+        long h1 = BloomFilter.hash(value);
+        long h2 = BloomFilter.mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            update(Math.floorMod(h1 + i * h2, counterCount), -1);
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = BloomFilter.hash(value);
+        long h2 = BloomFilter.mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            if (count(Math.floorMod(h1 + i * h2, counterCount)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCounterCount() {
+        return counterCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // Memoria de los contadores, sin la cabecera del array
+    public long getMemoryBytes() {
+        return counters.length() * (long) Long.BYTES;
+    }
+
+    private long count(long index) {
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        return (counters.get((int) (index / COUNTERS_PER_WORD)) >>> shift) & MAX_COUNT;
+    }
+
+    // Los contadores saturados no se mueven; los que están a cero no bajan
+    private void update(long index, int delta) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long current = counters.get(word);
+            long count = (current >>> shift) & MAX_COUNT;
+            if (count == MAX_COUNT || (delta < 0 && count == 0)) {
+                return;
+            }
+            long updated = (current & ~(MAX_COUNT << shift)) | ((count + delta) << shift);
+            if (counters.weakCompareAndSetVolatile(word, current, updated)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import dto.CustomerDashboard;
+import dto.CustomerDashboard.AccountOverview;
+import dto.CustomerDashboard.CardSummary;
+import dto.DashboardRow;
+import dto.RecentTransaction;
+import entities.Money;
+import repository.CustomerRepository;
+import repository.TransactionRepository;
+
+/**
+ * Modelo de lectura del panel de cliente.
+ *
+ * Se construye con dos consultas de proyección, sin cargar entidades ni
+ * recorrer relaciones perezosas: una para cliente, cuentas y tarjetas y
+ * otra para los últimos movimientos de todas sus cuentas. En modo libro
+ * mayor el saldo de cada cuenta sale de {@link LedgerService}, no de la
+ * columna.
+ */
+@Service
+public class CustomerDashboardService {
+
+    private final CustomerRepository customerRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerService ledgerService;
+
+    public CustomerDashboardService(CustomerRepository customerRepository,
+                                    TransactionRepository transactionRepository,
+                                    LedgerService ledgerService) {
+        this.customerRepository = customerRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerService = ledgerService;
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerDashboard getDashboard(UUID customerId, int lastTransactions) {
+        List<DashboardRow> rows = customerRepository.findDashboardRows(customerId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Cliente no encontrado: " + customerId);
+        }
+
+        Map<UUID, List<RecentTransaction>> movements = new LinkedHashMap<>();
+        if (lastTransactions > 0) {
+            for (RecentTransaction transaction
+                    : transactionRepository.findRecentByCustomerId(customerId, lastTransactions)) {
+                movements.computeIfAbsent(transaction.accountId(), id -> new ArrayList<>()).add(transaction);
+            }
+        }
+
+        Map<UUID, List<CardSummary>> cards = new LinkedHashMap<>();
+        Map<UUID, DashboardRow> accounts = new LinkedHashMap<>();
+        for (DashboardRow row : rows) {
+            if (row.accountId() == null) {
+                continue;
+            }
+            accounts.putIfAbsent(row.accountId(), row);
+            List<CardSummary> accountCards = cards.computeIfAbsent(row.accountId(), id -> new ArrayList<>());
+            if (row.cardId() != null) {
+                accountCards.add(new CardSummary(row.cardId(), mask(row.cardNumber()), row.cardType(),
+                        row.cardActive(), row.dailyWithdrawalLimit(), row.creditLimit()));
+            }
+        }
+
+        List<AccountOverview> overviews = new ArrayList<>(accounts.size());
+        for (DashboardRow account : accounts.values()) {
+            overviews.add(new AccountOverview(account.accountId(), account.accountNumber(), account.iban(),
+                    account.accountType(), balance(account), account.accountActive(),
+                    List.copyOf(cards.get(account.accountId())),
+                    List.copyOf(movements.getOrDefault(account.accountId(), List.of()))));
+        }
+
+        DashboardRow customer = rows.get(0);
+        return new CustomerDashboard(customer.customerId(), customer.customerNumber(),
+                customer.firstName(), customer.lastName(), List.copyOf(overviews));
+    }
+
+    private Money balance(DashboardRow account) {
+        return ledgerService.isEnabled() ? ledgerService.getBalance(account.accountId()) : account.balance();
+    }
+
+    // Solo los cuatro últimos dígitos de la tarjeta
+    static String mask(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() <= 4) {
+            return cardNumber;
+        }
+        return "*".repeat(cardNumber.length() - 4) + cardNumber.substring(cardNumber.length() - 4);
+    }
+}
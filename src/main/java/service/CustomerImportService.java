@@ -0,0 +1,647 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dto.CustomerImport;
+import dto.CustomerImport.AccountImport;
+import dto.CustomerImport.CardImport;
+import dto.ImportSummary;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import enumerado.CardType;
+import enumerado.ExportFormat;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Importación masiva de clientes con sus cuentas y tarjetas desde CSV o
+ * NDJSON, con memoria acotada.
+ *
+ * Tres etapas unidas por colas acotadas ({@code import.queue-capacity}
+ * bloques):
+ * <ol>
+ *   <li>lectura: el hilo llamante lee el fichero en streaming y lo corta en
+ *       bloques de {@code import.chunk-size} clientes;</li>
+ *   <li>validación: campos obligatorios, longitudes y claves que ya existen
+ *       ({@link UniqueKeyFilters}, que casi nunca consulta la tabla);</li>
+ *   <li>inserción: {@code import.workers} hilos, cada bloque en su propia
+ *       transacción y contexto de persistencia, que se descarta en el commit.
+ *       Los INSERT se agrupan en lotes JDBC de {@code import.jdbc-batch-size}
+ *       y {@code hibernate.order_inserts} los ordena por tabla para que la
+ *       cascada cliente → cuenta → tarjeta no corte los lotes.</li>
+ * </ol>
+ * Si un bloque choca con una clave única, se reintenta cliente a cliente y
+ * solo se rechazan los que fallan.
+ *
+ * El checkpoint guarda cuántos clientes del fichero están confirmados sin
+ * huecos. Al repetir la importación del mismo fichero se saltan, y los
+ * clientes de bloques posteriores que ya se confirmaron se detectan por el
+ * número de cliente y se cuentan como omitidos.
+ *
+ * CSV: una fila por tarjeta con cabecera; las filas de un mismo cliente y de
+ * una misma cuenta deben ir seguidas. Las columnas de tarjeta (o de cuenta y
+ * tarjeta) vacías dan una cuenta sin tarjetas (o un cliente sin cuentas).
+ * NDJSON: un {@link CustomerImport} por línea.
+ */
+@Service
+public class CustomerImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerImportService.class);
+
+    static final int MAX_ERRORS = 100;
+
+    static final List<String> CSV_COLUMNS = List.of(
+            "customer_number", "first_name", "last_name", "email", "document_number", "phone_number",
+            "account_number", "iban", "account_type", "balance",
+            "card_number", "pin_hash", "card_type", "daily_withdrawal_limit", "credit_limit",
+            "card_active", "pin_changed");
+
+    // Marca de fin de cola
+    private static final Chunk END = new Chunk(-1, 0, List.of());
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final UniqueKeyFilters uniqueKeyFilters;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int workers;
+    private final int queueCapacity;
+    private final int jdbcBatchSize;
+
+    public CustomerImportService(EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 UniqueKeyFilters uniqueKeyFilters,
+                                 ObjectMapper objectMapper,
+                                 @Value("${import.chunk-size:500}") int chunkSize,
+                                 @Value("${import.workers:4}") int workers,
+                                 @Value("${import.queue-capacity:8}") int queueCapacity,
+                                 @Value("${import.jdbc-batch-size:100}") int jdbcBatchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uniqueKeyFilters = uniqueKeyFilters;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    /**
+     * Importa el fichero y devuelve el resumen. Con {@code checkpoint}
+     * (puede ser null) continúa donde se quedó la última ejecución. No
+     * cierra la entrada.
+     */
+    public ImportSummary importCustomers(InputStream input, ExportFormat format, Path checkpoint)
+            throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run(checkpoint, readCheckpoint(checkpoint));
+        BlockingQueue<Chunk> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Chunk> validated = new ArrayBlockingQueue<>(queueCapacity);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        try {
+            List<Future<?>> stages = new ArrayList<>();
+            stages.add(executor.submit(() -> run.guard(() -> validateStage(parsed, validated, run))));
+            for (int i = 0; i < workers; i++) {
+                stages.add(executor.submit(() -> run.guard(() -> insertStage(validated, run))));
+            }
+            run.guard(() -> readStage(input, format, parsed, run));
+            for (Future<?> stage : stages) {
+                await(stage);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        run.rethrow();
+
+        ImportSummary summary = run.summary(Duration.ofNanos(System.nanoTime() - start));
+        log.info("Importación: {} clientes, {} cuentas, {} tarjetas, {} omitidos, {} rechazados en {} ms",
+                summary.customers(), summary.accounts(), summary.cards(), summary.skipped(),
+                summary.rejected(), summary.elapsed().toMillis());
+        return summary;
+    }
+
+    // ===== ETAPAS =====
+
+    private void readStage(InputStream input, ExportFormat format, BlockingQueue<Chunk> parsed, Run run) {
+        List<Row> rows = new ArrayList<>(chunkSize);
+        long[] sequence = {0};
+        long[] index = {0};
+        Consumer<CustomerImport> collect = customer -> {
+            long current = index[0]++;
+            if (current < run.resumedFrom) {
+                return;
+            }
+            rows.add(new Row(current, customer));
+            if (rows.size() == chunkSize) {
+                put(parsed, new Chunk(sequence[0]++, index[0], List.copyOf(rows)), run);
+                rows.clear();
+            }
+        };
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            if (format == ExportFormat.NDJSON) {
+                readJson(reader, collect);
+            } else {
+                readCsv(reader, collect);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!rows.isEmpty()) {
+            put(parsed, new Chunk(sequence[0], index[0], List.copyOf(rows)), run);
+        }
+        put(parsed, END, run);
+    }
+
+    private void validateStage(BlockingQueue<Chunk> parsed, BlockingQueue<Chunk> validated, Run run) {
+        Chunk chunk;
+        while ((chunk = take(parsed, run)) != END) {
+            List<Row> valid = new ArrayList<>(chunk.rows().size());
+            for (Row row : chunk.rows()) {
+                String customerNumber = row.customer().customerNumber();
+                if (customerNumber != null && uniqueKeyFilters.existsByCustomerNumber(customerNumber)) {
+                    // Ya importado por un bloque posterior al checkpoint
+                    run.skipped.incrementAndGet();
+                    continue;
+                }
+                String error = validate(row.customer());
+                if (error == null) {
+                    valid.add(row);
+                } else {
+                    run.reject(row, error);
+                }
+            }
+            put(validated, new Chunk(chunk.sequence(), chunk.endIndex(), valid), run);
+        }
+        for (int i = 0; i < workers; i++) {
+            put(validated, END, run);
+        }
+    }
+
+    private void insertStage(BlockingQueue<Chunk> validated, Run run) {
+        Chunk chunk;
+        while ((chunk = take(validated, run)) != END) {
+            try {
+                insert(chunk.rows());
+                chunk.rows().forEach(run::imported);
+            } catch (DataIntegrityViolationException e) {
+                // Clave repetida dentro del fichero o cargada por otro proceso
+                for (Row row : chunk.rows()) {
+                    try {
+                        insert(List.of(row));
+                        run.imported(row);
+                    } catch (DataIntegrityViolationException duplicate) {
+                        run.reject(row, "Clave única repetida");
+                    }
+                }
+            }
+            run.completed(chunk);
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            for (Row row : rows) {
+                Customer customer = toEntity(row.customer());
+                entityManager.persist(customer);
+            }
+        });
+    }
+
+    // ===== VALIDACIÓN =====
+
+    // Devuelve el motivo del rechazo o null si el cliente es válido
+    private String validate(CustomerImport customer) {
+        String error = firstError(
+                required(customer.customerNumber(), 255, "número de cliente"),
+                required(customer.firstName(), 50, "nombre"),
+                required(customer.lastName(), 50, "apellidos"),
+                required(customer.email(), 100, "email"),
+                optional(customer.documentNumber(), 20, "documento"),
+                optional(customer.phoneNumber(), 20, "teléfono"));
+        if (error != null) {
+            return error;
+        }
+        for (AccountImport account : accounts(customer)) {
+            error = firstError(
+                    required(account.accountNumber(), 20, "número de cuenta"),
+                    required(account.iban(), 34, "IBAN"),
+                    optional(account.accountType(), 20, "tipo de cuenta"));
+            if (error != null) {
+                return error;
+            }
+            for (CardImport card : cards(account)) {
+                error = firstError(
+                        required(card.cardNumber(), 16, "número de tarjeta"),
+                        required(card.pinHash(), 255, "PIN"),
+                        card.type() == null ? "Falta el tipo de tarjeta" : null);
+                if (error != null) {
+                    return error;
+                }
+                if (uniqueKeyFilters.existsByCardNumber(card.cardNumber())) {
+                    return "La tarjeta ya existe";
+                }
+            }
+        }
+        if (uniqueKeyFilters.existsByEmail(customer.email())) {
+            return "El email ya existe";
+        }
+        if (customer.documentNumber() != null && uniqueKeyFilters.existsByDocumentNumber(customer.documentNumber())) {
+            return "El documento ya existe";
+        }
+        return null;
+    }
+
+    private static String required(String value, int maxLength, String field) {
+        if (value == null || value.isBlank()) {
+            return "Falta " + field;
+        }
+        return optional(value, maxLength, field);
+    }
+
+    private static String optional(String value, int maxLength, String field) {
+        return value != null && value.length() > maxLength ? "Demasiado largo: " + field : null;
+    }
+
+    private static String firstError(String... errors) {
+        for (String error : errors) {
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    // ===== FORMATOS =====
+
+    private void readJson(BufferedReader reader, Consumer<CustomerImport> collect) throws IOException {
+        try (MappingIterator<CustomerImport> customers = objectMapper.readerFor(CustomerImport.class)
+                .readValues(reader)) {
+            while (customers.hasNextValue()) {
+                collect.accept(customers.nextValue());
+            }
+        }
+    }
+
+    private static void readCsv(BufferedReader reader, Consumer<CustomerImport> collect) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header, 1);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Falta la columna " + column);
+            }
+        }
+
+        CsvCustomer current = null;
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            List<String> fields = parseCsvLine(line, lineNumber);
+            if (fields.size() != names.size()) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": número de columnas incorrecto");
+            }
+            CsvRow row = new CsvRow(fields, columns, lineNumber);
+            String customerNumber = row.get("customer_number");
+            if (current == null || !current.customerNumber.equals(customerNumber)) {
+                if (current != null) {
+                    collect.accept(current.build());
+                }
+                current = new CsvCustomer(row);
+            }
+            current.add(row);
+        }
+        if (current != null) {
+            collect.accept(current.build());
+        }
+    }
+
+    static List<String> parseCsvLine(String line, int lineNumber) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Línea " + lineNumber + ": comillas sin cerrar");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // ===== ENTIDADES =====
+
+    private static Customer toEntity(CustomerImport source) {
+        Customer customer = new Customer(source.customerNumber(), source.firstName(), source.lastName(),
+                source.email(), source.phoneNumber(), true, new ArrayList<>());
+        customer.setDocumentNumber(source.documentNumber());
+        for (AccountImport accountSource : accounts(source)) {
+            Account account = new Account(accountSource.accountNumber(), accountSource.iban(), customer);
+            account.setAccountType(accountSource.accountType());
+            if (accountSource.balance() != null) {
+                account.setBalance(Money.of(accountSource.balance()));
+            }
+            for (CardImport card : cards(accountSource)) {
+                account.addCard(new Card(card.cardNumber(), card.pinHash(), card.type(),
+                        card.dailyWithdrawalLimit(), card.creditLimit(), card.active(), card.pinChanged(), account));
+            }
+            customer.getAccounts().add(account);
+        }
+        return customer;
+    }
+
+    private static List<AccountImport> accounts(CustomerImport customer) {
+        return customer.accounts() == null ? List.of() : customer.accounts();
+    }
+
+    private static List<CardImport> cards(AccountImport account) {
+        return account.cards() == null ? List.of() : account.cards();
+    }
+
+    // ===== CHECKPOINT =====
+
+    private static long readCheckpoint(Path checkpoint) throws IOException {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpoint).trim());
+    }
+
+    private static void writeCheckpoint(Path checkpoint, long committed) {
+        try {
+            Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+            Files.writeString(temporary, Long.toString(committed));
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ===== COLAS =====
+
+    // Las esperas se cortan cada 100 ms para abandonar si otra etapa ha fallado
+    private static void put(BlockingQueue<Chunk> queue, Chunk chunk, Run run) {
+        try {
+            while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                run.checkFailed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        }
+    }
+
+    private static Chunk take(BlockingQueue<Chunk> queue, Run run) {
+        try {
+            Chunk chunk;
+            while ((chunk = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                run.checkFailed();
+            }
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        }
+    }
+
+    private static void await(Future<?> stage) {
+        try {
+            stage.get();
+        } catch (Exception e) {
+            // El fallo ya está registrado en la ejecución
+        }
+    }
+
+    private record Row(long index, CustomerImport customer) {
+    }
+
+    // endIndex: posición en el fichero del cliente siguiente al último del bloque
+    private record Chunk(long sequence, long endIndex, List<Row> rows) {
+    }
+
+    private static final class Run {
+
+        private final Path checkpoint;
+        private final long resumedFrom;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final AtomicLong customers = new AtomicLong();
+        private final AtomicLong accounts = new AtomicLong();
+        private final AtomicLong cards = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<String> errors = new ArrayList<>();
+
+        // Bloques terminados fuera de orden, pendientes de entrar en el checkpoint
+        private final Map<Long, Long> completed = new HashMap<>();
+        private long nextSequence;
+
+        Run(Path checkpoint, long resumedFrom) {
+            this.checkpoint = checkpoint;
+            this.resumedFrom = resumedFrom;
+        }
+
+        void guard(Runnable stage) {
+            try {
+                stage.run();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        void checkFailed() {
+            if (failure.get() != null) {
+                throw new IllegalStateException("Importación cancelada por un error en otra etapa");
+            }
+        }
+
+        void rethrow() {
+            RuntimeException e = failure.get();
+            if (e != null) {
+                throw e;
+            }
+        }
+
+        void imported(Row row) {
+            customers.incrementAndGet();
+            for (AccountImport account : accounts(row.customer())) {
+                accounts.incrementAndGet();
+                cards.addAndGet(cards(account).size());
+            }
+        }
+
+        void reject(Row row, String reason) {
+            rejected.incrementAndGet();
+            String error = "Cliente " + (row.index() + 1) + " (" + row.customer().customerNumber() + "): " + reason;
+            log.debug("Importación: {}", error);
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(error);
+                }
+            }
+        }
+
+        // Avanza el checkpoint hasta el último bloque confirmado sin huecos
+        synchronized void completed(Chunk chunk) {
+            completed.put(chunk.sequence(), chunk.endIndex());
+            Long committed = null;
+            while (completed.containsKey(nextSequence)) {
+                committed = completed.remove(nextSequence++);
+            }
+            if (committed != null && checkpoint != null) {
+                writeCheckpoint(checkpoint, committed);
+            }
+        }
+
+        ImportSummary summary(Duration elapsed) {
+            synchronized (errors) {
+                return new ImportSummary(resumedFrom, customers.get(), accounts.get(), cards.get(),
+                        skipped.get(), rejected.get(), List.copyOf(errors), elapsed);
+            }
+        }
+    }
+
+    // ===== CSV =====
+
+    private record CsvRow(List<String> fields, Map<String, Integer> columns, int lineNumber) {
+
+        String get(String column) {
+            String value = fields.get(columns.get(column)).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        BigDecimal decimal(String column) {
+            String value = get(column);
+            try {
+                return value == null ? null : new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": importe no válido en " + column);
+            }
+        }
+
+        CardType cardType() {
+            String value = get("card_type");
+            try {
+                return value == null ? null : CardType.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": tipo de tarjeta no válido");
+            }
+        }
+    }
+
+    // Cliente en construcción a partir de sus filas consecutivas
+    private static final class CsvCustomer {
+
+        private final String customerNumber;
+        private final CsvRow first;
+        private final List<AccountImport> accounts = new ArrayList<>();
+        private String accountNumber;
+        private CsvRow accountRow;
+        private List<CardImport> cards;
+
+        CsvCustomer(CsvRow first) {
+            this.customerNumber = String.valueOf(first.get("customer_number"));
+            this.first = first;
+        }
+
+        void add(CsvRow row) {
+            String rowAccount = row.get("account_number");
+            if (rowAccount == null) {
+                return;
+            }
+            if (!rowAccount.equals(accountNumber)) {
+                closeAccount();
+                accountNumber = rowAccount;
+                accountRow = row;
+                cards = new ArrayList<>();
+            }
+            if (row.get("card_number") != null) {
+                cards.add(new CardImport(row.get("card_number"), row.get("pin_hash"), row.cardType(),
+                        row.decimal("daily_withdrawal_limit"), row.decimal("credit_limit"),
+                        Boolean.parseBoolean(row.get("card_active")), Boolean.parseBoolean(row.get("pin_changed"))));
+            }
+        }
+
+        CustomerImport build() {
+            closeAccount();
+            return new CustomerImport(first.get("customer_number"), first.get("first_name"), first.get("last_name"),
+                    first.get("email"), first.get("document_number"), first.get("phone_number"), accounts);
+        }
+
+        private void closeAccount() {
+            if (accountRow != null) {
+                accounts.add(new AccountImport(accountNumber, accountRow.get("iban"), accountRow.get("account_type"),
+                        accountRow.decimal("balance"), cards));
+                accountRow = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas sobre el nombre completo de los clientes.
+ * Se puede buscar en el nombre completo, solo en el nombre o solo en los
+ * apellidos ({@link Field}).
+ *
+ * Los nombres se normalizan sin tildes y en minúsculas. Una búsqueda de tres
+ * o más caracteres cruza las listas de los trigramas de la consulta y
+ * comprueba la subcadena solo en los candidatos; las consultas más cortas
+ * recorren los nombres. Los resultados se ordenan por coincidencia exacta
+ * con nombre o apellido, después por prefijo y por último por subcadena; a
+ * igualdad, por antigüedad en el índice.
+ *
+ * Los documentos reciben identificadores internos crecientes, así que las
+ * listas de cada trigrama están siempre ordenadas. Las actualizaciones dan
+ * de baja el documento anterior y el índice se compacta cuando las bajas
+ * superan a las altas vigentes.
+ */
+public class CustomerNameIndex {
+
+    // Parte del nombre en la que se busca
+    public enum Field { FULL_NAME, FIRST_NAME, LAST_NAME }
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<UUID, Integer> documentByCustomer = new HashMap<>();
+    private final BitSet removed = new BitSet();
+
+    // ===== ESCRITURA =====
+
+    public void put(UUID customerId, String firstName, String lastName) {
+        Document document = Document.of(customerId, normalize(firstName), normalize(lastName));
+        lock.writeLock().lock();
+        try {
+            removeLocked(customerId);
+            int docId = documents.size();
+            documents.add(document);
+            documentByCustomer.put(customerId, docId);
+            for (long trigram : trigrams(document.fullName())) {
+                postings.computeIfAbsent(trigram, k -> new IntList()).addIfLast(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID customerId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(customerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentByCustomer.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== BÚSQUEDA =====
+
+    public List<UUID> search(String query, int limit) {
+        return search(query, limit, Field.FULL_NAME);
+    }
+
+    // Los trigramas salen del nombre completo, que contiene a nombre y apellidos
+    public List<UUID> search(String query, int limit, Field field) {
+        String needle = normalize(query);
+        if (needle.isBlank() || limit < 1) {
+            return List.of();
+        }
+        // Cola con el peor resultado en cabeza para quedarse con los 'limit' mejores
+        PriorityQueue<Match> best = new PriorityQueue<>(Match.RANKING.reversed());
+
+        lock.readLock().lock();
+        try {
+            if (needle.length() < 3) {
+                for (int docId = 0; docId < documents.size(); docId++) {
+                    offer(best, docId, needle, field, limit);
+                }
+            } else {
+                IntList[] lists = postingsFor(needle);
+                if (lists == null) {
+                    return List.of();
+                }
+                // Cruce por avance: las listas están ordenadas y solo se recorren hacia delante
+                int[] cursors = new int[lists.length];
+                IntList smallest = lists[0];
+                for (int i = 0; i < smallest.size; i++) {
+                    int docId = smallest.values[i];
+                    if (containedInAll(lists, cursors, docId)) {
+                        offer(best, docId, needle, field, limit);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Match[] ranked = best.toArray(new Match[0]);
+        Arrays.sort(ranked, Match.RANKING);
+        List<UUID> result = new ArrayList<>(ranked.length);
+        for (Match match : ranked) {
+            result.add(match.customerId());
+        }
+        return result;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    // ===== INTERNOS =====
+
+    private void removeLocked(UUID customerId) {
+        Integer previous = documentByCustomer.remove(customerId);
+        if (previous != null) {
+            removed.set(previous);
+            if (removed.cardinality() > documentByCustomer.size()) {
+                compact();
+            }
+        }
+    }
+
+    private void compact() {
+        List<Document> live = new ArrayList<>(documentByCustomer.size());
+        for (int docId = 0; docId < documents.size(); docId++) {
+            if (!removed.get(docId)) {
+                live.add(documents.get(docId));
+            }
+        }
+        documents.clear();
+        documentByCustomer.clear();
+        postings.clear();
+        removed.clear();
+        for (Document document : live) {
+            int docId = documents.size();
+            documents.add(document);
+            documentByCustomer.put(document.customerId(), docId);
+            for (long trigram : trigrams(document.fullName())) {
+                postings.computeIfAbsent(trigram, k -> new IntList()).addIfLast(docId);
+            }
+        }
+    }
+
+    // Listas de los trigramas de la consulta, de la más corta a la más larga
+    private IntList[] postingsFor(String needle) {
+        long[] grams = trigrams(needle);
+        IntList[] lists = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return null;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        return lists;
+    }
+
+    private static boolean containedInAll(IntList[] lists, int[] cursors, int docId) {
+        for (int i = 1; i < lists.length; i++) {
+            int position = lists[i].seek(cursors[i], docId);
+            cursors[i] = position;
+            if (position == lists[i].size || lists[i].values[position] != docId) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void offer(PriorityQueue<Match> best, int docId, String needle, Field field, int limit) {
+        if (removed.get(docId)) {
+            return;
+        }
+        Document document = documents.get(docId);
+        int rank = document.rank(needle, field);
+        if (rank < 0) {
+            return;
+        }
+        if (best.size() < limit) {
+            best.add(new Match(document.customerId(), rank, docId));
+        } else if (rank < best.peek().rank()) {
+            // Los documentos llegan en orden creciente: a igual rango nunca desplazan al peor
+            best.poll();
+            best.add(new Match(document.customerId(), rank, docId));
+        }
+    }
+
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private record Document(UUID customerId, String firstName, String lastName, String fullName) {
+
+        static Document of(UUID customerId, String firstName, String lastName) {
+            return new Document(customerId, firstName, lastName, firstName + " " + lastName);
+        }
+
+        // 0 = nombre o apellido exacto, 1 = prefijo, 2 = subcadena, -1 = no coincide
+        int rank(String needle, Field field) {
+            return switch (field) {
+                case FIRST_NAME -> rank(firstName, needle);
+                case LAST_NAME -> rank(lastName, needle);
+                case FULL_NAME -> {
+                    if (firstName.equals(needle) || lastName.equals(needle)) {
+                        yield 0;
+                    }
+                    if (firstName.startsWith(needle) || lastName.startsWith(needle)) {
+                        yield 1;
+                    }
+                    yield fullName.contains(needle) ? 2 : -1;
+                }
+            };
+        }
+
+        private static int rank(String value, String needle) {
+            if (value.equals(needle)) {
+                return 0;
+            }
+            if (value.startsWith(needle)) {
+                return 1;
+            }
+            return value.contains(needle) ? 2 : -1;
+        }
+    }
+
+    private record Match(UUID customerId, int rank, int docId) {
+
+        static final Comparator<Match> RANKING = Comparator.comparingInt(Match::rank)
+                .thenComparingInt(Match::docId);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // Primera posición >= from cuyo valor es >= target (búsqueda exponencial)
+        int seek(int from, int target) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && values[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            int found = Arrays.binarySearch(values, low, high, target);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+}
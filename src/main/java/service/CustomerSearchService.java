@@ -0,0 +1,181 @@
+package service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import dto.CustomerName;
+import entities.Customer;
+import entities.CustomerChangedEvent;
+import repository.CustomerRepository;
+import service.CustomerNameIndex.Field;
+
+/**
+ * Búsqueda de clientes por nombre sobre {@link CustomerNameIndex}.
+ *
+ * El índice se carga al arrancar en lotes de {@value #LOAD_BATCH_SIZE}
+ * clientes y se mantiene con los eventos de alta, cambio de nombre y baja
+ * confirmados. Mientras la carga inicial no ha terminado, la búsqueda se
+ * resuelve en la base de datos con {@link CustomerRepository#searchByName},
+ * {@link CustomerRepository#findByFirstNameContainingIgnoreCase} o
+ * {@link CustomerRepository#findByLastNameContainingIgnoreCase}, que tampoco
+ * distinguen tildes. Si la carga falla se reintenta con espera creciente.
+ */
+@Service
+public class CustomerSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSearchService.class);
+
+    static final int LOAD_BATCH_SIZE = 10_000;
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(5);
+
+    private final CustomerRepository customerRepository;
+    private final Duration retryDelay;
+    private final CustomerNameIndex index = new CustomerNameIndex();
+
+    // Clientes modificados durante la carga inicial: la carga no los sobrescribe.
+    // Protegido por loadLock, que también cubre cada comprobación y escritura de la carga.
+    private final Object loadLock = new Object();
+    private final Set<UUID> changedDuringLoad = new HashSet<>();
+
+    private volatile boolean ready;
+
+    public CustomerSearchService(CustomerRepository customerRepository,
+                                 @Value("${customer-search.load-retry-delay:PT5S}") Duration retryDelay) {
+        this.customerRepository = customerRepository;
+        this.retryDelay = retryDelay;
+    }
+
+    public List<Customer> search(String query, int limit) {
+        return search(query, limit, Field.FULL_NAME);
+    }
+
+    public List<Customer> searchByFirstName(String firstName, int limit) {
+        return search(firstName, limit, Field.FIRST_NAME);
+    }
+
+    public List<Customer> searchByLastName(String lastName, int limit) {
+        return search(lastName, limit, Field.LAST_NAME);
+    }
+
+    private List<Customer> search(String query, int limit, Field field) {
+        if (!ready) {
+            List<Customer> fromDatabase = switch (field) {
+                case FULL_NAME -> customerRepository.searchByName(query);
+                case FIRST_NAME -> customerRepository.findByFirstNameContainingIgnoreCase(query);
+                case LAST_NAME -> customerRepository.findByLastNameContainingIgnoreCase(query);
+            };
+            return fromDatabase.size() > limit ? fromDatabase.subList(0, limit) : fromDatabase;
+        }
+        List<UUID> ids = index.search(query, limit, field);
+        Map<UUID, Customer> byId = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(ids)) {
+            byId.put(customer.getId(), customer);
+        }
+        List<Customer> ranked = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Customer customer = byId.get(id);
+            if (customer != null) {
+                ranked.add(customer);
+            }
+        }
+        return ranked;
+    }
+
+    // Identificadores ordenados por relevancia, sin ir a la base de datos
+    public List<UUID> searchIds(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Duration delay = retryDelay;
+        while (true) {
+            try {
+                loadNames();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error cargando el índice de nombres de clientes; se reintenta en {}", delay, e);
+            }
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Carga del índice de nombres interrumpida; la búsqueda sigue en la base de datos");
+                return;
+            }
+            Duration doubled = delay.multipliedBy(2);
+            delay = doubled.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : doubled;
+        }
+    }
+
+    // Un reintento vuelve a empezar: put sustituye las entradas ya cargadas
+    private void loadNames() {
+        UUID lastId = new UUID(0, 0);
+        List<CustomerName> batch;
+        do {
+            batch = customerRepository.findNamesAfter(lastId, PageRequest.ofSize(LOAD_BATCH_SIZE));
+            synchronized (loadLock) {
+                for (CustomerName name : batch) {
+                    if (!changedDuringLoad.contains(name.id())) {
+                        index.put(name.id(), name.firstName(), name.lastName());
+                    }
+                    lastId = name.id();
+                }
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        synchronized (loadLock) {
+            ready = true;
+            changedDuringLoad.clear();
+        }
+        log.info("Índice de nombres de clientes cargado: {} clientes", index.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        Customer customer = event.customer();
+        if (customer.getId() == null) {
+            return;
+        }
+        // Tras la carga nadie más escribe en el índice y el cerrojo sobra
+        if (!ready) {
+            synchronized (loadLock) {
+                if (!ready) {
+                    changedDuringLoad.add(customer.getId());
+                    apply(event);
+                    return;
+                }
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(CustomerChangedEvent event) {
+        Customer customer = event.customer();
+        if (event.removed()) {
+            index.remove(customer.getId());
+        } else {
+            index.put(customer.getId(), customer.getFirstName(), customer.getLastName());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import dto.CardAuthorization;
+import entities.Card;
+import entities.Money;
+import entities.Transaction;
+import entities.TransactionCreatedEvent;
+import repository.TransactionRepository;
+
+/**
+ * Acumulado diario de retiros por cuenta y por tarjeta.
+ *
+ * Sustituye al SUM sobre la tabla de transacciones en la comprobación del
+ * límite diario: cada retiro persistido suma su importe en memoria y la
+ * consulta del acumulado es O(1). Si la transacción de base de datos hace
+ * rollback, el importe se descuenta de nuevo. Los acumulados llevan el día
+ * al que pertenecen, así que a medianoche se reinician solos.
+ *
+ * Los retiros llegan con {@link TransactionCreatedEvent}, que se publica al
+ * insertar la fila por cualquier camino ({@link EntityEventPublisher}). El
+ * registro, el descuento por rollback y la reconstrucción son los de
+ * {@link WithdrawalCounters}.
+ */
+@Service
+public class DailyWithdrawalAccumulator {
+
+    private final TransactionRepository transactionRepository;
+    private final Clock clock;
+
+    private final WithdrawalCounters<DailyTotal> totals = new WithdrawalCounters<>(this::add);
+
+    @Autowired
+    public DailyWithdrawalAccumulator(TransactionRepository transactionRepository) {
+        this(transactionRepository, Clock.systemDefaultZone());
+    }
+
+    public DailyWithdrawalAccumulator(TransactionRepository transactionRepository, Clock clock) {
+        this.transactionRepository = transactionRepository;
+        this.clock = clock;
+    }
+
+    // ===== CONSULTAS =====
+
+    public Money getTodayAccountTotal(UUID accountId) {
+        return currentTotal(totals.account(accountId));
+    }
+
+    public Money getTodayCardTotal(UUID cardId) {
+        return currentTotal(totals.card(cardId));
+    }
+
+    // Límite diario restante de la tarjeta (null si la tarjeta no tiene límite)
+    public Money getRemainingDailyLimit(Card card) {
+        return remainingDailyLimit(card.getId(), card.getDailyWithdrawalLimit());
+    }
+
+    // Igual que getRemainingDailyLimit(Card) a partir de la instantánea cacheada
+    public Money getRemainingDailyLimit(CardAuthorization authorization) {
+        return remainingDailyLimit(authorization.cardId(), authorization.dailyWithdrawalLimit());
+    }
+
+    public boolean canWithdraw(Card card, Money amount) {
+        return fitsDailyLimit(card.getId(), card.getDailyWithdrawalLimit(), amount);
+    }
+
+    // Igual que canWithdraw(Card, Money) a partir de la instantánea cacheada
+    public boolean canWithdraw(CardAuthorization authorization, Money amount) {
+        return fitsDailyLimit(authorization.cardId(), authorization.dailyWithdrawalLimit(), amount);
+    }
+
+    // ===== ACTUALIZACIÓN =====
+
+    @EventListener
+    public void onTransactionCreated(TransactionCreatedEvent event) {
+        registerWithdrawal(event.transaction());
+    }
+
+    public void registerWithdrawal(Transaction transaction) {
+        totals.register(transaction, clock.millis());
+    }
+
+    // Reconstruye los acumulados del día a partir de la tabla de transacciones
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long now = clock.millis();
+        List<Object[]> rows = transactionRepository.sumWithdrawalsSinceByAccountAndCard(
+                dayOf(now).atStartOfDay());
+        totals.rebuild(loader -> {
+            for (Object[] row : rows) {
+                loader.add((UUID) row[0], (UUID) row[1], now, 1, Money.of((BigDecimal) row[2]).cents());
+            }
+        });
+    }
+
+    // ===== INTERNOS =====
+
+    private Money remainingDailyLimit(UUID cardId, BigDecimal dailyLimit) {
+        if (dailyLimit == null) {
+            return null;
+        }
+        return Money.of(dailyLimit).minus(getTodayCardTotal(cardId));
+    }
+
+    private boolean fitsDailyLimit(UUID cardId, BigDecimal dailyLimit, Money amount) {
+        Money remaining = remainingDailyLimit(cardId, dailyLimit);
+        return remaining == null || remaining.isGreaterThanOrEqual(amount);
+    }
+
+    private Money currentTotal(DailyTotal total) {
+        if (total == null || !total.day().equals(LocalDate.now(clock))) {
+            return Money.ZERO;
+        }
+        return total.amount();
+    }
+
+    private DailyTotal add(DailyTotal current, long at, long count, long cents) {
+        LocalDate day = dayOf(at);
+        Money amount = Money.ofCents(cents);
+        if (current == null || current.day().isBefore(day)) {
+            return new DailyTotal(day, amount);
+        }
+        if (current.day().isAfter(day)) {
+            // Importe de un día ya cerrado: no afecta al acumulado vigente
+            return current;
+        }
+        return new DailyTotal(day, current.amount().plus(amount));
+    }
+
+    private LocalDate dayOf(long at) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(at), clock.getZone());
+    }
+
+    private record DailyTotal(LocalDate day, Money amount) {
+    }
+}
@@ -0,0 +1,126 @@
+package service;
+
+import java.util.function.Supplier;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import entities.Card;
+import entities.CardAuthorizationChangedEvent;
+import entities.Customer;
+import entities.CustomerChangedEvent;
+import entities.Transaction;
+import entities.TransactionCreatedEvent;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Publica los eventos de dominio a partir de los eventos de Hibernate:
+ * <ul>
+ *   <li>{@link TransactionCreatedEvent} al insertar una {@link Transaction};</li>
+ *   <li>{@link CardAuthorizationChangedEvent} al modificar o borrar una
+ *       {@link Card};</li>
+ *   <li>{@link CustomerChangedEvent} al insertar, modificar o borrar un
+ *       {@link Customer}.</li>
+ * </ul>
+ * Así se ven todas las escrituras de la sesión (save() del repositorio,
+ * {@code persist}, cascadas y cambios detectados en el flush), no solo las
+ * que pasan por un repositorio. Los eventos se publican al ejecutar la
+ * sentencia, dentro de la transacción que la contiene. Las sentencias
+ * masivas (JPQL o SQL nativo) no pasan por aquí.
+ */
+@Service
+public class EntityEventPublisher {
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = new ThreadLocal<>();
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EntityEventPublisher(ApplicationEventPublisher eventPublisher, EntityManagerFactory entityManagerFactory) {
+        this.eventPublisher = eventPublisher;
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        EntityListener listener = new EntityListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    // Escrituras de filas cuyo evento ya se ha publicado (inserciones diferidas del journal)
+    public static <T> T withoutEvents(Supplier<T> writes) {
+        Boolean previous = SUPPRESSED.get();
+        SUPPRESSED.set(Boolean.TRUE);
+        try {
+            return writes.get();
+        } finally {
+            if (previous == null) {
+                SUPPRESSED.remove();
+            }
+        }
+    }
+
+    private void publish(Object event) {
+        if (SUPPRESSED.get() == null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private class EntityListener implements PostInsertEventListener, PostUpdateEventListener,
+            PostDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Transaction transaction) {
+                publish(new TransactionCreatedEvent(transaction));
+            } else if (event.getEntity() instanceof Customer customer) {
+                publish(new CustomerChangedEvent(customer, false));
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof Card card) {
+                publish(new CardAuthorizationChangedEvent(card.getCardNumber()));
+                // Id natural mutable: lo cacheado con el número anterior también queda obsoleto
+                String previous = previousCardNumber(event);
+                if (previous != null && !previous.equals(card.getCardNumber())) {
+                    publish(new CardAuthorizationChangedEvent(previous));
+                }
+            } else if (event.getEntity() instanceof Customer customer) {
+                publish(new CustomerChangedEvent(customer, false));
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Card card) {
+                publish(new CardAuthorizationChangedEvent(card.getCardNumber()));
+            } else if (event.getEntity() instanceof Customer customer) {
+                publish(new CustomerChangedEvent(customer, true));
+            }
+        }
+
+        // Null si Hibernate no conserva el estado anterior (update de una entidad separada)
+        private String previousCardNumber(PostUpdateEvent event) {
+            Object[] oldState = event.getOldState();
+            if (oldState == null) {
+                return null;
+            }
+            return (String) oldState[event.getPersister().getPropertyIndex("cardNumber")];
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+    }
+}
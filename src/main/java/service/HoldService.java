@@ -0,0 +1,295 @@
+package service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.CardAuthorization;
+import entities.CardHold;
+import entities.Money;
+import enumerado.HoldStatus;
+import repository.AccountRepository;
+import repository.CardHoldRepository;
+import repository.CardRepository;
+
+/**
+ * Retenciones de retiros en cajero: reservan el importe entre la
+ * autorización y la entrega del efectivo, sin mantener abierta una
+ * transacción de base de datos durante la dispensación.
+ *
+ * Las retenciones abiertas viven en memoria, con el total retenido por
+ * cuenta y por tarjeta, y cada una tiene su fila en {@code card_holds} para
+ * recuperarlas al arrancar. El saldo disponible y el límite diario restante
+ * descuentan lo retenido, y {@link VelocityEngine} cuenta cada retención
+ * abierta como un retiro. Las comprobaciones y los cambios de estado de una
+ * cuenta se serializan con un cerrojo en memoria que solo dura la consulta
+ * y la escritura de la fila, así que, como el modo libro mayor, supone una
+ * única instancia atendiendo cada cuenta.
+ *
+ * {@link HoldSweeper} caduca periódicamente las retenciones vencidas.
+ */
+@Service
+public class HoldService {
+
+    private final CardHoldRepository holdRepository;
+    private final AccountRepository accountRepository;
+    private final CardRepository cardRepository;
+    private final LedgerService ledgerService;
+    private final DailyWithdrawalAccumulator withdrawalAccumulator;
+    private final VelocityEngine velocityEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final Lock[] stripes;
+
+    private final ConcurrentMap<UUID, OpenHold> open = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Money> heldByAccount = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Money> heldByCard = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HoldService(CardHoldRepository holdRepository,
+                       AccountRepository accountRepository,
+                       CardRepository cardRepository,
+                       LedgerService ledgerService,
+                       DailyWithdrawalAccumulator withdrawalAccumulator,
+                       VelocityEngine velocityEngine,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${holds.ttl:PT2M}") Duration ttl,
+                       @Value("${holds.lock-stripes:256}") int lockStripes) {
+        this(holdRepository, accountRepository, cardRepository, ledgerService, withdrawalAccumulator, velocityEngine,
+                new TransactionTemplate(transactionManager), ttl, lockStripes, Clock.systemDefaultZone());
+    }
+
+    public HoldService(CardHoldRepository holdRepository,
+                       AccountRepository accountRepository,
+                       CardRepository cardRepository,
+                       LedgerService ledgerService,
+                       DailyWithdrawalAccumulator withdrawalAccumulator,
+                       VelocityEngine velocityEngine,
+                       TransactionTemplate transactionTemplate,
+                       Duration ttl,
+                       int lockStripes,
+                       Clock clock) {
+        this.holdRepository = holdRepository;
+        this.accountRepository = accountRepository;
+        this.cardRepository = cardRepository;
+        this.ledgerService = ledgerService;
+        this.withdrawalAccumulator = withdrawalAccumulator;
+        this.velocityEngine = velocityEngine;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.stripes = new Lock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // ===== CONSULTAS =====
+
+    public Money getHeldAmount(UUID accountId) {
+        return heldByAccount.getOrDefault(accountId, Money.ZERO);
+    }
+
+    public Money getCardHeldAmount(UUID cardId) {
+        return heldByCard.getOrDefault(cardId, Money.ZERO);
+    }
+
+    // Saldo menos retenciones abiertas
+    public Money getAvailableBalance(UUID accountId) {
+        return getBalance(accountId).minus(getHeldAmount(accountId));
+    }
+
+    // Límite diario restante menos retenciones abiertas (null si la tarjeta no tiene límite)
+    public Money getRemainingDailyLimit(CardAuthorization card) {
+        Money remaining = withdrawalAccumulator.getRemainingDailyLimit(card);
+        return remaining == null ? null : remaining.minus(getCardHeldAmount(card.cardId()));
+    }
+
+    public int getOpenCount() {
+        return open.size();
+    }
+
+    // ===== RETENCIONES =====
+
+    // Ejecuta la operación sin otras retenciones ni retiros concurrentes sobre la cuenta
+    public <T> T withAccountLock(UUID accountId, Supplier<T> operation) {
+        Lock lock = stripes[Math.floorMod(accountId.hashCode(), stripes.length)];
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Comprueba que {@code amount} más {@code commission} cabe en el saldo
+     * disponible y {@code amount} en el límite diario restante. Debe
+     * llamarse con el cerrojo de la cuenta.
+     */
+    public void requireAvailable(CardAuthorization card, Money amount, Money commission) {
+        Money remaining = getRemainingDailyLimit(card);
+        if (remaining != null && !remaining.isGreaterThanOrEqual(amount)) {
+            throw new IllegalArgumentException("Límite diario de retiro superado");
+        }
+        if (!getAvailableBalance(card.accountId()).isGreaterThanOrEqual(amount.plus(commission))) {
+            throw new IllegalArgumentException("Saldo insuficiente");
+        }
+    }
+
+    public OpenHold place(CardAuthorization card, Money amount, Money commission, boolean externalAtm) {
+        return withAccountLock(card.accountId(), () -> {
+            requireAvailable(card, amount, commission);
+            CardHold hold = transactionTemplate.execute(status -> holdRepository.save(new CardHold(
+                    accountRepository.getReferenceById(card.accountId()),
+                    cardRepository.getReferenceById(card.cardId()),
+                    amount, commission, externalAtm, LocalDateTime.now(clock).plus(ttl))));
+            OpenHold placed = new OpenHold(hold.getId(), card.accountId(), card.cardId(), amount, commission,
+                    externalAtm, hold.getExpiresAt());
+            register(placed);
+            return placed;
+        });
+    }
+
+    // Retención abierta y vigente de la tarjeta
+    public OpenHold getOpenHold(UUID cardId, UUID holdId) {
+        OpenHold hold = open.get(holdId);
+        if (hold == null || !hold.cardId().equals(cardId)) {
+            throw new IllegalArgumentException("Retención no encontrada");
+        }
+        if (isExpired(hold)) {
+            throw new IllegalArgumentException("Retención caducada");
+        }
+        return hold;
+    }
+
+    /**
+     * Marca la retención como cobrada dentro de la transacción en curso, que
+     * debe ser la del retiro; deja de contar como retenida cuando esa
+     * transacción se confirma.
+     */
+    public void markCaptured(OpenHold hold) {
+        if (holdRepository.close(hold.id(), HoldStatus.CAPTURED) == 0) {
+            throw new IllegalArgumentException("Retención no encontrada");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    unregister(hold);
+                }
+            }
+        });
+    }
+
+    public void release(UUID cardId, UUID holdId) {
+        OpenHold hold = open.get(holdId);
+        if (hold == null || !hold.cardId().equals(cardId)) {
+            throw new IllegalArgumentException("Retención no encontrada");
+        }
+        // La fila ya no estaba abierta: se cobró o caducó en paralelo
+        if (!close(hold, HoldStatus.RELEASED)) {
+            throw new ConflictException("La retención ya no está abierta");
+        }
+    }
+
+    // Caduca las retenciones vencidas; devuelve cuántas
+    public int expireDue() {
+        int expired = 0;
+        for (OpenHold hold : new ArrayList<>(open.values())) {
+            if (isExpired(hold) && close(hold, HoldStatus.EXPIRED)) {
+                expired++;
+            }
+        }
+        // Filas vencidas sin entrada en memoria (cerradas a medias por otra instancia o antes de un reinicio)
+        transactionTemplate.executeWithoutResult(status -> holdRepository.expireDue(LocalDateTime.now(clock)));
+        return expired;
+    }
+
+    // Recupera las retenciones abiertas de la base de datos
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<OpenHold> holds = transactionTemplate.execute(status -> holdRepository.findByStatus(HoldStatus.OPEN)
+                .stream()
+                .map(h -> new OpenHold(h.getId(), h.getAccount().getId(), h.getCard().getId(), h.getAmount(),
+                        h.getCommission(), h.isExternalAtm(), h.getExpiresAt()))
+                .toList());
+        // Una a una, para que el control de velocidad deje de contar las anteriores
+        new ArrayList<>(open.values()).forEach(this::unregister);
+        holds.forEach(this::register);
+    }
+
+    // ===== INTERNOS =====
+
+    private boolean close(OpenHold hold, HoldStatus status) {
+        return withAccountLock(hold.accountId(), () -> {
+            int closed = transactionTemplate.execute(tx -> holdRepository.close(hold.id(), status));
+            unregister(hold);
+            return closed == 1;
+        });
+    }
+
+    private Money getBalance(UUID accountId) {
+        if (ledgerService.isEnabled()) {
+            return ledgerService.getBalance(accountId);
+        }
+        return accountRepository.findBalanceById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Cuenta no encontrada"));
+    }
+
+    private boolean isExpired(OpenHold hold) {
+        return !hold.expiresAt().isAfter(LocalDateTime.now(clock));
+    }
+
+    private void register(OpenHold hold) {
+        open.put(hold.id(), hold);
+        heldByAccount.merge(hold.accountId(), hold.total(), Money::plus);
+        heldByCard.merge(hold.cardId(), hold.amount(), Money::plus);
+        velocityEngine.holdOpened(hold.accountId(), hold.cardId(), hold.amount());
+    }
+
+    private void unregister(OpenHold hold) {
+        if (open.remove(hold.id()) == null) {
+            return;
+        }
+        heldByAccount.computeIfPresent(hold.accountId(), (k, held) -> zeroToNull(held.minus(hold.total())));
+        heldByCard.computeIfPresent(hold.cardId(), (k, held) -> zeroToNull(held.minus(hold.amount())));
+        velocityEngine.holdClosed(hold.accountId(), hold.cardId(), hold.amount());
+    }
+
+    private static Money zeroToNull(Money amount) {
+        return amount.isZero() ? null : amount;
+    }
+
+    /**
+     * Retención abierta: {@code amount} se reserva del límite diario de la
+     * tarjeta y {@code amount} más {@code commission} del saldo de la cuenta.
+     */
+    public record OpenHold(UUID id, UUID accountId, UUID cardId, Money amount, Money commission,
+                           boolean externalAtm, LocalDateTime expiresAt) {
+
+        public Money total() {
+            return amount.plus(commission);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caduca cada {@code holds.sweep-interval} las retenciones de cajero
+ * vencidas y devuelve su importe al saldo disponible.
+ */
+@Service
+public class HoldSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldSweeper.class);
+
+    private final HoldService holdService;
+
+    public HoldSweeper(HoldService holdService) {
+        this.holdService = holdService;
+    }
+
+    @Scheduled(fixedDelayString = "${holds.sweep-interval:PT10S}",
+               initialDelayString = "${holds.sweep-interval:PT10S}")
+    public void sweep() {
+        int expired = holdService.expireDue();
+        if (expired > 0) {
+            log.debug("Retenciones caducadas: {}", expired);
+        }
+    }
+}
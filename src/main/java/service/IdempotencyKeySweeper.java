@@ -0,0 +1,31 @@
+package service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Borra cada {@code idempotency.sweep-interval} las claves de idempotencia
+ * más antiguas que {@code idempotency.retention}.
+ */
+@Service
+public class IdempotencyKeySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeySweeper.class);
+
+    private final IdempotencyService idempotencyService;
+
+    public IdempotencyKeySweeper(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.sweep-interval:PT1H}",
+               initialDelayString = "${idempotency.sweep-interval:PT1H}")
+    public void sweep() {
+        int purged = idempotencyService.purgeExpired();
+        if (purged > 0) {
+            log.debug("Claves de idempotencia caducadas: {}", purged);
+        }
+    }
+}
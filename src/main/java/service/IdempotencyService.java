@@ -0,0 +1,335 @@
+package service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.AtmReceipt;
+import entities.IdempotencyKey;
+import entities.Transaction;
+import jakarta.persistence.EntityManager;
+import repository.IdempotencyKeyRepository;
+import repository.TransactionRepository;
+
+/**
+ * Claves de idempotencia de las operaciones de cajero: un reintento con la
+ * misma clave devuelve el justificante original sin repetir el movimiento.
+ *
+ * La clave del cliente solo vale para una tarjeta y una operación: se guarda
+ * el resumen de las tres ({@link IdempotentRequest#id}), así que la misma
+ * clave en otra tarjeta es otra operación. Con ella se guarda la huella de
+ * la petición (importe, retención...); un reintento con la misma clave y
+ * otra huella se rechaza con {@link ConflictException} en vez de responder
+ * con el justificante de la primera.
+ *
+ * La clave se guarda en {@code idempotency_keys} dentro de la transacción
+ * del movimiento ({@link #record}). Delante de la tabla hay:
+ * <ul>
+ *   <li>una LRU acotada ({@code idempotency.cache-size}) con el justificante
+ *       de las claves recientes;</li>
+ *   <li>un {@link BloomFilter} con todas las claves de la tabla, que
+ *       descarta sin consulta las claves nuevas;</li>
+ *   <li>un mapa de operaciones en curso, para que dos peticiones con la
+ *       misma clave en esta instancia no se ejecuten a la vez.</li>
+ * </ul>
+ * Una clave nueva no consulta la base de datos: solo los positivos del
+ * filtro fuera de la LRU la leen. Si otra instancia registra la misma clave
+ * a la vez, la clave primaria hace fallar el segundo movimiento antes del
+ * commit y se devuelve el justificante del primero.
+ *
+ * Las claves se borran pasado {@code idempotency.retention} y el filtro se
+ * reconstruye entonces a partir de la tabla.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final IdempotencyKeyRepository keyRepository;
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int cacheSize;
+    private final long expectedKeys;
+    private final Duration retention;
+    private final TransactionJournal journal;
+
+    private final Map<String, Stored> recent;
+    private final ConcurrentMap<String, Pending> inFlight = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    // Filtro en reconstrucción: remember escribe también en él hasta que sustituye al actual
+    private volatile BloomFilter rebuilding;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    @Autowired
+    public IdempotencyService(IdempotencyKeyRepository keyRepository,
+                              TransactionRepository transactionRepository,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              ObjectProvider<TransactionJournal> journal,
+                              @Value("${idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${idempotency.expected-keys:1000000}") long expectedKeys,
+                              @Value("${idempotency.retention:P1D}") Duration retention) {
+        this.keyRepository = keyRepository;
+        this.transactionRepository = transactionRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.cacheSize = cacheSize;
+        this.expectedKeys = expectedKeys;
+        this.retention = retention;
+        this.journal = journal.getIfAvailable();
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > IdempotencyService.this.cacheSize;
+            }
+        };
+        this.filter = new BloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Petición idempotente de la operación {@code operation} con la tarjeta
+     * {@code cardNumber}; {@code parameters} forman la huella que un
+     * reintento debe repetir. Sin clave devuelve {@code null}.
+     */
+    public static IdempotentRequest request(String key, String operation, String cardNumber, Object... parameters) {
+        if (key == null) {
+            return null;
+        }
+        if (key.isBlank() || key.length() > IdempotencyKey.MAX_LENGTH) {
+            throw new IllegalArgumentException("Clave de idempotencia no válida");
+        }
+        StringBuilder fingerprint = new StringBuilder(operation);
+        for (Object parameter : parameters) {
+            fingerprint.append('\0').append(parameter);
+        }
+        return new IdempotentRequest(digest(operation + '\0' + cardNumber + '\0' + key),
+                digest(fingerprint.toString()));
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por petición. La operación debe
+     * llamar a {@link #record} con la misma petición dentro de su
+     * transacción. Sin petición ({@code null}), simplemente la ejecuta.
+     */
+    public AtmReceipt execute(IdempotentRequest request, Supplier<AtmReceipt> operation) {
+        if (request == null) {
+            return operation.get();
+        }
+        Stored cached = getRecent(request.id());
+        if (cached != null) {
+            return replay(request, cached);
+        }
+        Pending mine = new Pending(request.fingerprint(), new CompletableFuture<>());
+        Pending running = inFlight.putIfAbsent(request.id(), mine);
+        if (running != null) {
+            requireSameRequest(request, running.fingerprint());
+            duplicates.increment();
+            return join(running.result());
+        }
+        try {
+            Stored stored = getRecent(request.id());
+            AtmReceipt result = stored != null ? replay(request, stored) : executeOnce(request, operation);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(request.id(), mine);
+        }
+    }
+
+    // Registra la petición en la transacción en curso, junto al movimiento que la consume
+    public void record(IdempotentRequest request, Transaction transaction) {
+        if (request != null) {
+            entityManager.persist(new IdempotencyKey(request.id(), request.fingerprint(),
+                    transaction.getTransactionReference()));
+        }
+    }
+
+    // ===== MANTENIMIENTO =====
+
+    // Borra las claves caducadas y reconstruye el filtro; devuelve cuántas se han borrado
+    public int purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status ->
+                keyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+        rebuild();
+        return deleted == null ? 0 : deleted;
+    }
+
+    // Filtro nuevo con las claves de la tabla; las recientes de la LRU se conservan
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        // Antes de leer la tabla: una clave que remember no escriba aquí ya está confirmada y la carga la ve
+        rebuilding = rebuilt;
+        // En el primario: una clave que faltara en el filtro dejaría repetir la operación
+        ReadReplicaDataSource.onPrimary(() -> readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<String> keys = keyRepository.streamKeys()) {
+                keys.forEach(rebuilt::add);
+            }
+        }));
+        List<String> recentKeys;
+        synchronized (recent) {
+            recentKeys = new ArrayList<>(recent.keySet());
+        }
+        recentKeys.forEach(rebuilt::add);
+        filter = rebuilt;
+        rebuilding = null;
+    }
+
+    // Vacía la LRU: las claves solo se resuelven con el filtro y la tabla (como tras un reinicio)
+    public void clearRecent() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    // ===== ESTADÍSTICAS =====
+
+    // Consultas a la tabla por positivos del filtro
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    // ===== INTERNOS =====
+
+    private AtmReceipt executeOnce(IdempotentRequest request, Supplier<AtmReceipt> operation) {
+        if (filter.mightContain(request.id())) {
+            Optional<Stored> stored = findStored(request.id());
+            if (stored.isPresent()) {
+                return replay(request, remember(request.id(), stored.get()));
+            }
+        }
+        try {
+            return remember(request.id(), new Stored(request.fingerprint(), operation.get())).receipt();
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia ha registrado la clave a la vez; si no es eso, el error es otro
+            Stored stored = findStored(request.id()).orElseThrow(() -> e);
+            return replay(request, remember(request.id(), stored));
+        }
+    }
+
+    // Justificante de una petición ya ejecutada, si el reintento es la misma petición
+    private AtmReceipt replay(IdempotentRequest request, Stored stored) {
+        requireSameRequest(request, stored.fingerprint());
+        duplicates.increment();
+        return stored.receipt();
+    }
+
+    private static void requireSameRequest(IdempotentRequest request, String fingerprint) {
+        if (!request.fingerprint().equals(fingerprint)) {
+            throw new ConflictException("La clave de idempotencia ya se usó con otra petición");
+        }
+    }
+
+    private Optional<Stored> findStored(String id) {
+        lookups.increment();
+        Optional<IdempotencyKey> key = ReadReplicaDataSource.onPrimary(() -> readOnlyTemplate.execute(status ->
+                keyRepository.findById(id)));
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        String reference = key.get().getTransactionReference();
+        Optional<AtmReceipt> stored = findReceipt(reference);
+        if (stored.isEmpty() && journal != null) {
+            // La transacción puede estar aún en el journal, pendiente de insertar
+            journal.awaitFlushed();
+            stored = findReceipt(reference);
+        }
+        return Optional.of(new Stored(key.get().getRequestFingerprint(), stored.orElseThrow(() ->
+                new IllegalStateException("Clave de idempotencia sin transacción: " + reference))));
+    }
+
+    private Optional<AtmReceipt> findReceipt(String reference) {
+        return ReadReplicaDataSource.onPrimary(() -> readOnlyTemplate.execute(status ->
+                transactionRepository.findByTransactionReference(reference).map(AtmReceipt::of)));
+    }
+
+    private Stored remember(String id, Stored stored) {
+        filter.add(id);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(id);
+        }
+        synchronized (recent) {
+            recent.put(id, stored);
+        }
+        return stored;
+    }
+
+    private Stored getRecent(String id) {
+        synchronized (recent) {
+            return recent.get(id);
+        }
+    }
+
+    // SHA-256 en hexadecimal: la tabla no guarda números de tarjeta ni claves del cliente
+    private static String digest(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static AtmReceipt join(CompletableFuture<AtmReceipt> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Clave de una operación idempotente: {@code id} resume la clave del
+     * cliente, la tarjeta y la operación; {@code fingerprint}, la petición.
+     */
+    public record IdempotentRequest(String id, String fingerprint) {
+    }
+
+    private record Stored(String fingerprint, AtmReceipt receipt) {
+    }
+
+    private record Pending(String fingerprint, CompletableFuture<AtmReceipt> result) {
+    }
+}
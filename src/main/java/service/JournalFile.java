@@ -0,0 +1,202 @@
+package service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Fichero de journal proyectado en memoria con registros verificados por CRC.
+ *
+ * Cabecera de {@value #HEADER_SIZE} bytes (magic, generación y posición
+ * confirmada) seguida de registros {@code [longitud][generación][crc][datos]}.
+ * La generación se incrementa en cada {@link #reset()}, así que los
+ * registros de vueltas anteriores que siguen en el fichero no se leen.
+ *
+ * {@link #awaitDurable} agrupa los syncs: quien llega cuando otro hilo ya
+ * está sincronizando espera y, si ese sync cubre su registro, vuelve sin
+ * hacer otro.
+ */
+public class JournalFile implements AutoCloseable {
+
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES;
+
+    private static final int MAGIC = 0x4A524E4C; // "JRNL"
+    private static final int MAGIC_OFFSET = 0;
+    private static final int GENERATION_OFFSET = 4;
+    private static final int CHECKPOINT_OFFSET = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private int generation;
+    private volatile int written;
+    private volatile int durable;
+
+    public JournalFile(Path path, int capacity) {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el journal " + path, e);
+        }
+        this.capacity = capacity;
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(GENERATION_OFFSET, 1);
+            buffer.putInt(CHECKPOINT_OFFSET, HEADER_SIZE);
+            buffer.force(0, HEADER_SIZE);
+        }
+        this.generation = buffer.getInt(GENERATION_OFFSET);
+        int checkpoint = buffer.getInt(CHECKPOINT_OFFSET);
+        this.written = checkpoint + length(readFrom(checkpoint));
+        this.durable = written;
+    }
+
+    // ===== ESCRITURA =====
+
+    // Devuelve la posición final del registro, o -1 si no cabe hasta el próximo reset()
+    public int append(byte[] data) {
+        int size = RECORD_HEADER_SIZE + data.length;
+        appendLock.lock();
+        try {
+            int position = written;
+            if (position + size > capacity) {
+                return -1;
+            }
+            buffer.putInt(position + 4, generation);
+            buffer.putInt(position + 8, crc(generation, data));
+            buffer.put(position + RECORD_HEADER_SIZE, data);
+            // La longitud se escribe al final: un registro a medias se lee como vacío
+            buffer.putInt(position, data.length);
+            written = position + size;
+            return written;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Vuelve cuando todo lo escrito hasta position está en disco
+    public void awaitDurable(int position) {
+        if (durable >= position) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durable >= position) {
+                return;
+            }
+            int from = durable;
+            int target = written;
+            buffer.force(from, target - from);
+            durable = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // Todo lo anterior a position está ya en la base de datos
+    public void checkpoint(int position) {
+        buffer.putInt(CHECKPOINT_OFFSET, position);
+    }
+
+    // Vacía el journal; solo debe llamarse cuando checkpoint ha alcanzado lo escrito
+    public void reset() {
+        appendLock.lock();
+        syncLock.lock();
+        try {
+            generation++;
+            buffer.putInt(GENERATION_OFFSET, generation);
+            buffer.putInt(CHECKPOINT_OFFSET, HEADER_SIZE);
+            buffer.force(0, HEADER_SIZE);
+            written = HEADER_SIZE;
+            durable = HEADER_SIZE;
+        } finally {
+            syncLock.unlock();
+            appendLock.unlock();
+        }
+    }
+
+    // ===== LECTURA =====
+
+    // Registros válidos posteriores a la posición confirmada
+    public List<byte[]> readUnconfirmed() {
+        return readFrom(buffer.getInt(CHECKPOINT_OFFSET));
+    }
+
+    public int getWrittenPosition() {
+        return written;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getCheckpoint() {
+        return buffer.getInt(CHECKPOINT_OFFSET);
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ===== INTERNOS =====
+
+    // Se detiene en el primer registro vacío, truncado, de otra generación o con CRC erróneo
+    private List<byte[]> readFrom(int position) {
+        List<byte[]> records = new ArrayList<>();
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > capacity
+                    || buffer.getInt(position + 4) != generation) {
+                break;
+            }
+            byte[] data = new byte[length];
+            buffer.get(position + RECORD_HEADER_SIZE, data);
+            if (buffer.getInt(position + 8) != crc(generation, data)) {
+                break;
+            }
+            records.add(data);
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return records;
+    }
+
+    private static int length(List<byte[]> records) {
+        int length = 0;
+        for (byte[] record : records) {
+            length += RECORD_HEADER_SIZE + record.length;
+        }
+        return length;
+    }
+
+    private static int crc(int generation, byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(generation >>> 24);
+        crc.update(generation >>> 16);
+        crc.update(generation >>> 8);
+        crc.update(generation);
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
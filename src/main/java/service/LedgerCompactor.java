@@ -0,0 +1,39 @@
+package service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compacta en segundo plano las instantáneas del libro mayor: cada
+ * {@code ledger.snapshot.interval}, las cuentas con al menos
+ * {@code ledger.snapshot.min-transactions} altas desde su última
+ * instantánea reciben una nueva.
+ */
+@Service
+@ConditionalOnProperty(name = "ledger.enabled", havingValue = "true")
+public class LedgerCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerCompactor.class);
+
+    private final LedgerService ledgerService;
+    private final int minTransactions;
+
+    public LedgerCompactor(LedgerService ledgerService,
+                           @Value("${ledger.snapshot.min-transactions:100}") int minTransactions) {
+        this.ledgerService = ledgerService;
+        this.minTransactions = minTransactions;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.snapshot.interval:PT30S}",
+               initialDelayString = "${ledger.snapshot.interval:PT30S}")
+    public void compact() {
+        int compacted = ledgerService.compactPending(minTransactions);
+        if (compacted > 0) {
+            log.debug("Instantáneas compactadas: {}", compacted);
+        }
+    }
+}
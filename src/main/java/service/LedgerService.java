@@ -0,0 +1,264 @@
+package service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.BalanceSnapshot;
+import entities.Money;
+import entities.Transaction;
+import repository.AccountRepository;
+import repository.BalanceSnapshotRepository;
+import repository.TransactionRepository;
+
+/**
+ * Modo libro mayor ({@code ledger.enabled=true}): las transacciones solo se
+ * insertan y la fila de {@code accounts} no se vuelve a escribir.
+ *
+ * El saldo vigente es el de la última {@link BalanceSnapshot} más el neto
+ * de las transacciones posteriores a su corte. Cada alta lleva la siguiente
+ * secuencia de su cuenta ({@code ledger_sequence}) y el corte es una
+ * secuencia, no una fecha: un reloj que retrocede no saca ninguna
+ * transacción del saldo. La primera operación de una
+ * cuenta crea la instantánea de apertura con el saldo de la columna
+ * {@code accounts.balance}; después, {@link LedgerCompactor} acumula las
+ * transacciones nuevas en otra instantánea para que esa suma no crezca.
+ *
+ * Las altas de una misma cuenta se serializan con un cerrojo en memoria que
+ * cubre la comprobación de saldo y el commit, y el saldo resultante se
+ * guarda en memoria tras el commit: una alta solo lee la base de datos la
+ * primera vez que opera con la cuenta. El modo libro mayor supone por tanto
+ * una única instancia escribiendo sobre cada cuenta.
+ *
+ * Con {@link TransactionJournal} activo, el alta se escribe en el journal
+ * dentro de la transacción del movimiento, justo antes del commit, y la fila
+ * se inserta después en lote; la compactación y la reconstrucción esperan
+ * antes a que el journal esté insertado.
+ */
+@Service
+public class LedgerService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final TransactionJournal journal;
+    private final boolean enabled;
+
+    private final Lock[] stripes;
+
+    // Saldo confirmado de las cuentas con altas en esta instancia
+    private final ConcurrentMap<UUID, Money> balances = new ConcurrentHashMap<>();
+
+    // Última secuencia asignada a cada cuenta con altas en esta instancia
+    private final ConcurrentMap<UUID, Long> sequences = new ConcurrentHashMap<>();
+
+    // Transacciones añadidas desde la última instantánea de cada cuenta
+    private final ConcurrentMap<UUID, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LedgerService(AccountRepository accountRepository,
+                         TransactionRepository transactionRepository,
+                         TransactionArchive transactionArchive,
+                         BalanceSnapshotRepository snapshotRepository,
+                         PlatformTransactionManager transactionManager,
+                         ObjectProvider<TransactionJournal> journal,
+                         @Value("${ledger.enabled:false}") boolean enabled,
+                         @Value("${ledger.lock-stripes:256}") int lockStripes) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionArchive = transactionArchive;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.journal = journal.getIfAvailable();
+        this.enabled = enabled;
+        this.stripes = new Lock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ===== CONSULTAS =====
+
+    public Money getBalance(UUID accountId) {
+        Money cached = balances.get(accountId);
+        return cached != null ? cached : getPersistedBalance(accountId);
+    }
+
+    // Saldo según la base de datos: última instantánea más el neto posterior
+    public Money getPersistedBalance(UUID accountId) {
+        return ReadReplicaDataSource.onPrimary(() -> readOnlyTemplate.execute(status ->
+                snapshotRepository.findLatestByAccountId(accountId)
+                        .map(this::balanceFrom)
+                        // La cuenta todavía no ha operado en modo libro mayor
+                        .orElseGet(() -> accountRepository.findBalanceById(accountId)
+                                .orElseThrow(() -> new IllegalArgumentException("Cuenta no encontrada")))));
+    }
+
+    public int getPendingCount(UUID accountId) {
+        AtomicInteger count = pending.get(accountId);
+        return count == null ? 0 : count.get();
+    }
+
+    // ===== ALTAS =====
+
+    /**
+     * Inserta la transacción que crea {@code movement} a partir de la cuenta y
+     * del saldo resultante. {@code delta} debe coincidir con el neto de la
+     * transacción; si es negativo, el saldo resultante no puede serlo.
+     */
+    public Transaction append(UUID accountId, Money delta, BiFunction<Account, Money, Transaction> movement) {
+        return withAccountLock(accountId, () -> {
+            Transaction created = transactionTemplate.execute(status -> {
+                if (!accountRepository.existsByIdAndActiveTrue(accountId)) {
+                    throw new IllegalArgumentException("Cuenta no encontrada o inactiva");
+                }
+                Money current = balances.get(accountId);
+                if (current == null) {
+                    current = balanceFrom(snapshotRepository.findLatestByAccountId(accountId)
+                            .orElseGet(() -> open(accountId)));
+                }
+                Money balance = current.plus(delta);
+                if (delta.isNegative() && balance.isNegative()) {
+                    throw new IllegalArgumentException("Saldo insuficiente");
+                }
+                Transaction transaction = movement.apply(accountRepository.getReferenceById(accountId), balance);
+                if (!transaction.getNetAmount().equals(delta)) {
+                    throw new IllegalStateException("El neto de la transacción no coincide con el movimiento");
+                }
+                Long last = sequences.get(accountId);
+                transaction.setLedgerSequence(
+                        (last != null ? last : transactionArchive.findLatestLedgerSequence(accountId)) + 1);
+                if (journal == null) {
+                    return transactionRepository.save(transaction);
+                }
+                // Lo que el movimiento escribe (clave de idempotencia, retención cobrada) se vuelca antes
+                // del journal: si falla el volcado o la escritura en el journal, se deshace todo
+                status.flush();
+                return journal.append(transaction);
+            });
+            balances.put(accountId, created.getBalanceAfter());
+            sequences.put(accountId, created.getLedgerSequence());
+            pending.computeIfAbsent(accountId, k -> new AtomicInteger()).incrementAndGet();
+            return created;
+        });
+    }
+
+    // ===== COMPACTACIÓN =====
+
+    // Instantánea nueva con todas las transacciones de la cuenta; devuelve false si no había ninguna pendiente
+    public boolean compact(UUID accountId) {
+        return withAccountLock(accountId, () -> {
+            awaitJournal();
+            Boolean compacted = transactionTemplate.execute(status -> {
+                Optional<BalanceSnapshot> latest = snapshotRepository.findLatestByAccountId(accountId);
+                long sequence = transactionArchive.findLatestLedgerSequence(accountId);
+                if (latest.isEmpty() || latest.get().getCutoffSequence() >= sequence) {
+                    return false;
+                }
+                BalanceSnapshot snapshot = snapshotRepository.save(new BalanceSnapshot(
+                        accountRepository.getReferenceById(accountId), balanceFrom(latest.get()), sequence, false));
+                snapshotRepository.deleteSuperseded(accountId, snapshot.getId());
+                return true;
+            });
+            pending.remove(accountId);
+            return Boolean.TRUE.equals(compacted);
+        });
+    }
+
+    // Compacta las cuentas con al menos minTransactions pendientes; devuelve cuántas
+    public int compactPending(int minTransactions) {
+        int compacted = 0;
+        for (Map.Entry<UUID, AtomicInteger> entry : pending.entrySet()) {
+            if (entry.getValue().get() >= minTransactions && compact(entry.getKey())) {
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+
+    // Instantánea nueva con el saldo de apertura más todo el log; devuelve el saldo reconstruido
+    public Optional<Money> rebuild(UUID accountId) {
+        return withAccountLock(accountId, () -> {
+            awaitJournal();
+            Optional<Money> rebuilt = transactionTemplate.execute(status -> {
+                Optional<BalanceSnapshot> opening = snapshotRepository.findByAccountIdAndOpeningTrue(accountId);
+                if (opening.isEmpty()) {
+                    return Optional.<Money>empty();
+                }
+                Money balance = balanceFrom(opening.get());
+                UUID keep = opening.get().getId();
+                long sequence = transactionArchive.findLatestLedgerSequence(accountId);
+                if (sequence > opening.get().getCutoffSequence()) {
+                    keep = snapshotRepository.save(new BalanceSnapshot(
+                            accountRepository.getReferenceById(accountId), balance, sequence, false)).getId();
+                }
+                snapshotRepository.deleteSuperseded(accountId, keep);
+                return Optional.of(balance);
+            });
+            rebuilt.ifPresent(balance -> balances.put(accountId, balance));
+            pending.remove(accountId);
+            return rebuilt;
+        });
+    }
+
+    // Ejecuta la operación sin altas concurrentes sobre la cuenta
+    <T> T withAccountLock(UUID accountId, Supplier<T> operation) {
+        Lock lock = stripe(accountId);
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ===== INTERNOS =====
+
+    // La instantánea se corta sobre lo insertado: nada de la cuenta puede quedar en el journal
+    private void awaitJournal() {
+        if (journal != null) {
+            journal.awaitFlushed();
+        }
+    }
+
+    private BalanceSnapshot open(UUID accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Cuenta no encontrada"));
+        // Las transacciones anteriores ya están reflejadas en la columna balance y no tienen secuencia
+        return snapshotRepository.save(new BalanceSnapshot(account, account.getBalance(), 0L, true));
+    }
+
+    private Money balanceFrom(BalanceSnapshot snapshot) {
+        // Las altas posteriores al corte se hicieron después de guardar la instantánea
+        return snapshot.getBalance().plus(Money.of(transactionArchive.sumNetAmountAfter(
+                snapshot.getAccount().getId(), snapshot.getCutoffSequence(), snapshot.getCreatedAt())));
+    }
+
+    private Lock stripe(UUID accountId) {
+        return stripes[Math.floorMod(accountId.hashCode(), stripes.length)];
+    }
+}
@@ -0,0 +1,131 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.LedgerVerification;
+import entities.BalanceSnapshot;
+import entities.Money;
+import entities.Transaction;
+import jakarta.persistence.EntityManager;
+import repository.BalanceSnapshotRepository;
+
+/**
+ * Replay del libro mayor: recorre el log de cada cuenta desde su instantánea
+ * de apertura, comprueba el {@code balanceAfter} de cada transacción y
+ * compara el saldo final con el que resulta de la última instantánea.
+ *
+ * Con {@code ledger.verify-on-startup=true} verifica todas las cuentas al
+ * arrancar y, con {@code ledger.rebuild-inconsistent=true}, sustituye la
+ * instantánea de las que no cuadran por una reconstruida desde el log.
+ */
+@Service
+public class LedgerVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerVerifier.class);
+
+    static final int CLEAR_INTERVAL = StatementExportService.CLEAR_INTERVAL;
+
+    private final LedgerService ledgerService;
+    private final TransactionArchive transactionArchive;
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTemplate;
+    private final boolean verifyOnStartup;
+    private final boolean rebuildInconsistent;
+
+    public LedgerVerifier(LedgerService ledgerService,
+                          TransactionArchive transactionArchive,
+                          BalanceSnapshotRepository snapshotRepository,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${ledger.verify-on-startup:false}") boolean verifyOnStartup,
+                          @Value("${ledger.rebuild-inconsistent:false}") boolean rebuildInconsistent) {
+        this.ledgerService = ledgerService;
+        this.transactionArchive = transactionArchive;
+        this.snapshotRepository = snapshotRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.verifyOnStartup = verifyOnStartup;
+        this.rebuildInconsistent = rebuildInconsistent;
+    }
+
+    // Vacío si la cuenta no opera en modo libro mayor
+    public Optional<LedgerVerification> verify(UUID accountId) {
+        return ledgerService.withAccountLock(accountId, () -> ReadReplicaDataSource.onPrimary(() ->
+                readOnlyTemplate.execute(status -> snapshotRepository.findByAccountIdAndOpeningTrue(accountId)
+                        .map(opening -> replay(accountId, opening)))));
+    }
+
+    public List<LedgerVerification> verifyAll() {
+        List<LedgerVerification> results = new ArrayList<>();
+        for (UUID accountId : snapshotRepository.findLedgerAccountIds()) {
+            verify(accountId).ifPresent(results::add);
+        }
+        return results;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (!verifyOnStartup) {
+            return;
+        }
+        List<LedgerVerification> results = verifyAll();
+        long inconsistent = 0;
+        for (LedgerVerification result : results) {
+            if (result.isConsistent()) {
+                continue;
+            }
+            inconsistent++;
+            log.warn("Libro mayor descuadrado en la cuenta {}: replay {}, saldo {}, {} transacciones erróneas (primera {})",
+                    result.accountId(), result.replayedBalance(), result.ledgerBalance(),
+                    result.mismatches(), result.firstMismatchReference());
+            if (rebuildInconsistent) {
+                ledgerService.rebuild(result.accountId());
+            }
+        }
+        log.info("Libro mayor verificado: {} cuentas, {} descuadradas", results.size(), inconsistent);
+    }
+
+    // ===== INTERNOS =====
+
+    private LedgerVerification replay(UUID accountId, BalanceSnapshot opening) {
+        Money running = opening.getBalance();
+        long transactions = 0;
+        long mismatches = 0;
+        String firstMismatch = null;
+        try (Stream<Transaction> entries = transactionArchive.streamAfter(
+                accountId, opening.getCutoffSequence(), opening.getCreatedAt())) {
+            Iterator<Transaction> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                running = running.plus(transaction.getNetAmount());
+                if (!running.equals(transaction.getBalanceAfter())) {
+                    mismatches++;
+                    if (firstMismatch == null) {
+                        firstMismatch = transaction.getTransactionReference();
+                    }
+                }
+                if (++transactions % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return new LedgerVerification(accountId, running, ledgerService.getPersistedBalance(accountId),
+                transactions, mismatches, firstMismatch);
+    }
+}
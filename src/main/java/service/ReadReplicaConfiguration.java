@@ -0,0 +1,67 @@
+package service;
+
+import java.time.Duration;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Réplica de lectura con {@code datasource.replica.url}: sustituye el
+ * DataSource de Spring Boot por {@link ReadReplicaDataSource}.
+ *
+ * El pool del primario se configura como siempre ({@code spring.datasource.*}
+ * y {@code spring.datasource.hikari.*}); el de la réplica, con
+ * {@code datasource.replica.username}, {@code datasource.replica.password}
+ * (por defecto los del primario) y {@code datasource.replica.hikari.*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @Primary
+    public ReadReplicaDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                            @Value("${datasource.replica.max-lag:PT5S}") Duration maxLag) {
+        if (maxLag.isNegative()) {
+            throw new IllegalArgumentException("datasource.replica.max-lag no puede ser negativo");
+        }
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        HikariDataSource replica = DataSourceBuilder.create(properties.getClassLoader())
+                .type(HikariDataSource.class)
+                .url(environment.getRequiredProperty("datasource.replica.url"))
+                .username(environment.getProperty("datasource.replica.username", properties.determineUsername()))
+                .password(environment.getProperty("datasource.replica.password", properties.determinePassword()))
+                .build();
+        replica.setReadOnly(true);
+        binder.bind("datasource.replica.hikari", Bindable.ofInstance(replica));
+        if (replica.getPoolName() == null) {
+            replica.setPoolName("replica");
+        }
+        return new ReadReplicaDataSource(primary, replica, maxLag);
+    }
+
+    // Sin esto la sesión de open-in-view retendría la conexión de la primera transacción de la petición
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
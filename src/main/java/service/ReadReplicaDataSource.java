@@ -0,0 +1,158 @@
+package service;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * DataSource de la aplicación cuando hay réplica de lectura: las
+ * transacciones de solo lectura ({@code @Transactional(readOnly = true)} y
+ * {@link repository.ReportingQuery}) usan el pool de la réplica y el resto,
+ * el del primario.
+ *
+ * La conexión real se pide en la primera sentencia, no al empezar la
+ * transacción: hasta entonces Spring no ha marcado la transacción como de
+ * solo lectura. Una consulta de solo lectura dentro de una transacción de
+ * escritura reutiliza su conexión y sigue en el primario.
+ *
+ * {@link ReplicaLagMonitor} informa hasta dónde ha replicado la réplica. Si
+ * el retraso supera {@code datasource.replica.max-lag}, o todavía no se
+ * conoce, las lecturas van al primario. Las lecturas cuyo resultado decide
+ * una escritura (saldos, claves de idempotencia, filtros de unicidad) se
+ * fijan al primario con {@link #onPrimary(Supplier)}.
+ */
+public class ReadReplicaDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private enum Target { PRIMARY, REPLICA }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final Duration maxLag;
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile Instant replicatedUntil;
+
+    public ReadReplicaDataSource(HikariDataSource primary, HikariDataSource replica, Duration maxLag) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLag = maxLag;
+        Router router = new Router();
+        router.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        // Valores conocidos de antemano: si no, afterPropertiesSet pediría una conexión para averiguarlos
+        setDefaultAutoCommit(primary.isAutoCommit());
+        if (primary.getTransactionIsolation() != null) {
+            setDefaultTransactionIsolationName(primary.getTransactionIsolation());
+        } else {
+            setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        }
+        afterPropertiesSet();
+    }
+
+    // Ejecuta en el primario las lecturas de solo lectura que no admiten datos atrasados
+    public static <T> T onPrimary(Supplier<T> reads) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable reads) {
+        onPrimary(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    // ===== ESTADO =====
+
+    public boolean isReplicaUsable() {
+        return getReplicaLag().filter(lag -> lag.compareTo(maxLag) <= 0).isPresent();
+    }
+
+    // Vacío hasta que ReplicaLagMonitor consigue leer el latido en la réplica
+    public Optional<Duration> getReplicaLag() {
+        Instant until = replicatedUntil;
+        if (until == null) {
+            return Optional.empty();
+        }
+        Duration lag = Duration.between(until, Instant.now());
+        return Optional.of(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    // Lecturas que iban a la réplica y se sirvieron desde el primario por retraso
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+
+    // ===== ReplicaLagMonitor =====
+
+    // Marca del último latido visible en la réplica; null si no se ha podido leer
+    void setReplicatedUntil(Instant replicatedUntil) {
+        this.replicatedUntil = replicatedUntil;
+    }
+
+    private final class Router extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_ONLY.get() != null) {
+                primaryConnections.increment();
+                return Target.PRIMARY;
+            }
+            if (!isReplicaUsable()) {
+                fallbacks.increment();
+                primaryConnections.increment();
+                return Target.PRIMARY;
+            }
+            replicaConnections.increment();
+            return Target.REPLICA;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Mide el retraso de la réplica con un latido: cada
+ * {@code datasource.replica.lag-check-interval} escribe la hora en
+ * {@code replica_heartbeat} del primario y lee el último latido que ya ha
+ * llegado a la réplica. El retraso medido incluye hasta un intervalo de
+ * latido, así que {@code datasource.replica.max-lag} debe ser mayor.
+ *
+ * Si la réplica no responde o no tiene la tabla, el retraso pasa a ser
+ * desconocido y las lecturas vuelven al primario.
+ */
+@Service
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReadReplicaDataSource dataSource;
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private volatile boolean tableCreated;
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(ReadReplicaDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.primary = new JdbcTemplate(dataSource.getPrimary());
+        this.replica = new JdbcTemplate(dataSource.getReplica());
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:PT1S}")
+    public void check() {
+        try {
+            beat();
+        } catch (DataAccessException e) {
+            log.warn("No se pudo escribir el latido de réplica en el primario: {}", e.getMessage());
+        }
+        Instant replicated;
+        try {
+            replicated = replica.query("SELECT beat_at FROM replica_heartbeat WHERE id = 1",
+                    rows -> rows.next() ? rows.getTimestamp(1).toInstant() : null);
+        } catch (DataAccessException e) {
+            log.debug("No se pudo leer el latido en la réplica", e);
+            replicated = null;
+        }
+        dataSource.setReplicatedUntil(replicated);
+
+        boolean usable = dataSource.isReplicaUsable();
+        if (usable != replicaUsable) {
+            replicaUsable = usable;
+            if (usable) {
+                log.info("Réplica disponible para lecturas (retraso {})", dataSource.getReplicaLag().orElseThrow());
+            } else {
+                log.warn("Réplica fuera de servicio para lecturas: retraso {} (máximo {})",
+                        dataSource.getReplicaLag().map(Object::toString).orElse("desconocido"),
+                        dataSource.getMaxLag());
+            }
+        }
+    }
+
+    private void beat() {
+        if (!tableCreated) {
+            primary.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat "
+                    + "(id INT PRIMARY KEY, beat_at TIMESTAMP NOT NULL)");
+            tableCreated = true;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+            primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+        }
+    }
+}
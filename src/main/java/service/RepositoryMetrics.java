@@ -0,0 +1,266 @@
+package service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.BaseStream;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import dto.RepositoryMethodStats;
+import dto.RepositoryMetricsReport;
+import dto.SlowRepositoryCall;
+import entities.Money;
+
+/**
+ * Métricas por método de repositorio: histograma de latencias, filas
+ * devueltas y sentencias SQL por llamada. Las registra
+ * {@link RepositoryMetricsInterceptor} en cada invocación y se publican en
+ * {@code /actuator/repositories}.
+ *
+ * Las sentencias se cuentan con un {@link StatementInspector} de Hibernate
+ * por hilo, así que incluyen las cargas perezosas y los flush que ocurren
+ * dentro de la llamada, pero no las de después. Las lecturas servidas por la
+ * caché de segundo nivel no cuentan. Las filas de un {@code Stream} no se
+ * cuentan: se consumen fuera del repositorio.
+ *
+ * Las llamadas que superan {@code repository-metrics.slow-threshold} se
+ * escriben en el log con sus parámetros y se guardan las últimas
+ * {@code repository-metrics.slow-log-size}. Los números de tarjeta, PIN,
+ * documentos, emails e IBAN se enmascaran dejando los cuatro últimos
+ * caracteres; las entidades se muestran solo por su tipo.
+ */
+@Service
+public class RepositoryMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositoryMetrics.class);
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final Pattern SENSITIVE_NAME =
+            Pattern.compile("(?i).*(card|pin|document|email|iban|account|phone|mobile).*");
+    // Tarjetas, números de cuenta de 20 dígitos y teléfonos, aunque el parámetro no lo diga
+    private static final Pattern LONG_NUMBER = Pattern.compile("\\+?\\d{9,34}");
+    private static final int MAX_LOGGED_ELEMENTS = 10;
+
+    private final ConcurrentMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+    private final int slowLogSize;
+    private final Deque<SlowRepositoryCall> slowCalls = new ArrayDeque<>();
+
+    public RepositoryMetrics(@Value("${repository-metrics.slow-threshold:200ms}") Duration slowThreshold,
+                             @Value("${repository-metrics.slow-log-size:100}") int slowLogSize) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowLogSize = slowLogSize;
+    }
+
+    // Sentencias preparadas por el hilo actual desde que arrancó
+    public static long statementCount() {
+        return STATEMENTS.get()[0];
+    }
+
+    public RepositoryMetricsReport report() {
+        List<RepositoryMethodStats> stats = new ArrayList<>();
+        for (MethodMetrics metrics : methods.values()) {
+            if (metrics.latency.getCount() > 0) {
+                stats.add(metrics.snapshot());
+            }
+        }
+        stats.sort(Comparator.comparingDouble(RepositoryMethodStats::totalMillis).reversed());
+        List<SlowRepositoryCall> slow;
+        synchronized (slowCalls) {
+            slow = new ArrayList<>(slowCalls);
+        }
+        return new RepositoryMetricsReport(stats, slow);
+    }
+
+    public Optional<RepositoryMethodStats> getStats(String method) {
+        return Optional.ofNullable(methods.get(method))
+                .filter(metrics -> metrics.latency.getCount() > 0)
+                .map(MethodMetrics::snapshot);
+    }
+
+    public void reset() {
+        methods.values().forEach(MethodMetrics::reset);
+        synchronized (slowCalls) {
+            slowCalls.clear();
+        }
+    }
+
+    // ===== REGISTRO (RepositoryMetricsInterceptor) =====
+
+    MethodMetrics register(Class<?> repositoryInterface, Method method) {
+        String name = name(repositoryInterface, method);
+        return methods.computeIfAbsent(name, key -> new MethodMetrics(key, method));
+    }
+
+    void record(MethodMetrics metrics, Object[] arguments, long nanos, long statements, Object result,
+                boolean failed) {
+        long rows = failed ? 0 : rows(result);
+        metrics.latency.record(nanos);
+        metrics.rows.add(rows);
+        metrics.statements.add(statements);
+        if (failed) {
+            metrics.errors.increment();
+        }
+        if (nanos >= slowThresholdNanos) {
+            slowCall(metrics, arguments, nanos, statements, rows, failed);
+        }
+    }
+
+    // ===== INTERNOS =====
+
+    private void slowCall(MethodMetrics metrics, Object[] arguments, long nanos, long statements, long rows,
+                          boolean failed) {
+        SlowRepositoryCall call = new SlowRepositoryCall(Instant.now(), metrics.name, nanos / 1_000_000.0,
+                statements, rows, failed, describe(metrics.method, arguments));
+        log.warn("Llamada lenta a {}: {} ms, {} sentencias, {} filas, parámetros {}",
+                call.method(), String.format("%.1f", call.millis()), statements, rows, call.parameters());
+        synchronized (slowCalls) {
+            slowCalls.addLast(call);
+            while (slowCalls.size() > slowLogSize) {
+                slowCalls.removeFirst();
+            }
+        }
+    }
+
+    private static String name(Class<?> repositoryInterface, Method method) {
+        StringJoiner parameters = new StringJoiner(", ", "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            parameters.add(type.getSimpleName());
+        }
+        return repositoryInterface.getSimpleName() + "." + method.getName() + parameters;
+    }
+
+    static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof BaseStream<?, ?>) {
+            return 0;
+        }
+        return 1;
+    }
+
+    static String describe(Method method, Object[] arguments) {
+        if (arguments == null || arguments.length == 0) {
+            return "[]";
+        }
+        Parameter[] parameters = method.getParameters();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < arguments.length; i++) {
+            String name = i < parameters.length ? parameters[i].getName() : "arg" + i;
+            joiner.add(name + "=" + describe(name, arguments[i]));
+        }
+        return joiner.toString();
+    }
+
+    private static String describe(String name, Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof CharSequence text) {
+            String string = text.toString();
+            return SENSITIVE_NAME.matcher(name).matches() || LONG_NUMBER.matcher(string).matches()
+                    ? mask(string) : string;
+        }
+        if (value instanceof Collection<?> collection) {
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            collection.stream().limit(MAX_LOGGED_ELEMENTS).forEach(element -> joiner.add(describe(name, element)));
+            if (collection.size() > MAX_LOGGED_ELEMENTS) {
+                joiner.add("… " + collection.size() + " en total");
+            }
+            return joiner.toString();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Enum<?>
+                || value instanceof UUID || value instanceof Temporal || value instanceof Money
+                || value instanceof Pageable || value instanceof Sort) {
+            return value.toString();
+        }
+        // Entidades y demás objetos: solo el tipo, para no volcar su contenido
+        return value.getClass().getSimpleName();
+    }
+
+    static String mask(String value) {
+        if (value.length() <= 4) {
+            return "****";
+        }
+        return "*".repeat(value.length() - 4) + value.substring(value.length() - 4);
+    }
+
+    static final class MethodMetrics {
+
+        private final String name;
+        private final Method method;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+
+        private MethodMetrics(String name, Method method) {
+            this.name = name;
+            this.method = method;
+        }
+
+        private RepositoryMethodStats snapshot() {
+            long calls = latency.getCount();
+            return new RepositoryMethodStats(name, calls, errors.sum(),
+                    latency.getTotal() / 1_000_000.0,
+                    calls == 0 ? 0 : latency.getTotal() / 1_000.0 / calls,
+                    latency.percentile(0.50) / 1_000.0,
+                    latency.percentile(0.95) / 1_000.0,
+                    latency.percentile(0.99) / 1_000.0,
+                    latency.getMax() / 1_000.0,
+                    calls == 0 ? 0 : (double) rows.sum() / calls,
+                    calls == 0 ? 0 : (double) statements.sum() / calls);
+        }
+
+        private void reset() {
+            latency.reset();
+            errors.reset();
+            rows.reset();
+            statements.reset();
+        }
+    }
+
+    // Se registra en Hibernate desde RepositoryMetricsConfiguration
+    public static class StatementCounter implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get()[0]++;
+            return sql;
+        }
+    }
+}
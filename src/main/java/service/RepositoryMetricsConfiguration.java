@@ -0,0 +1,43 @@
+package service;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Instrumenta todos los repositorios de Spring Data con
+ * {@link RepositoryMetricsInterceptor} y registra en Hibernate el contador de
+ * sentencias de {@link RepositoryMetrics}. Se desactiva con
+ * {@code repository-metrics.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "repository-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryMetricsConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new RepositoryMetrics.StatementCounter());
+    }
+
+    // Estático y con ObjectProvider: los post-procesadores se crean antes que el resto de beans
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<RepositoryMetrics> repositoryMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(0, new RepositoryMetricsInterceptor(
+                                    repositoryMetrics.getObject(), information.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Mide cada invocación de un repositorio: tiempo, sentencias SQL preparadas
+ * en el hilo durante la llamada y filas devueltas. Va el primero de la
+ * cadena del proxy, así que el tiempo incluye la transacción del repositorio.
+ * Solo se mide la llamada exterior: los métodos default que delegan en otro
+ * método del repositorio vuelven a pasar por el proxy y se contarían dos veces.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private static final ThreadLocal<Boolean> IN_CALL = new ThreadLocal<>();
+
+    private final RepositoryMetrics repositoryMetrics;
+    private final Class<?> repositoryInterface;
+    private final ConcurrentMap<Method, RepositoryMetrics.MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(RepositoryMetrics repositoryMetrics, Class<?> repositoryInterface) {
+        this.repositoryMetrics = repositoryMetrics;
+        this.repositoryInterface = repositoryInterface;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class || IN_CALL.get() != null) {
+            return invocation.proceed();
+        }
+        RepositoryMetrics.MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, m -> repositoryMetrics.register(repositoryInterface, m));
+        }
+        long statements = RepositoryMetrics.statementCount();
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        IN_CALL.set(Boolean.TRUE);
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            IN_CALL.remove();
+            long elapsed = System.nanoTime() - start;
+            repositoryMetrics.record(metrics, invocation.getArguments(), elapsed,
+                    RepositoryMetrics.statementCount() - statements, result, failed);
+        }
+    }
+}
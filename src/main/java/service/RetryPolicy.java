@@ -0,0 +1,23 @@
+package service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Política de reintentos acotada con espera exponencial y jitter completo.
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts debe ser al menos 1");
+        }
+    }
+
+    // Espera antes del reintento número 'attempt' (1 = primer reintento)
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(),
+                initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
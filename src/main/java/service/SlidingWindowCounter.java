@@ -0,0 +1,99 @@
+package service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Número de operaciones e importe en una ventana deslizante, sin bloqueos.
+ *
+ * Anillo de cubetas de ancho fijo. Cada cubeta es inmutable y lleva el
+ * periodo al que pertenece: se actualiza con compareAndSet y, si es de una
+ * vuelta anterior del anillo, el primer registro que cae en ella la
+ * sustituye. Las lecturas solo suman las cubetas de la ventana, así que no
+ * hace falta limpiar nada. La ventana avanza de cubeta en cubeta: cubre
+ * entre la duración menos un ancho de cubeta y la duración completa.
+ *
+ * Ocupa como mucho una cubeta por posición del anillo, sea cual sea el
+ * número de operaciones.
+ */
+public class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    public SlidingWindowCounter(Duration window, int buckets) {
+        if (buckets < 1 || window.toMillis() % buckets != 0 || window.toMillis() / buckets == 0) {
+            throw new IllegalArgumentException("La ventana debe dividirse en cubetas enteras de al menos 1 ms");
+        }
+        this.bucketMillis = window.toMillis() / buckets;
+        this.buckets = new AtomicReferenceArray<>(buckets);
+    }
+
+    // Con valores negativos deshace un registro anterior del mismo instante
+    public void add(long epochMillis, long count, long cents) {
+        long period = Math.floorDiv(epochMillis, bucketMillis);
+        int index = (int) Math.floorMod(period, (long) buckets.length());
+        while (true) {
+            Bucket current = buckets.get(index);
+            Bucket updated;
+            if (current == null || current.period() < period) {
+                if (count < 0) {
+                    // La cubeta del registro ya se ha reutilizado: no queda nada que deshacer
+                    return;
+                }
+                updated = new Bucket(period, count, cents);
+            } else if (current.period() > period) {
+                // Registro de una vuelta anterior: ya está fuera de la ventana
+                return;
+            } else {
+                updated = new Bucket(period, current.count() + count, current.cents() + cents);
+            }
+            if (buckets.compareAndSet(index, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    public long count(long nowMillis) {
+        long total = 0;
+        long period = Math.floorDiv(nowMillis, bucketMillis);
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (inWindow(bucket, period)) {
+                total += bucket.count();
+            }
+        }
+        return total;
+    }
+
+    public long cents(long nowMillis) {
+        long total = 0;
+        long period = Math.floorDiv(nowMillis, bucketMillis);
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (inWindow(bucket, period)) {
+                total += bucket.cents();
+            }
+        }
+        return total;
+    }
+
+    // Sin registros dentro de la ventana
+    public boolean isIdle(long nowMillis) {
+        long period = Math.floorDiv(nowMillis, bucketMillis);
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (inWindow(bucket, period) && bucket.count() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean inWindow(Bucket bucket, long period) {
+        return bucket != null && bucket.period() <= period && bucket.period() > period - buckets.length();
+    }
+
+    private record Bucket(long period, long count, long cents) {
+    }
+}
@@ -0,0 +1,138 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entities.Transaction;
+import enumerado.ExportFormat;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Exportación del extracto de una cuenta en CSV o NDJSON con memoria constante.
+ *
+ * Las transacciones se leen con {@link TransactionArchive#streamByAccountId}
+ * y se escriben directamente en la salida; cada {@value #CLEAR_INTERVAL}
+ * filas se vacía el contexto de persistencia para que las entidades ya
+ * escritas puedan liberarse.
+ */
+@Service
+public class StatementExportService {
+
+    static final int CLEAR_INTERVAL = 500;
+
+    private static final String CSV_HEADER =
+            "fecha,referencia,tipo,descripcion,importe,comision,saldo,estado\n";
+
+    private final TransactionArchive transactionArchive;
+    private final EntityManager entityManager;
+    private final JsonFactory jsonFactory;
+
+    public StatementExportService(TransactionArchive transactionArchive,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper) {
+        this.transactionArchive = transactionArchive;
+        this.entityManager = entityManager;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    // Devuelve el número de transacciones escritas. No cierra la salida.
+    @Transactional(readOnly = true)
+    public long export(UUID accountId, ExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<Transaction> transactions = transactionArchive.streamByAccountId(accountId)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            JsonGenerator json = format == ExportFormat.NDJSON ? newLineDelimited(writer) : null;
+
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                if (json != null) {
+                    writeJson(json, transaction);
+                } else {
+                    writeCsv(writer, transaction);
+                }
+                if (++rows % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+            if (json != null) {
+                json.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    // ===== FORMATOS =====
+
+    private JsonGenerator newLineDelimited(Writer writer) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(writer);
+        json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        // Cada objeto termina en su propio salto de línea, también el último
+        json.setRootValueSeparator(null);
+        return json;
+    }
+
+    private static void writeJson(JsonGenerator json, Transaction transaction) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("fecha", String.valueOf(transaction.getCreatedAt()));
+        json.writeStringField("referencia", transaction.getTransactionReference());
+        json.writeStringField("tipo", transaction.getType().name());
+        json.writeStringField("descripcion", transaction.getDescription());
+        json.writeNumberField("importe", transaction.getAmount().toBigDecimal());
+        json.writeNumberField("comision", transaction.getCommission().toBigDecimal());
+        json.writeNumberField("saldo", transaction.getBalanceAfter().toBigDecimal());
+        json.writeStringField("estado", transaction.getStatus());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeCsv(Writer writer, Transaction transaction) throws IOException {
+        writer.write(String.valueOf(transaction.getCreatedAt()));
+        writer.write(',');
+        writeCsvField(writer, transaction.getTransactionReference());
+        writer.write(',');
+        writer.write(transaction.getType().name());
+        writer.write(',');
+        writeCsvField(writer, transaction.getDescription());
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getAmount()));
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getCommission()));
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getBalanceAfter()));
+        writer.write(',');
+        writeCsvField(writer, transaction.getStatus());
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
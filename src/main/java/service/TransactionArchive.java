@@ -0,0 +1,503 @@
+package service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.TransactionCursor;
+import entities.Account;
+import entities.Transaction;
+import enumerado.TransactionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import repository.TransactionRepository;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Archivo en frío de la tabla {@code transactions}.
+ *
+ * {@link #archive()} mueve las transacciones anteriores a
+ * {@code archive.horizon} a tablas mensuales {@code transactions_archive_AAAAMM}
+ * con las mismas columnas. Cada lote de {@code archive.batch-size} filas se
+ * copia y se borra en una transacción corta, de la más antigua a la más
+ * reciente, así que todo lo archivado es anterior a lo que queda en la tabla
+ * caliente.
+ *
+ * Las consultas por rango, el extracto, el historial y las sumas del libro
+ * mayor pasan por esta clase: siempre leen la tabla caliente y solo las
+ * tablas de archivo de los meses que se solapan con el rango pedido (ninguna
+ * si el rango empieza después de lo último archivado); las del libro mayor
+ * filtran por secuencia y acotan los meses con la fecha de la instantánea,
+ * con un día de margen por si el reloj retrocedió. Las filas de archivo
+ * se cargan como {@link Transaction} de solo lectura. Los buscadores de
+ * historial completo de {@link TransactionRepository} tienen aquí su
+ * equivalente; el resto de consultas (movimientos del día, últimos
+ * movimientos) solo ven la tabla caliente, que cubre todo el horizonte.
+ *
+ * Los meses archivados y la última fecha archivada se vuelven a leer de la
+ * base de datos tras cada archivado y cada {@code archive.refresh-interval},
+ * así que una instancia que no archiva ve también lo que archiva otra.
+ *
+ * Un cerrojo de lectura/escritura en memoria impide que una lectura
+ * combinada vea una fila dos veces, o ninguna, mientras se mueve su lote;
+ * como el libro mayor, supone una única instancia archivando. Los Stream
+ * solo lo mantienen mientras lanzan sus consultas: cada consulta lee la
+ * foto de la base de datos del momento en que se ejecuta, así que todas ven
+ * el mismo estado del archivado aunque se recorran después sin cerrojo y
+ * un extracto largo no retiene los lotes de archivado. Las tablas de
+ * archivo se crean copiando las columnas de {@code transactions}: una
+ * columna añadida después a la tabla caliente hay que añadirla también a
+ * las de archivo.
+ */
+@Service
+public class TransactionArchive implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchive.class);
+
+    static final String TABLE_PREFIX = "transactions_archive_";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // Retroceso del reloj que se tolera al acotar por fecha las consultas por secuencia del libro mayor
+    private static final Duration CLOCK_MARGIN = Duration.ofDays(1);
+
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final Duration horizon;
+    private final int batchSize;
+    private final Clock clock;
+
+    // Lecturas combinadas (lectura) frente a lotes de archivado (escritura)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    private final NavigableSet<YearMonth> months = new ConcurrentSkipListSet<>();
+
+    // Fecha de la transacción archivada más reciente; null sin archivo
+    private volatile LocalDateTime archivedUntil;
+
+    private final LongAdder archived = new LongAdder();
+
+    @Autowired
+    public TransactionArchive(TransactionRepository transactionRepository,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${archive.horizon:P90D}") Duration horizon,
+                              @Value("${archive.batch-size:1000}") int batchSize) {
+        this(transactionRepository, entityManager, transactionManager, horizon, batchSize,
+                Clock.systemDefaultZone());
+    }
+
+    public TransactionArchive(TransactionRepository transactionRepository,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              Duration horizon,
+                              int batchSize,
+                              Clock clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("El lote de archivado debe tener al menos una transacción");
+        }
+        this.transactionRepository = transactionRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    // Tablas de archivo existentes y última fecha archivada
+    @Override
+    public void afterSingletonsInstantiated() {
+        refresh();
+    }
+
+    // Vuelve a leer el estado del archivo; con el cerrojo de escritura, como un lote
+    @Scheduled(fixedDelayString = "${archive.refresh-interval:PT5M}",
+               initialDelayString = "${archive.refresh-interval:PT5M}")
+    public void refresh() {
+        lock.writeLock().lock();
+        try {
+            ReadReplicaDataSource.onPrimary(this::loadArchivedMonths);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadArchivedMonths() {
+        List<String> tables = readOnlyTemplate.execute(status -> entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> {
+                    List<String> names = new ArrayList<>();
+                    try (ResultSet rows = connection.getMetaData().getTables(null, null, "%", null)) {
+                        while (rows.next()) {
+                            names.add(rows.getString("TABLE_NAME"));
+                        }
+                    }
+                    return names;
+                }));
+        NavigableSet<YearMonth> found = new TreeSet<>();
+        for (String table : tables) {
+            String name = table.toLowerCase(Locale.ROOT);
+            if (name.startsWith(TABLE_PREFIX)) {
+                try {
+                    found.add(YearMonth.parse(name.substring(TABLE_PREFIX.length()), MONTH));
+                } catch (DateTimeParseException e) {
+                    log.warn("Tabla de archivo con nombre no válido: {}", table);
+                }
+            }
+        }
+        LocalDateTime until = null;
+        for (YearMonth month : found.descendingSet()) {
+            Optional<TransactionCursor> last = readOnlyTemplate.execute(status -> latestIn(month, null));
+            if (last.isPresent()) {
+                until = last.get().createdAt();
+                break;
+            }
+        }
+        months.retainAll(found);
+        months.addAll(found);
+        archivedUntil = until;
+    }
+
+    // ===== ARCHIVADO =====
+
+    // Mueve todo lo anterior al horizonte; devuelve cuántas transacciones se han archivado
+    public long archive() {
+        long total = 0;
+        int moved;
+        do {
+            moved = archiveBatch();
+            total += moved;
+        } while (moved == batchSize);
+        refresh();
+        return total;
+    }
+
+    // Mueve un lote de las transacciones más antiguas fuera del horizonte
+    public int archiveBatch() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(horizon);
+        // En el primario: con una réplica atrasada se volverían a leer transacciones ya archivadas
+        List<TransactionCursor> batch = ReadReplicaDataSource.onPrimary(() -> readOnlyTemplate.execute(status ->
+                transactionRepository.findPositionsBefore(cutoff, PageRequest.ofSize(batchSize))));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<YearMonth, List<UUID>> byMonth = new TreeMap<>();
+        List<UUID> ids = new ArrayList<>(batch.size());
+        for (TransactionCursor position : batch) {
+            byMonth.computeIfAbsent(YearMonth.from(position.createdAt()), k -> new ArrayList<>()).add(position.id());
+            ids.add(position.id());
+        }
+        // Fuera de la transacción del lote: algunos motores confirman la transacción en curso con cada DDL
+        byMonth.keySet().forEach(this::createTable);
+
+        lock.writeLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<YearMonth, List<UUID>> month : byMonth.entrySet()) {
+                    entityManager.createNativeQuery("INSERT INTO " + table(month.getKey())
+                                    + " SELECT * FROM transactions WHERE id IN (:ids)")
+                            .setHint(HINT_NATIVE_SPACES, table(month.getKey()))
+                            .setParameter("ids", month.getValue())
+                            .executeUpdate();
+                }
+                // Espacios declarados: sin ellos Hibernate vaciaría toda la caché de segundo nivel
+                entityManager.createNativeQuery("DELETE FROM transactions WHERE id IN (:ids)")
+                        .setHint(HINT_NATIVE_SPACES, "transactions")
+                        .setParameter("ids", ids)
+                        .executeUpdate();
+            });
+            months.addAll(byMonth.keySet());
+            LocalDateTime last = batch.get(batch.size() - 1).createdAt();
+            if (archivedUntil == null || last.isAfter(archivedUntil)) {
+                archivedUntil = last;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        archived.add(batch.size());
+        return batch.size();
+    }
+
+    // ===== CONSULTAS =====
+
+    // Equivalente de TransactionRepository.findByAccountAndCreatedAtBetween
+    public List<Transaction> findByAccountAndCreatedAtBetween(Account account, LocalDateTime start, LocalDateTime end) {
+        return read(() -> {
+            List<Transaction> rows = new ArrayList<>(
+                    transactionRepository.findByAccountAndCreatedAtBetween(account, start, end));
+            for (YearMonth month : archivedMonths(start, end)) {
+                rows.addAll(archiveQuery(month, "WHERE account_id = :accountId "
+                        + "AND created_at BETWEEN :start AND :end")
+                        .setParameter("accountId", account.getId())
+                        .setParameter("start", start)
+                        .setParameter("end", end)
+                        .getResultList());
+            }
+            return rows;
+        });
+    }
+
+    // Equivalente de TransactionRepository.findByAccountOrderByCreatedAtDesc
+    public List<Transaction> findByAccountOrderByCreatedAtDesc(Account account) {
+        return read(() -> {
+            List<Transaction> rows = new ArrayList<>(transactionRepository.findByAccountOrderByCreatedAtDesc(account));
+            for (YearMonth month : archivedMonths(null, null).descendingSet()) {
+                rows.addAll(archiveQuery(month, "WHERE account_id = :accountId ORDER BY created_at DESC")
+                        .setParameter("accountId", account.getId())
+                        .getResultList());
+            }
+            return rows;
+        });
+    }
+
+    // Equivalente de TransactionRepository.findByAccountAndTypeOrderByCreatedAtDesc
+    public List<Transaction> findByAccountAndTypeOrderByCreatedAtDesc(Account account, TransactionType type) {
+        return read(() -> {
+            List<Transaction> rows = new ArrayList<>(
+                    transactionRepository.findByAccountAndTypeOrderByCreatedAtDesc(account, type));
+            for (YearMonth month : archivedMonths(null, null).descendingSet()) {
+                rows.addAll(archiveQuery(month, "WHERE account_id = :accountId AND transaction_type = :type "
+                        + "ORDER BY created_at DESC")
+                        .setParameter("accountId", account.getId())
+                        .setParameter("type", type.name())
+                        .getResultList());
+            }
+            return rows;
+        });
+    }
+
+    // Equivalente de TransactionRepository.findPageAfter: sigue en el archivo si la tabla caliente no llena la página
+    public List<Transaction> findPageAfter(UUID accountId, LocalDateTime createdAt, UUID id, Pageable limit) {
+        return read(() -> {
+            List<Transaction> rows = new ArrayList<>(
+                    transactionRepository.findPageAfter(accountId, createdAt, id, limit));
+            for (YearMonth month : archivedMonths(null, createdAt).descendingSet()) {
+                int remaining = limit.getPageSize() - rows.size();
+                if (remaining <= 0) {
+                    break;
+                }
+                rows.addAll(archiveQuery(month, "WHERE account_id = :accountId AND created_at <= :createdAt "
+                        + "AND (created_at < :createdAt OR id > :id) ORDER BY created_at DESC, id")
+                        .setParameter("accountId", accountId)
+                        .setParameter("createdAt", createdAt)
+                        .setParameter("id", id)
+                        .setMaxResults(remaining)
+                        .getResultList());
+            }
+            return rows;
+        });
+    }
+
+    // Equivalente de TransactionRepository.streamByAccountId (requiere transacción abierta y cerrar el Stream)
+    public Stream<Transaction> streamByAccountId(UUID accountId) {
+        return stream(parts -> {
+            parts.add(transactionRepository.streamByAccountId(accountId));
+            for (YearMonth month : archivedMonths(null, null).descendingSet()) {
+                parts.add(streamArchive(month, "WHERE account_id = :accountId ORDER BY created_at DESC, id",
+                        accountId, null));
+            }
+        });
+    }
+
+    // Equivalente de TransactionRepository.streamAfter: primero el archivo, luego la tabla caliente.
+    // since acota los meses del archivo: ninguna transacción posterior a la secuencia es anterior a él
+    public Stream<Transaction> streamAfter(UUID accountId, long sequence, LocalDateTime since) {
+        return stream(parts -> {
+            for (YearMonth month : sequenceMonths(since)) {
+                parts.add(streamArchive(month, "WHERE account_id = :accountId AND ledger_sequence > :sequence "
+                        + "ORDER BY ledger_sequence", accountId, sequence));
+            }
+            parts.add(transactionRepository.streamAfter(accountId, sequence));
+        });
+    }
+
+    // Equivalente de TransactionRepository.sumNetAmountAfter; since como en streamAfter
+    public BigDecimal sumNetAmountAfter(UUID accountId, long sequence, LocalDateTime since) {
+        return read(() -> {
+            BigDecimal total = transactionRepository.sumNetAmountAfter(accountId, sequence);
+            for (YearMonth month : sequenceMonths(since)) {
+                Object sum = entityManager.createNativeQuery("SELECT COALESCE(SUM(t.amount - COALESCE(t.commission, 0)), 0) "
+                                + "FROM " + table(month) + " t WHERE t.account_id = :accountId "
+                                + "AND t.ledger_sequence > :sequence")
+                        .setParameter("accountId", accountId)
+                        .setParameter("sequence", sequence)
+                        .getSingleResult();
+                total = total.add(sum instanceof BigDecimal decimal ? decimal : new BigDecimal(sum.toString()));
+            }
+            return total;
+        });
+    }
+
+    // Equivalente de TransactionRepository.findLatestLedgerSequence; 0 si la cuenta no tiene ninguna
+    public long findLatestLedgerSequence(UUID accountId) {
+        return read(() -> {
+            Long latest = transactionRepository.findLatestLedgerSequence(accountId);
+            LocalDateTime until = archivedUntil;
+            // Con filas en la tabla caliente, del archivo solo cuenta lo último archivado
+            LocalDateTime from = latest != null && until != null ? until.minus(CLOCK_MARGIN) : null;
+            for (YearMonth month : archivedMonths(from, null)) {
+                Object max = entityManager.createNativeQuery("SELECT MAX(ledger_sequence) FROM " + table(month)
+                                + " WHERE account_id = :accountId")
+                        .setParameter("accountId", accountId)
+                        .getSingleResult();
+                if (max != null && (latest == null || ((Number) max).longValue() > latest)) {
+                    latest = ((Number) max).longValue();
+                }
+            }
+            return latest == null ? 0L : latest;
+        });
+    }
+
+    // ===== ESTADÍSTICAS =====
+
+    public long getArchivedCount() {
+        return archived.sum();
+    }
+
+    public List<YearMonth> getArchivedMonths() {
+        return List.copyOf(months);
+    }
+
+    public Optional<LocalDateTime> getArchivedUntil() {
+        return Optional.ofNullable(archivedUntil);
+    }
+
+    // ===== INTERNOS =====
+
+    // Meses archivados que se solapan con [from, to]; null deja el extremo abierto
+    private NavigableSet<YearMonth> archivedMonths(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime until = archivedUntil;
+        if (until == null || months.isEmpty() || (from != null && from.isAfter(until))) {
+            return Collections.emptyNavigableSet();
+        }
+        YearMonth first = from == null ? months.first() : YearMonth.from(from);
+        YearMonth last = YearMonth.from(to == null || to.isAfter(until) ? until : to);
+        if (first.isAfter(last)) {
+            return Collections.emptyNavigableSet();
+        }
+        return months.subSet(first, true, last, true);
+    }
+
+    // Meses que pueden tener transacciones creadas desde since, con margen por si el reloj retrocedió
+    private NavigableSet<YearMonth> sequenceMonths(LocalDateTime since) {
+        return archivedMonths(since.minus(CLOCK_MARGIN), null);
+    }
+
+    private Optional<TransactionCursor> latestIn(YearMonth month, UUID accountId) {
+        Query query = archiveQuery(month, (accountId == null ? "" : "WHERE account_id = :accountId ")
+                + "ORDER BY created_at DESC, id DESC").setMaxResults(1);
+        if (accountId != null) {
+            query.setParameter("accountId", accountId);
+        }
+        Collection<?> rows = query.getResultList();
+        return rows.stream().map(Transaction.class::cast)
+                .map(row -> new TransactionCursor(row.getCreatedAt(), row.getId()))
+                .findFirst();
+    }
+
+    private Stream<Transaction> streamArchive(YearMonth month, String where, UUID accountId, Long sequence) {
+        Query query = archiveQuery(month, where)
+                .setHint(HINT_FETCH_SIZE, 500)
+                .setParameter("accountId", accountId);
+        if (sequence != null) {
+            query.setParameter("sequence", sequence);
+        }
+        @SuppressWarnings("unchecked")
+        Stream<Transaction> rows = query.getResultStream();
+        return rows;
+    }
+
+    private Query archiveQuery(YearMonth month, String where) {
+        return entityManager.createNativeQuery("SELECT * FROM " + table(month) + " " + where, Transaction.class)
+                .setHint(HINT_READ_ONLY, true);
+    }
+
+    private void createTable(YearMonth month) {
+        if (months.contains(month)) {
+            return;
+        }
+        String table = table(month);
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("CREATE TABLE IF NOT EXISTS " + table
+                    + " AS SELECT * FROM transactions WHERE 1 = 0")
+                    .setHint(HINT_NATIVE_SPACES, table).executeUpdate();
+            entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS " + table + "_account ON " + table
+                    + " (account_id, created_at DESC, id)")
+                    .setHint(HINT_NATIVE_SPACES, table).executeUpdate();
+            entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS " + table + "_account_sequence ON "
+                    + table + " (account_id, ledger_sequence)")
+                    .setHint(HINT_NATIVE_SPACES, table).executeUpdate();
+        });
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lanza todas las consultas con el cerrojo de lectura y las recorre, en orden, ya sin él
+    private Stream<Transaction> stream(Consumer<List<Stream<Transaction>>> queries) {
+        List<Stream<Transaction>> parts = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            queries.accept(parts);
+        } catch (RuntimeException e) {
+            parts.forEach(Stream::close);
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // concat y no flatMap: recorrido con iterator(), flatMap carga cada parte entera en memoria.
+        // Cerrar el Stream cierra todas las partes
+        return parts.stream().reduce(Stream.empty(), Stream::concat);
+    }
+
+    static String table(YearMonth month) {
+        return TABLE_PREFIX + MONTH.format(month);
+    }
+}
@@ -0,0 +1,33 @@
+package service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Mueve cada {@code archive.interval} a las tablas de archivo las
+ * transacciones anteriores a {@code archive.horizon}.
+ */
+@Service
+@ConditionalOnProperty(name = "archive.enabled", havingValue = "true")
+public class TransactionArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    private final TransactionArchive transactionArchive;
+
+    public TransactionArchiver(TransactionArchive transactionArchive) {
+        this.transactionArchive = transactionArchive;
+    }
+
+    @Scheduled(fixedDelayString = "${archive.interval:PT1H}",
+               initialDelayString = "${archive.interval:PT1H}")
+    public void archive() {
+        long archived = transactionArchive.archive();
+        if (archived > 0) {
+            log.info("Transacciones archivadas: {}", archived);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import dto.CursorPage;
+import dto.TransactionCursor;
+import entities.Transaction;
+
+/**
+ * Historial de movimientos de una cuenta paginado por cursor.
+ *
+ * Cada página busca a partir de la posición (created_at, id) de la última
+ * transacción devuelta en lugar de saltar filas con OFFSET, de modo que el
+ * coste no depende de la profundidad de la página.
+ */
+@Service
+public class TransactionHistoryService {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // Posición anterior a cualquier transacción: la primera página usa la misma búsqueda por rango
+    private static final TransactionCursor START = new TransactionCursor(
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59), new UUID(0, 0));
+
+    private final TransactionArchive transactionArchive;
+
+    public TransactionHistoryService(TransactionArchive transactionArchive) {
+        this.transactionArchive = transactionArchive;
+    }
+
+    // cursor null para la primera página
+    @Transactional(readOnly = true)
+    public CursorPage<Transaction> getHistory(UUID accountId, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Tamaño de página fuera de rango: " + size);
+        }
+        // Se pide una fila de más para saber si existe página siguiente
+        Pageable limit = PageRequest.ofSize(size + 1);
+        TransactionCursor position = cursor == null ? START : TransactionCursor.decode(cursor);
+        List<Transaction> rows = transactionArchive.findPageAfter(
+                accountId, position.createdAt(), position.id(), limit);
+
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Transaction> items = rows.subList(0, size);
+        Transaction last = items.get(size - 1);
+        return new CursorPage<>(List.copyOf(items),
+                new TransactionCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+}
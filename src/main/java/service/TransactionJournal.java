@@ -0,0 +1,487 @@
+package service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import entities.Account;
+import entities.Card;
+import entities.Money;
+import entities.Transaction;
+import entities.TransactionCreatedEvent;
+import enumerado.TransactionType;
+import jakarta.persistence.EntityManager;
+import repository.TransactionRepository;
+
+/**
+ * Journal de escritura anticipada para las altas de transacciones
+ * ({@code journal.enabled=true}).
+ *
+ * {@link #append} escribe la transacción en un {@link JournalFile} y vuelve
+ * en cuanto el registro está en disco: los hilos que llegan mientras otro
+ * sincroniza comparten su sync. Un hilo de fondo inserta después las
+ * transacciones en lotes de hasta {@code journal.batch-size}, una sola
+ * transacción de base de datos por lote, y avanza la posición confirmada
+ * del journal tras cada commit.
+ *
+ * Al arrancar se insertan los registros posteriores a esa posición que no
+ * llegaron a la base de datos; la referencia de la transacción hace que el
+ * replay sea idempotente si el commit se produjo pero el checkpoint no.
+ *
+ * Un lote que falla {@code journal.max-attempts} veces se inserta registro a
+ * registro. Mientras la base de datos no esté disponible se reintenta sin
+ * límite; un registro que sigue fallando por sí mismo (por ejemplo, porque
+ * su cuenta ya no existe) se aparta al fichero de descartes
+ * ({@code journal.path} + {@code .dead}) con un error en el log, para que no
+ * bloquee al resto.
+ *
+ * Solo lo usa el modo libro mayor. Las demás escrituras de la operación
+ * (clave de idempotencia, retención cobrada) siguen yendo a la base de datos
+ * en la transacción del movimiento: {@link LedgerService} las vuelca y llama
+ * a {@link #append} antes del commit, de modo que si el journal falla se
+ * deshacen con él. Queda abierto solo el fallo del propio commit tras la
+ * escritura en el journal, que dejaría el alta sin esas filas. Hasta que el
+ * lote se inserta, la fila no aparece en las consultas a la base de datos;
+ * {@link #awaitFlushed()} espera a que lo haga.
+ */
+@Service
+@ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+public class TransactionJournal implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionJournal.class);
+
+    // 2: añade la secuencia del libro mayor; los registros de la versión 1 se siguen leyendo
+    private static final int FORMAT_VERSION = 2;
+
+    private final JournalFile file;
+    private final Path deadLetterPath;
+    private final EntityManager entityManager;
+    private final TransactionRepository transactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final LongAdder deadLettered = new LongAdder();
+
+    // Orden de escritura en el fichero igual al de la cola; también avisa de los resets
+    private final Object appendLock = new Object();
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    // Altas escritas y altas insertadas, en número de registros
+    private long appended;
+    private final Object flushMonitor = new Object();
+    private long flushed;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public TransactionJournal(@Value("${journal.path:journal/transactions.journal}") Path path,
+                              @Value("${journal.size:64MB}") DataSize size,
+                              @Value("${journal.batch-size:500}") int batchSize,
+                              @Value("${journal.flush-interval:10ms}") Duration flushInterval,
+                              @Value("${journal.max-attempts:3}") int maxAttempts,
+                              @Value("${journal.retry-delay:1s}") Duration retryDelay,
+                              EntityManager entityManager,
+                              TransactionRepository transactionRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("El lote del journal debe tener al menos una transacción");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("El journal debe intentar cada inserción al menos una vez");
+        }
+        this.file = new JournalFile(path, Math.toIntExact(size.toBytes()));
+        this.deadLetterPath = path.resolveSibling(path.getFileName() + ".dead");
+        this.entityManager = entityManager;
+        this.transactionRepository = transactionRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+    }
+
+    // ===== ALTAS =====
+
+    // Vuelve cuando la transacción es durable en el journal; se inserta en la base de datos después
+    public Transaction append(Transaction transaction) {
+        byte[] data = encode(transaction);
+        int position;
+        synchronized (appendLock) {
+            while ((position = file.append(data)) < 0) {
+                // Journal lleno: el hilo de inserción lo vacía cuando confirma lo pendiente
+                waitForReset();
+            }
+            appended++;
+            queue.add(new Entry(data, position, appended));
+        }
+        file.awaitDurable(position);
+        eventPublisher.publishEvent(new TransactionCreatedEvent(transaction));
+        return transaction;
+    }
+
+    // Espera a que todo lo escrito en el journal hasta ahora esté en la base de datos
+    public void awaitFlushed() {
+        long target;
+        synchronized (appendLock) {
+            target = appended;
+        }
+        synchronized (flushMonitor) {
+            while (flushed < target) {
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Espera del journal interrumpida", e);
+                }
+            }
+        }
+    }
+
+    // Altas durables en el journal que aún no están en la base de datos
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    // Registros apartados al fichero de descartes desde el arranque
+    public long getDeadLetteredCount() {
+        return deadLettered.sum();
+    }
+
+    // ===== CICLO DE VIDA =====
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int recovered = replay();
+        if (recovered > 0) {
+            log.info("Journal: {} transacciones recuperadas", recovered);
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "transaction-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join();
+        }
+        file.close();
+    }
+
+    // Inserta los registros sin confirmar que no estén ya en la base de datos y vacía el journal
+    int replay() {
+        List<byte[]> records = file.readUnconfirmed();
+        int recovered = 0;
+        try {
+            for (int from = 0; from < records.size(); from += batchSize) {
+                recovered += insert(records.subList(from, Math.min(from + batchSize, records.size())), true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recuperación del journal interrumpida", e);
+        }
+        file.checkpoint(file.getWrittenPosition());
+        file.reset();
+        return recovered;
+    }
+
+    // ===== INSERCIÓN EN SEGUNDO PLANO =====
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Entry> batch) throws InterruptedException {
+        insert(batch.stream().map(Entry::data).toList(), false);
+        Entry last = batch.get(batch.size() - 1);
+        synchronized (appendLock) {
+            file.checkpoint(last.position());
+            if (queue.isEmpty() && file.getWrittenPosition() > file.getCapacity() / 2) {
+                // Todo lo escrito está insertado: se vuelve al principio del fichero
+                file.reset();
+                appendLock.notifyAll();
+            }
+        }
+        synchronized (flushMonitor) {
+            flushed = last.sequence();
+            flushMonitor.notifyAll();
+        }
+    }
+
+    // Devuelve cuántas transacciones se han insertado
+    private int insert(List<byte[]> records, boolean mayExist) throws InterruptedException {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            // Tras un fallo el commit pudo llegar a aplicarse: solo las que falten
+            boolean onlyMissing = mayExist || attempt > 1;
+            try {
+                return transactionTemplate.execute(status -> onlyMissing
+                        ? persistMissing(records) : persistAll(records));
+            } catch (RuntimeException e) {
+                log.warn("Journal: fallo al insertar un lote de {} transacciones (intento {} de {})",
+                        records.size(), attempt, maxAttempts, e);
+                Thread.sleep(retryDelay.toMillis());
+            }
+        }
+        int inserted = 0;
+        for (byte[] record : records) {
+            inserted += insertOne(record);
+        }
+        return inserted;
+    }
+
+    private int insertOne(byte[] record) throws InterruptedException {
+        int failures = 0;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> persistMissing(List.of(record)));
+            } catch (RuntimeException e) {
+                failures++;
+                if (isDatabaseUnavailable(e)) {
+                    // El registro no tiene la culpa: se espera a la base de datos sin límite
+                    log.warn("Journal: base de datos no disponible, se reintenta la transacción {}",
+                            referenceOf(record), e);
+                } else if (failures >= maxAttempts && deadLetter(record, e)) {
+                    return 0;
+                }
+                Thread.sleep(retryDelay.toMillis());
+            }
+        }
+    }
+
+    // Aparta el registro al fichero de descartes; false si no se ha podido escribir
+    private boolean deadLetter(byte[] record, RuntimeException cause) {
+        try (FileChannel channel = FileChannel.open(deadLetterPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length).putInt(record.length).put(record);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Journal: no se pudo apartar la transacción {} a {}, se reintenta",
+                    referenceOf(record), deadLetterPath, e);
+            return false;
+        }
+        deadLettered.increment();
+        log.error("Journal: la transacción {} no se puede insertar tras {} intentos y se aparta a {}",
+                referenceOf(record), maxAttempts, deadLetterPath, cause);
+        return true;
+    }
+
+    private static boolean isDatabaseUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // El alta ya se publicó en append(): el flush no debe volver a publicarla
+    private int persistAll(List<byte[]> records) {
+        return EntityEventPublisher.withoutEvents(() -> {
+            for (byte[] record : records) {
+                entityManager.persist(decode(record));
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return records.size();
+        });
+    }
+
+    private int persistMissing(List<byte[]> records) {
+        List<Transaction> transactions = records.stream().map(this::decode).toList();
+        Set<String> existing = new HashSet<>(transactionRepository.findExistingReferences(
+                transactions.stream().map(Transaction::getTransactionReference).toList()));
+        return EntityEventPublisher.withoutEvents(() -> {
+            int persisted = 0;
+            for (Transaction transaction : transactions) {
+                if (!existing.contains(transaction.getTransactionReference())) {
+                    entityManager.persist(transaction);
+                    persisted++;
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return persisted;
+        });
+    }
+
+    private void waitForReset() {
+        try {
+            appendLock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera del journal interrumpida", e);
+        }
+    }
+
+    // ===== FORMATO DEL REGISTRO =====
+
+    static byte[] encode(Transaction transaction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(transaction.getTransactionReference());
+            writeUuid(out, transaction.getAccount().getId());
+            writeUuid(out, transaction.getCard() != null ? transaction.getCard().getId() : null);
+            out.writeUTF(transaction.getType().name());
+            out.writeLong(transaction.getAmount().cents());
+            out.writeLong(transaction.getBalanceAfter().cents());
+            out.writeLong(transaction.getCommission().cents());
+            out.writeBoolean(transaction.isExternalAtm());
+            LocalDateTime createdAt = transaction.getCreatedAt();
+            out.writeLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(createdAt.getNano());
+            writeString(out, transaction.getStatus());
+            writeString(out, transaction.getDescription());
+            writeString(out, transaction.getDestinationIban());
+            writeString(out, transaction.getDestinationName());
+            writeString(out, transaction.getAtmId());
+            writeString(out, transaction.getAtmLocation());
+            out.writeBoolean(transaction.getLedgerSequence() != null);
+            if (transaction.getLedgerSequence() != null) {
+                out.writeLong(transaction.getLedgerSequence());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Referencia de la transacción, sin decodificar el resto del registro
+    static String referenceOf(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            in.readUnsignedByte();
+            return in.readUTF();
+        } catch (IOException e) {
+            return "ilegible";
+        }
+    }
+
+    // Requiere transacción abierta: la cuenta y la tarjeta son referencias sin cargar
+    private Transaction decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IllegalStateException("Versión de registro de journal desconocida: " + version);
+            }
+            Transaction transaction = new Transaction();
+            transaction.setTransactionReference(in.readUTF());
+            transaction.setAccount(entityManager.getReference(Account.class, readUuid(in)));
+            UUID cardId = readUuid(in);
+            transaction.setCard(cardId != null ? entityManager.getReference(Card.class, cardId) : null);
+            transaction.setType(TransactionType.valueOf(in.readUTF()));
+            transaction.setAmount(Money.ofCents(in.readLong()));
+            transaction.setBalanceAfter(Money.ofCents(in.readLong()));
+            transaction.setCommission(Money.ofCents(in.readLong()));
+            transaction.setExternalAtm(in.readBoolean());
+            transaction.setCreatedAt(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+            transaction.setStatus(readString(in));
+            transaction.setDescription(readString(in));
+            transaction.setDestinationIban(readString(in));
+            transaction.setDestinationName(readString(in));
+            transaction.setAtmId(readString(in));
+            transaction.setAtmLocation(readString(in));
+            if (version >= 2 && in.readBoolean()) {
+                transaction.setLedgerSequence(in.readLong());
+            }
+            return transaction;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private record Entry(byte[] data, int position, long sequence) {
+    }
+}
@@ -0,0 +1,23 @@
+package service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import entities.TransactionReferenceGenerator;
+
+/**
+ * Registra el generador de referencias con el identificador de nodo de esta
+ * instancia. Cada instancia desplegada debe tener un nodo distinto (0-1023).
+ */
+@Configuration
+public class TransactionReferenceConfiguration {
+
+    @Bean
+    public TransactionReferenceGenerator transactionReferenceGenerator(
+            @Value("${transaction.reference.node-id:0}") int nodeId) {
+        TransactionReferenceGenerator generator = new TransactionReferenceGenerator(nodeId);
+        TransactionReferenceGenerator.setDefault(generator);
+        return generator;
+    }
+}
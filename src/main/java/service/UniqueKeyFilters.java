@@ -0,0 +1,246 @@
+package service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.CustomerUniqueKeys;
+import entities.Card;
+import entities.Customer;
+import jakarta.persistence.EntityManagerFactory;
+import repository.CardRepository;
+import repository.CustomerRepository;
+
+/**
+ * Comprobaciones de unicidad del alta de clientes y tarjetas con un
+ * {@link CountingBloomFilter} delante de cada {@code existsBy*}.
+ *
+ * Casi todas las claves de un alta son nuevas: si el filtro dice que no
+ * está, la respuesta es false sin ir a la base de datos; solo un "quizá"
+ * lanza la consulta. Los filtros se cargan al arrancar recorriendo las
+ * claves en streaming y se mantienen con eventos de Hibernate, que también
+ * ven las altas en cascada:
+ * <ul>
+ *   <li>las claves insertadas o modificadas se añaden al ejecutar la
+ *       sentencia, antes del commit; si la transacción se deshace quedan
+ *       como falso positivo;</li>
+ *   <li>las borradas se quitan después del commit.</li>
+ * </ul>
+ * Las sentencias masivas (JPQL o SQL nativo) no pasan por los eventos: una
+ * clave insertada así no se vería hasta el siguiente arranque. Mientras la
+ * carga no ha terminado, todas las comprobaciones van a la base de datos.
+ *
+ * Cada filtro ocupa unos 4,8 bytes por clave prevista con un 1 % de falsos
+ * positivos ({@code unique-keys.expected-keys}).
+ */
+@Service
+public class UniqueKeyFilters {
+
+    private static final Logger log = LoggerFactory.getLogger(UniqueKeyFilters.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final CustomerRepository customerRepository;
+    private final CardRepository cardRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate readOnlyTemplate;
+
+    private final CountingBloomFilter customerNumbers;
+    private final CountingBloomFilter emails;
+    private final CountingBloomFilter documentNumbers;
+    private final CountingBloomFilter cardNumbers;
+
+    private volatile boolean ready;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder savedQueries = new LongAdder();
+
+    public UniqueKeyFilters(CustomerRepository customerRepository,
+                            CardRepository cardRepository,
+                            EntityManagerFactory entityManagerFactory,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${unique-keys.expected-keys:1000000}") long expectedKeys) {
+        this.customerRepository = customerRepository;
+        this.cardRepository = cardRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.customerNumbers = new CountingBloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        this.emails = new CountingBloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        this.documentNumbers = new CountingBloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        this.cardNumbers = new CountingBloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        registerListeners();
+    }
+
+    // Equivalentes filtrados de CustomerRepository.existsBy* y CardRepository.existsByCardNumber
+    public boolean existsByCustomerNumber(String customerNumber) {
+        return exists(customerNumbers, customerNumber, customerRepository::existsByCustomerNumber);
+    }
+
+    public boolean existsByEmail(String email) {
+        return exists(emails, email, customerRepository::existsByEmail);
+    }
+
+    public boolean existsByDocumentNumber(String documentNumber) {
+        return exists(documentNumbers, documentNumber, customerRepository::existsByDocumentNumber);
+    }
+
+    public boolean existsByCardNumber(String cardNumber) {
+        return exists(cardNumbers, cardNumber, cardRepository::existsByCardNumber);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // En el primario: una clave que faltara en el filtro daría por libre un valor ya usado
+        ReadReplicaDataSource.onPrimary(() -> readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<CustomerUniqueKeys> keys = customerRepository.streamUniqueKeys()) {
+                keys.forEach(key -> {
+                    add(customerNumbers, key.customerNumber());
+                    add(emails, key.email());
+                    add(documentNumbers, key.documentNumber());
+                });
+            }
+            try (Stream<String> keys = cardRepository.streamCardNumbers()) {
+                keys.forEach(cardNumbers::add);
+            }
+        }));
+        ready = true;
+        log.info("Filtros de claves únicas cargados: {} MB", getMemoryBytes() / (1024 * 1024));
+    }
+
+    // ===== ESTADÍSTICAS =====
+
+    // Comprobaciones que han llegado a la base de datos
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    // Comprobaciones resueltas por el filtro sin consulta
+    public long getSavedQueryCount() {
+        return savedQueries.sum();
+    }
+
+    public long getMemoryBytes() {
+        return customerNumbers.getMemoryBytes() + emails.getMemoryBytes()
+                + documentNumbers.getMemoryBytes() + cardNumbers.getMemoryBytes();
+    }
+
+    // ===== INTERNOS =====
+
+    private boolean exists(CountingBloomFilter filter, String value, Predicate<String> query) {
+        if (ready && value != null && !filter.mightContain(value)) {
+            savedQueries.increment();
+            return false;
+        }
+        queries.increment();
+        return query.test(value);
+    }
+
+    private void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        KeyListener listener = new KeyListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    private void keysChanged(Object entity, Set<String> properties, boolean removed) {
+        if (entity instanceof Customer customer) {
+            if (properties == null || properties.contains("customerNumber")) {
+                update(customerNumbers, customer.getCustomerNumber(), removed);
+            }
+            if (properties == null || properties.contains("email")) {
+                update(emails, customer.getEmail(), removed);
+            }
+            if (properties == null || properties.contains("documentNumber")) {
+                update(documentNumbers, customer.getDocumentNumber(), removed);
+            }
+        } else if (entity instanceof Card card) {
+            if (properties == null || properties.contains("cardNumber")) {
+                update(cardNumbers, card.getCardNumber(), removed);
+            }
+        }
+    }
+
+    private void update(CountingBloomFilter filter, String value, boolean removed) {
+        if (!removed) {
+            add(filter, value);
+        } else if (ready && value != null) {
+            // Antes de la carga la clave puede no estar añadida aún: se deja como falso positivo
+            filter.remove(value);
+        }
+    }
+
+    private static void add(CountingBloomFilter filter, String value) {
+        if (value != null) {
+            filter.add(value);
+        }
+    }
+
+    private class KeyListener implements PostInsertEventListener, PostUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            keysChanged(event.getEntity(), null, false);
+        }
+
+        // Solo se añaden las claves modificadas; la anterior se queda como falso positivo
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            int[] dirty = event.getDirtyProperties();
+            Set<String> properties = null;
+            if (dirty != null) {
+                String[] names = event.getPersister().getPropertyNames();
+                properties = new HashSet<>();
+                for (int index : dirty) {
+                    properties.add(names[index]);
+                }
+            }
+            keysChanged(event.getEntity(), properties, false);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            keysChanged(event.getEntity(), null, true);
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            Class<?> type = persister.getMappedClass();
+            return Customer.class.isAssignableFrom(type) || Card.class.isAssignableFrom(type);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.CardAuthorization;
+import dto.WithdrawalActivity;
+import entities.Money;
+import entities.Transaction;
+import entities.TransactionCreatedEvent;
+import enumerado.VelocityWindow;
+import repository.TransactionRepository;
+
+/**
+ * Control de velocidad de retiros en memoria.
+ *
+ * Por cada tarjeta y cada cuenta con retiros en las últimas 24 h mantiene
+ * número e importe en ventanas deslizantes de 1 min, 10 min y 24 h
+ * ({@link SlidingWindowCounter}, 80 cubetas en total: unos 4 KB como mucho
+ * por tarjeta o cuenta). Se alimenta de {@link TransactionCreatedEvent} y
+ * descuenta los retiros cuya transacción hace rollback
+ * ({@link WithdrawalCounters}).
+ *
+ * Las retenciones abiertas ({@link HoldService}) cuentan como retiros hechos
+ * ahora, en todas las ventanas, hasta que se cobran, se liberan o caducan:
+ * si no, varias retenciones seguidas esquivarían las reglas y el cobro, con
+ * el efectivo ya entregado, no se puede denegar. Entre el alta del retiro y
+ * el commit del cobro la retención cuenta dos veces, con el cerrojo de la
+ * cuenta tomado.
+ *
+ * Antes de aprobar un retiro se evalúan las reglas de {@code velocity.rules}
+ * ({@link VelocityRule}) sin acceder a la base de datos. Sin reglas solo se
+ * cuenta. Al arrancar se reconstruyen las ventanas con los retiros de las
+ * últimas 24 h y cada {@code velocity.sweep-interval} se olvidan las
+ * tarjetas y cuentas sin retiros en ese plazo.
+ */
+@Service
+public class VelocityEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityEngine.class);
+
+    private static final VelocityWindow[] WINDOWS = VelocityWindow.values();
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate readOnlyTemplate;
+    private final List<VelocityRule> rules;
+    private final Clock clock;
+
+    private final WithdrawalCounters<Tracker> trackers = new WithdrawalCounters<>(VelocityEngine::add);
+    private final ConcurrentMap<UUID, Held> heldByCard = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Held> heldByAccount = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public VelocityEngine(TransactionRepository transactionRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${velocity.rules:}") List<String> rules) {
+        this(transactionRepository, transactionManager, rules.stream().map(VelocityRule::parse).toList(),
+                Clock.systemDefaultZone());
+    }
+
+    public VelocityEngine(TransactionRepository transactionRepository,
+                          PlatformTransactionManager transactionManager,
+                          List<VelocityRule> rules,
+                          Clock clock) {
+        this.transactionRepository = transactionRepository;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.rules = List.copyOf(rules);
+        this.clock = clock;
+    }
+
+    // ===== CONSULTAS =====
+
+    // Primera regla que incumpliría el retiro; sin acceso a base de datos
+    public Optional<VelocityRule> check(UUID accountId, UUID cardId, Money amount) {
+        if (rules.isEmpty()) {
+            return Optional.empty();
+        }
+        long now = clock.millis();
+        Tracker card = trackers.card(cardId);
+        Tracker account = trackers.account(accountId);
+        Held cardHeld = cardId != null ? heldByCard.getOrDefault(cardId, Held.NONE) : Held.NONE;
+        Held accountHeld = heldByAccount.getOrDefault(accountId, Held.NONE);
+        for (VelocityRule rule : rules) {
+            boolean byCard = rule.scope() == VelocityRule.Scope.CARD;
+            Tracker tracker = byCard ? card : account;
+            Held held = byCard ? cardHeld : accountHeld;
+            if (rule.isExceeded(tracker != null ? tracker.window(rule.window()) : null, now, amount,
+                    held.count(), held.cents())) {
+                return Optional.of(rule);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void requireAllowed(CardAuthorization card, Money amount) {
+        check(card.accountId(), card.cardId(), amount).ifPresent(rule -> {
+            rejected.increment();
+            log.warn("Retiro de {} denegado a la tarjeta {} por la regla de velocidad {}",
+                    amount, card.cardId(), rule);
+            // El motivo no se devuelve al cajero
+            throw new IllegalArgumentException("Operación denegada por el control de fraude");
+        });
+    }
+
+    public long getCardCount(UUID cardId, VelocityWindow window) {
+        Tracker tracker = trackers.card(cardId);
+        return tracker == null ? 0 : tracker.window(window).count(clock.millis());
+    }
+
+    public Money getCardAmount(UUID cardId, VelocityWindow window) {
+        Tracker tracker = trackers.card(cardId);
+        return tracker == null ? Money.ZERO : Money.ofCents(tracker.window(window).cents(clock.millis()));
+    }
+
+    public long getAccountCount(UUID accountId, VelocityWindow window) {
+        Tracker tracker = trackers.account(accountId);
+        return tracker == null ? 0 : tracker.window(window).count(clock.millis());
+    }
+
+    public Money getAccountAmount(UUID accountId, VelocityWindow window) {
+        Tracker tracker = trackers.account(accountId);
+        return tracker == null ? Money.ZERO : Money.ofCents(tracker.window(window).cents(clock.millis()));
+    }
+
+    public List<VelocityRule> getRules() {
+        return rules;
+    }
+
+    public int getTrackedCards() {
+        return trackers.getCardCount();
+    }
+
+    public int getTrackedAccounts() {
+        return trackers.getAccountCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    // ===== ACTUALIZACIÓN =====
+
+    @EventListener
+    public void onTransactionCreated(TransactionCreatedEvent event) {
+        registerWithdrawal(event.transaction());
+    }
+
+    public void registerWithdrawal(Transaction transaction) {
+        trackers.register(transaction, clock.millis());
+    }
+
+    // Retención abierta de amount: cuenta como un retiro hasta holdClosed
+    public void holdOpened(UUID accountId, UUID cardId, Money amount) {
+        addHeld(heldByAccount, accountId, 1, amount.cents());
+        addHeld(heldByCard, cardId, 1, amount.cents());
+    }
+
+    public void holdClosed(UUID accountId, UUID cardId, Money amount) {
+        addHeld(heldByAccount, accountId, -1, -amount.cents());
+        addHeld(heldByCard, cardId, -1, -amount.cents());
+    }
+
+    // Reconstruye las ventanas a partir de los retiros de las últimas 24 h
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime since = LocalDateTime.now(clock).minus(VelocityWindow.ONE_DAY.getLength());
+        trackers.rebuild(loader -> loadSince(since, loader));
+        log.info("Control de velocidad: {} tarjetas y {} cuentas con retiros en 24 h, {} reglas",
+                trackers.getCardCount(), trackers.getAccountCount(), rules.size());
+    }
+
+    // Olvida tarjetas y cuentas sin retiros en la ventana más larga
+    @Scheduled(fixedDelayString = "${velocity.sweep-interval:PT10M}",
+               initialDelayString = "${velocity.sweep-interval:PT10M}")
+    public void sweep() {
+        long now = clock.millis();
+        trackers.sweep(tracker -> tracker.isIdle(now));
+    }
+
+    // ===== INTERNOS =====
+
+    private void loadSince(LocalDateTime since, WithdrawalCounters.Loader loader) {
+        // En el primario: con una réplica atrasada faltarían los últimos retiros
+        ReadReplicaDataSource.onPrimary(() -> readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<WithdrawalActivity> withdrawals = transactionRepository.streamWithdrawalActivitySince(since)) {
+                withdrawals.forEach(withdrawal -> loader.add(withdrawal.accountId(), withdrawal.cardId(),
+                        withdrawal.createdAt().atZone(clock.getZone()).toInstant().toEpochMilli(), 1,
+                        withdrawal.amount().abs().cents()));
+            }
+        }));
+    }
+
+    private static Tracker add(Tracker tracker, long at, long count, long cents) {
+        if (tracker == null) {
+            tracker = new Tracker();
+        }
+        tracker.add(at, count, cents);
+        return tracker;
+    }
+
+    private static void addHeld(ConcurrentMap<UUID, Held> held, UUID key, long count, long cents) {
+        if (key == null) {
+            return;
+        }
+        held.compute(key, (k, current) -> {
+            Held updated = current == null ? new Held(count, cents)
+                    : new Held(current.count() + count, current.cents() + cents);
+            return updated.count() > 0 ? updated : null;
+        });
+    }
+
+    // Número e importe de las retenciones abiertas
+    private record Held(long count, long cents) {
+        private static final Held NONE = new Held(0, 0);
+    }
+
+    private static final class Tracker {
+
+        private final SlidingWindowCounter[] windows = new SlidingWindowCounter[WINDOWS.length];
+
+        private Tracker() {
+            for (VelocityWindow window : WINDOWS) {
+                windows[window.ordinal()] = new SlidingWindowCounter(window.getLength(), window.getBuckets());
+            }
+        }
+
+        private SlidingWindowCounter window(VelocityWindow window) {
+            return windows[window.ordinal()];
+        }
+
+        private void add(long at, long count, long cents) {
+            for (SlidingWindowCounter window : windows) {
+                window.add(at, count, cents);
+            }
+        }
+
+        private boolean isIdle(long now) {
+            return window(VelocityWindow.ONE_DAY).isIdle(now);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package service;
+
+import java.util.Locale;
+
+import entities.Money;
+import enumerado.VelocityWindow;
+
+/**
+ * Regla de velocidad: como mucho {@code limit} retiros (o céntimos) por
+ * tarjeta o por cuenta en una ventana, contando el retiro que se evalúa y
+ * las retenciones abiertas.
+ * Se escribe como {@code ámbito:ventana:medida:límite}, por ejemplo
+ * {@code card:1m:count:3} o {@code account:24h:amount:2000.00}.
+ */
+public record VelocityRule(Scope scope, VelocityWindow window, Metric metric, long limit) {
+
+    public enum Scope { CARD, ACCOUNT }
+
+    public enum Metric { COUNT, AMOUNT }
+
+    public VelocityRule {
+        if (limit < 0) {
+            throw new IllegalArgumentException("El límite de una regla de velocidad no puede ser negativo");
+        }
+    }
+
+    public static VelocityRule parse(String text) {
+        String[] parts = text.trim().split(":");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Regla de velocidad no válida: " + text);
+        }
+        try {
+            Scope scope = Scope.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+            VelocityWindow window = VelocityWindow.fromLabel(parts[1].trim());
+            Metric metric = Metric.valueOf(parts[2].trim().toUpperCase(Locale.ROOT));
+            long limit = metric == Metric.COUNT
+                    ? Long.parseLong(parts[3].trim())
+                    : Money.of(parts[3].trim()).cents();
+            return new VelocityRule(scope, window, metric, limit);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new IllegalArgumentException("Regla de velocidad no válida: " + text, e);
+        }
+    }
+
+    // Si el retiro de amount, sumado a lo que ya hay en la ventana y a lo retenido, supera el límite
+    boolean isExceeded(SlidingWindowCounter counter, long nowMillis, Money amount, long heldCount, long heldCents) {
+        if (metric == Metric.COUNT) {
+            long count = counter == null ? 0 : counter.count(nowMillis);
+            return count + heldCount + 1 > limit;
+        }
+        long cents = counter == null ? 0 : counter.cents(nowMillis);
+        return cents + heldCents + amount.cents() > limit;
+    }
+
+    @Override
+    public String toString() {
+        String value = metric == Metric.COUNT ? String.valueOf(limit) : Money.ofCents(limit).toString();
+        return scope.name().toLowerCase(Locale.ROOT) + ":" + window.getLabel() + ":"
+                + metric.name().toLowerCase(Locale.ROOT) + ":" + value;
+    }
+}
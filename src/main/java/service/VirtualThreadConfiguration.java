@@ -0,0 +1,36 @@
+package service;
+
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Atiende las peticiones HTTP en hilos virtuales con
+ * {@code server.virtual-threads.enabled=true}. Si la JVM no los soporta se
+ * mantiene el pool de hilos de Tomcat. El acceso a base de datos queda
+ * acotado por {@link ConnectionPoolLimiter}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            ExecutorService executor = VirtualThreads.newPerTaskExecutor().orElse(null);
+            if (executor == null) {
+                log.warn("La JVM {} no soporta hilos virtuales; se usa el pool de Tomcat",
+                        Runtime.version());
+                return;
+            }
+            protocolHandler.setExecutor(executor);
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package service;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Acceso a los hilos virtuales sin depender de la versión de compilación.
+ *
+ * El proyecto compila con Java 17, donde {@code Executors} no tiene
+ * {@code newVirtualThreadPerTaskExecutor}; el método se busca por reflexión
+ * y solo está disponible al ejecutar sobre Java 21 o posterior.
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_PER_TASK_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    // Un hilo virtual nuevo por tarea; vacío si la JVM no los soporta
+    public static Optional<ExecutorService> newPerTaskExecutor() {
+        if (NEW_PER_TASK_EXECUTOR == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of((ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo crear el ejecutor de hilos virtuales", e);
+        }
+    }
+
+    private static Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
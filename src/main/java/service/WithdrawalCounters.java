@@ -0,0 +1,163 @@
+package service;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import entities.Transaction;
+
+/**
+ * Contadores de retiros en memoria por cuenta y por tarjeta, comunes a
+ * {@link DailyWithdrawalAccumulator} y {@link VelocityEngine}. Cada uno
+ * decide qué guarda por clave ({@code C}) y cómo suma un retiro
+ * ({@link Update}); aquí se resuelve la concurrencia:
+ * <ul>
+ *   <li>cada suma se hace dentro de {@code compute}, así que una limpieza
+ *       no descarta un contador que se está actualizando;</li>
+ *   <li>un retiro registrado dentro de una transacción que hace rollback
+ *       se descuenta de los mismos mapas a los que se sumó;</li>
+ *   <li>la reconstrucción llena mapas nuevos y los sustituye de una vez,
+ *       sin dejar a la vista contadores vacíos o a medias;</li>
+ *   <li>los retiros que llegan durante la reconstrucción esperan a que
+ *       termine y se suman a los mapas nuevos. Su fila aún no está
+ *       confirmada, así que la carga no la ha contado.</li>
+ * </ul>
+ */
+public final class WithdrawalCounters<C> {
+
+    private final Update<C> update;
+    private volatile Counters<C> counters = new Counters<>();
+    // Lectura: registro de un retiro; escritura: reconstrucción
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public WithdrawalCounters(Update<C> update) {
+        this.update = update;
+    }
+
+    // ===== CONSULTAS =====
+
+    public C account(UUID accountId) {
+        return counters.accounts().get(accountId);
+    }
+
+    public C card(UUID cardId) {
+        return cardId == null ? null : counters.cards().get(cardId);
+    }
+
+    public int getAccountCount() {
+        return counters.accounts().size();
+    }
+
+    public int getCardCount() {
+        return counters.cards().size();
+    }
+
+    // ===== ACTUALIZACIÓN =====
+
+    // Suma el retiro en el instante at; si la fila no llega a confirmarse, se descuenta
+    public void register(Transaction transaction, long at) {
+        if (!transaction.isWithdrawal() || transaction.getAccount() == null) {
+            return;
+        }
+        long cents = transaction.getAmount().abs().cents();
+        UUID accountId = transaction.getAccount().getId();
+        UUID cardId = transaction.getCard() != null ? transaction.getCard().getId() : null;
+
+        Counters<C> current;
+        rebuildLock.readLock().lock();
+        try {
+            current = counters;
+            current.add(update, accountId, cardId, at, 1, cents);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        current.add(update, accountId, cardId, at, -1, -cents);
+                    }
+                }
+            });
+        }
+    }
+
+    // Sustituye todos los contadores por los que cargue load
+    public void rebuild(Consumer<Loader> load) {
+        rebuildLock.writeLock().lock();
+        try {
+            Counters<C> rebuilt = new Counters<>();
+            load.accept((accountId, cardId, at, count, cents) ->
+                    rebuilt.add(update, accountId, cardId, at, count, cents));
+            counters = rebuilt;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    // Olvida los contadores inactivos
+    public void sweep(Predicate<C> idle) {
+        Counters<C> current = counters;
+        sweep(current.accounts(), idle);
+        sweep(current.cards(), idle);
+    }
+
+    private static <C> void sweep(ConcurrentMap<UUID, C> map, Predicate<C> idle) {
+        for (UUID key : map.keySet()) {
+            map.computeIfPresent(key, (k, counter) -> idle.test(counter) ? null : counter);
+        }
+    }
+
+    /**
+     * Suma {@code count} retiros por {@code cents} céntimos en el instante
+     * {@code at} (epoch en milisegundos) a {@code current}, que es null si
+     * la clave no tiene contador. Devuelve el contador resultante: el mismo
+     * objeto si es mutable, o uno nuevo. Los descuentos de rollback llegan
+     * con valores negativos y nunca con {@code current} null.
+     */
+    @FunctionalInterface
+    public interface Update<C> {
+        C apply(C current, long at, long count, long cents);
+    }
+
+    // Destino de la carga de rebuild
+    @FunctionalInterface
+    public interface Loader {
+        void add(UUID accountId, UUID cardId, long at, long count, long cents);
+    }
+
+    // Mapas por cuenta y por tarjeta; se sustituyen juntos al reconstruir
+    private record Counters<C>(ConcurrentMap<UUID, C> accounts, ConcurrentMap<UUID, C> cards) {
+
+        Counters() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        void add(Update<C> update, UUID accountId, UUID cardId, long at, long count, long cents) {
+            add(accounts, update, accountId, at, count, cents);
+            add(cards, update, cardId, at, count, cents);
+        }
+
+        private static <C> void add(ConcurrentMap<UUID, C> map, Update<C> update, UUID key,
+                                    long at, long count, long cents) {
+            if (key == null) {
+                return;
+            }
+            map.compute(key, (k, current) -> {
+                if (current == null && count < 0) {
+                    // La limpieza ya lo descartó: no queda nada que descontar
+                    return null;
+                }
+                return update.apply(current, at, count, cents);
+            });
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+	@Test
+	void convertsToAndFromBigDecimalWithoutLoss() {
+		assertEquals(152345, Money.of("1523.45").cents());
+		assertEquals(Money.of("10.50"), Money.of(new BigDecimal("10.5")));
+		assertEquals(new BigDecimal("-0.07"), Money.ofCents(-7).toBigDecimal());
+		assertEquals("1523.45", Money.of("1523.45").toString());
+		assertThrows(ArithmeticException.class, () -> Money.of("0.005"));
+	}
+
+	@Test
+	void arithmeticMatchesBigDecimal() {
+		Money balance = Money.of("100.00");
+		Money amount = Money.of("33.33");
+
+		assertEquals(Money.of("133.33"), balance.plus(amount));
+		assertEquals(Money.of("66.67"), balance.minus(amount));
+		assertEquals(Money.of("-33.33"), amount.negate());
+		assertEquals(amount, amount.negate().abs());
+		assertTrue(balance.isGreaterThanOrEqual(amount));
+		assertTrue(amount.minus(balance).isNegative());
+	}
+
+	@Test
+	void overflowThrowsInsteadOfWrapping() {
+		Money max = Money.ofCents(Long.MAX_VALUE);
+		assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+		assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MIN_VALUE).negate());
+	}
+}
@@ -0,0 +1,72 @@
+package entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class TransactionReferenceGeneratorTest {
+
+	@Test
+	void referencesAreFixedWidthAndSortable() {
+		TransactionReferenceGenerator generator = new TransactionReferenceGenerator(7);
+		String previous = generator.next();
+		for (int i = 0; i < 10_000; i++) {
+			String current = generator.next();
+			assertEquals(23, current.length());
+			assertTrue(current.startsWith("TXN-"));
+			assertTrue(current.compareTo(previous) > 0);
+			previous = current;
+		}
+	}
+
+	@Test
+	void differentNodesNeverCollide() {
+		long a = new TransactionReferenceGenerator(1).nextId();
+		long b = new TransactionReferenceGenerator(2).nextId();
+		assertNotEquals(a, b);
+	}
+
+	@Test
+	void uniqueUnderConcurrency() throws Exception {
+		int threads = 8;
+		int perThread = 500_000;
+		TransactionReferenceGenerator generator = new TransactionReferenceGenerator(3);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		List<Future<long[]>> futures = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				long[] ids = new long[perThread];
+				for (int i = 0; i < perThread; i++) {
+					ids[i] = generator.nextId();
+				}
+				return ids;
+			}));
+		}
+		long[] all = new long[threads * perThread];
+		int offset = 0;
+		for (Future<long[]> future : futures) {
+			long[] ids = future.get();
+			System.arraycopy(ids, 0, all, offset, ids.length);
+			offset += ids.length;
+		}
+		long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+
+		Arrays.sort(all);
+		for (int i = 1; i < all.length; i++) {
+			assertNotEquals(all[i - 1], all[i]);
+		}
+		System.out.printf("Referencias: %.1f millones/s con %d hilos%n", all.length / (elapsed / 1e3), threads);
+	}
+}
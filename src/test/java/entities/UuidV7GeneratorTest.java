@@ -0,0 +1,101 @@
+package entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class UuidV7GeneratorTest {
+
+	@Test
+	void generatesVersion7WithTimestamp() {
+		long before = System.currentTimeMillis();
+		UUID uuid = UuidV7Generator.generate();
+
+		assertEquals(7, uuid.version());
+		assertEquals(2, uuid.variant());
+		assertTrue((uuid.getMostSignificantBits() >>> 16) >= before);
+	}
+
+	@Test
+	void isMonotonicWithinThread() {
+		UUID previous = UuidV7Generator.generate();
+		for (int i = 0; i < 100_000; i++) {
+			UUID current = UuidV7Generator.generate();
+			// Orden de bytes sin signo, el mismo que usa la base de datos
+			assertTrue(Long.compareUnsigned(current.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+			previous = current;
+		}
+	}
+
+	@Test
+	void isUniqueAcrossThreads() throws Exception {
+		int threads = 8;
+		int perThread = 100_000;
+		Set<UUID> seen = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < perThread; i++) {
+					seen.add(UuidV7Generator.generate());
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertEquals(threads * perThread, seen.size());
+	}
+
+	/**
+	 * Inserciones por lotes con clave primaria UUID v4 aleatoria frente a v7.
+	 * Se lanza con -Dbenchmarks=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void insertThroughputVersusRandomUuid() throws Exception {
+		int rows = 1_000_000;
+		System.out.printf("UUID v4: %.0f inserciones/s%n", insertRate(UUID::randomUUID, rows));
+		System.out.printf("UUID v7: %.0f inserciones/s%n", insertRate(UuidV7Generator::generate, rows));
+	}
+
+	private static double insertRate(Supplier<UUID> ids, int rows) throws Exception {
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:uuid-" + UUID.randomUUID())) {
+			try (Statement ddl = connection.createStatement()) {
+				ddl.execute("CREATE TABLE bench (id UUID PRIMARY KEY, payload VARCHAR(64))");
+			}
+			connection.setAutoCommit(false);
+			long start = System.nanoTime();
+			try (PreparedStatement insert = connection.prepareStatement("INSERT INTO bench VALUES (?, ?)")) {
+				for (int i = 1; i <= rows; i++) {
+					insert.setObject(1, ids.get());
+					insert.setString(2, "Transferencia " + i);
+					insert.addBatch();
+					if (i % 1000 == 0) {
+						insert.executeBatch();
+						connection.commit();
+					}
+				}
+			}
+			return rows / ((System.nanoTime() - start) / 1e9);
+		}
+	}
+}
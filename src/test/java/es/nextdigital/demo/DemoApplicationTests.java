@@ -1,13 +1,299 @@
 package es.nextdigital.demo;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.WithdrawalActivity;
+import entities.Account;
+import entities.BalanceSnapshot;
+import entities.Card;
+import entities.CardHold;
+import entities.Customer;
+import entities.IdempotencyKey;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+import enumerado.HoldStatus;
+import enumerado.TransactionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import repository.AccountRepository;
+import repository.BalanceSnapshotRepository;
+import repository.CardHoldRepository;
+import repository.CardRepository;
+import repository.CustomerRepository;
+import repository.IdempotencyKeyRepository;
+import repository.TransactionRepository;
+import support.QueryCounter;
+import support.QueryCounterConfiguration;
 
+/**
+ * Arranque del contexto y presupuesto de consultas SQL de cada método de
+ * repositorio. Cada presupuesto se mide con la caché de segundo nivel vacía
+ * (el caso más caro) e incluye el recorrido de las asociaciones perezosas
+ * que hacen los servicios, para que un N+1 nuevo rompa el test.
+ */
 @SpringBootTest
+@Import(QueryCounterConfiguration.class)
 class DemoApplicationTests {
 
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(9_200_000_000_000_000L);
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CardRepository cardRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private CardHoldRepository cardHoldRepository;
+
+	@Autowired
+	private BalanceSnapshotRepository balanceSnapshotRepository;
+
+	@Autowired
+	private IdempotencyKeyRepository idempotencyKeyRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private Customer customer;
+	private Account account;
+	private Card debit;
+	private Card credit;
+	private Transaction withdrawal;
+	private CardHold hold;
+	private BalanceSnapshot snapshot;
+
+	@BeforeEach
+	void createFixture() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com", "600000000", true,
+				new ArrayList<>());
+		customer.setDocumentNumber("D" + suffix);
+		account = new Account("A-" + suffix, "ES00" + suffix, customer);
+		account.setBalance(Money.of("500.00"));
+		debit = new Card(String.valueOf(CARD_NUMBERS.incrementAndGet()), "hash", CardType.DEBIT,
+				new BigDecimal("600.00"), null, true, true, account);
+		credit = new Card(String.valueOf(CARD_NUMBERS.incrementAndGet()), "hash", CardType.CREDIT,
+				null, new BigDecimal("1000.00"), true, false, account);
+		account.addCard(debit);
+		account.addCard(credit);
+		customer.getAccounts().add(account);
+
+		// Cliente, cuenta y tarjetas en cascada: solo INSERT, uno por fila
+		QueryCounter.capture(() -> customer = transactionTemplate.execute(status -> customerRepository.save(customer)))
+				.assertShape(0, 4, 0, 0);
+		account = customer.getAccounts().get(0);
+		debit = account.getCards().get(0);
+		credit = account.getCards().get(1);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			withdrawal = transactionRepository.save(Transaction.createWithdrawal(account, debit, Money.of("40.00"),
+					Money.of("460.00"), true, Money.of("2.00")));
+			transactionRepository.save(Transaction.createDeposit(account, debit, Money.of("10.00"),
+					Money.of("470.00")));
+			transactionRepository.save(Transaction.createTransferOut(account, Money.of("20.00"),
+					Money.of("450.00"), "ES9900000000000000000001", "Luis", Money.ZERO));
+			hold = cardHoldRepository.save(new CardHold(account, debit, Money.of("30.00"), Money.ZERO, false,
+					LocalDateTime.now().plusMinutes(10)));
+			snapshot = balanceSnapshotRepository.save(new BalanceSnapshot(account, Money.ZERO, 0L, true));
+			idempotencyKeyRepository.save(new IdempotencyKey("K-" + suffix, "F-" + suffix,
+					withdrawal.getTransactionReference()));
+		});
+	}
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void customerRepositoryQueryBudgets() {
+		budget(1, () -> customerRepository.findByCustomerNumber(customer.getCustomerNumber()).orElseThrow());
+		budget(1, () -> customerRepository.findByDocumentNumber(customer.getDocumentNumber()).orElseThrow());
+		budget(1, () -> customerRepository.findByEmail(customer.getEmail()).orElseThrow());
+		budget(1, () -> customerRepository.findByActiveTrue());
+		budget(1, () -> customerRepository.findByFirstNameContainingIgnoreCase("an"));
+		budget(1, () -> customerRepository.findByLastNameContainingIgnoreCase("pér"));
+		budget(1, () -> customerRepository.searchByName("ana"));
+		budget(1, () -> customerRepository.findNamesAfter(new UUID(0, 0), Pageable.ofSize(100)));
+		budget(1, () -> customerRepository.findDashboardRows(customer.getId()));
+		budget(1, () -> customerRepository.existsByCustomerNumber(customer.getCustomerNumber()));
+		budget(1, () -> customerRepository.existsByEmail(customer.getEmail()));
+		budget(1, () -> customerRepository.existsByDocumentNumber(customer.getDocumentNumber()));
+		budget(1, () -> {
+			try (Stream<?> keys = customerRepository.streamUniqueKeys()) {
+				keys.count();
+			}
+		});
+		budget(1, () -> customerRepository.countByActiveTrue());
+
+		// Sin caché: cliente y, al recorrerlas, sus cuentas (colección perezosa)
+		budget(2, () -> customerRepository.findByCustomerNumber(customer.getCustomerNumber()).orElseThrow()
+				.getAccounts().forEach(Account::getIban));
+		// Con la caché caliente el id natural y la entidad no van a la base de datos
+		customerRepository.findByCustomerNumber(customer.getCustomerNumber()).orElseThrow();
+		QueryCounter.expect(0, () -> customerRepository.findByCustomerNumber(customer.getCustomerNumber()));
+	}
+
+	@Test
+	void cardRepositoryQueryBudgets() {
+		budget(1, () -> cardRepository.findByCardNumber(debit.getCardNumber()).orElseThrow());
+		budget(1, () -> cardRepository.findByAccount(account));
+		budget(1, () -> cardRepository.findByAccountId(account.getId()));
+		budget(1, () -> cardRepository.findByActiveTrue());
+		budget(1, () -> cardRepository.findByActiveFalse());
+		budget(1, () -> cardRepository.findByCardNumberAndActiveTrue(debit.getCardNumber()).orElseThrow());
+		budget(1, () -> cardRepository.findByActiveTrueAndPinChangedFalse());
+		budget(1, () -> cardRepository.findByType(CardType.DEBIT));
+		budget(1, () -> cardRepository.findByTypeAndActiveTrue(CardType.CREDIT));
+		budget(1, () -> cardRepository.existsByCardNumber(debit.getCardNumber()));
+		budget(1, () -> cardRepository.existsByCardNumberAndActiveTrue(debit.getCardNumber()));
+		budget(1, () -> {
+			try (Stream<String> numbers = cardRepository.streamCardNumbers()) {
+				numbers.count();
+			}
+		});
+		budget(1, () -> cardRepository.findActiveAndReadyCard(debit.getCardNumber()).orElseThrow());
+		budget(1, () -> cardRepository.findAuthorizationByCardNumber(debit.getCardNumber()).orElseThrow());
+		budget(1, () -> cardRepository.findValidCardForWithdrawal(debit.getId()).orElseThrow());
+		budget(1, () -> cardRepository.countByType(CardType.DEBIT));
+		budget(1, () -> cardRepository.countByActiveTrue());
+		budget(1, () -> cardRepository.countByActiveTrueAndType(CardType.CREDIT));
+		budget(1, () -> cardRepository.findCreditCardsByLimitRange(BigDecimal.ZERO, new BigDecimal("5000.00")));
+
+		// Tarjetas de un cliente con sus cuentas: la cuenta viene en la misma consulta
+		budget(1, () -> cardRepository.findByCustomerId(customer.getId())
+				.forEach(card -> card.getAccount().getIban()));
+		budget(1, () -> cardRepository.findByCustomer(customer)
+				.forEach(card -> card.getAccount().getIban()));
+		// El id de la cuenta sale del proxy sin inicializarlo
+		budget(1, () -> cardRepository.findByAccountId(account.getId())
+				.forEach(card -> card.getAccount().getId()));
+	}
+
+	@Test
+	void accountRepositoryQueryBudgets() {
+		budget(1, () -> accountRepository.findByAccountNumber(account.getAccountNumber()).orElseThrow());
+		budget(1, () -> accountRepository.findByIban(account.getIban()).orElseThrow());
+		budget(1, () -> accountRepository.existsByIdAndActiveTrue(account.getId()));
+		budget(1, () -> accountRepository.findBalanceById(account.getId()).orElseThrow());
+		budget(1, () -> accountRepository.debitIfSufficient(account.getId(), Money.of("1.00")));
+		budget(1, () -> accountRepository.credit(account.getId(), Money.of("1.00")));
+
+		// Cuenta y, al tocarlo, su cliente
+		budget(2, () -> accountRepository.findByAccountNumber(account.getAccountNumber()).orElseThrow()
+				.getCustomer().getFirstName());
+	}
+
+	@Test
+	void transactionRepositoryQueryBudgets() {
+		LocalDateTime since = LocalDateTime.now().minusDays(1);
+		LocalDateTime until = LocalDateTime.now().plusDays(1);
+		budget(1, () -> transactionRepository.findByAccountOrderByCreatedAtDesc(account));
+		budget(1, () -> transactionRepository.findByAccount(account, PageRequest.of(0, 10)));
+		// Página llena: contenido y recuento
+		budget(2, () -> transactionRepository.findByAccount(account, PageRequest.of(0, 2)));
+		budget(1, () -> transactionRepository.findByAccountAndTypeOrderByCreatedAtDesc(account,
+				TransactionType.WITHDRAWAL));
+		budget(1, () -> transactionRepository.findByAccountAndCreatedAtBetween(account, since, until));
+		budget(1, () -> transactionRepository.findWithdrawalsSince(account, since));
+		budget(1, () -> transactionRepository.findTodayWithdrawals(account));
+		budget(1, () -> transactionRepository.getWithdrawalTotalSince(account, since));
+		budget(1, () -> transactionRepository.getTodayWithdrawalTotal(account));
+		budget(1, () -> transactionRepository.sumWithdrawalsSinceByAccountAndCard(since));
+		budget(1, () -> {
+			try (Stream<WithdrawalActivity> withdrawals = transactionRepository.streamWithdrawalActivitySince(since)) {
+				withdrawals.count();
+			}
+		});
+		budget(1, () -> transactionRepository.findByDestinationIban("ES9900000000000000000001"));
+		budget(1, () -> transactionRepository.findByTransactionReference(withdrawal.getTransactionReference())
+				.orElseThrow());
+		budget(1, () -> transactionRepository.findExistingReferences(List.of(withdrawal.getTransactionReference())));
+		budget(1, () -> transactionRepository.findLastTransactions(account, Pageable.ofSize(5)));
+		budget(1, () -> transactionRepository.findPageAfter(account.getId(), until, new UUID(0, 0),
+				Pageable.ofSize(10)));
+		budget(1, () -> {
+			try (Stream<Transaction> transactions = transactionRepository.streamByAccountId(account.getId())) {
+				transactions.count();
+			}
+		});
+		budget(1, () -> transactionRepository.findLatestLedgerSequence(account.getId()));
+		budget(1, () -> transactionRepository.sumNetAmountAfter(account.getId(), 0L));
+		budget(1, () -> {
+			try (Stream<Transaction> transactions = transactionRepository.streamAfter(account.getId(), 0L)) {
+				transactions.count();
+			}
+		});
+		budget(1, () -> transactionRepository.findRecentByCustomerId(customer.getId(), 5));
+		budget(1, () -> transactionRepository.findPositionsBefore(until, Pageable.ofSize(10)));
+		budget(1, () -> transactionRepository.findByCommissionGreaterThan(Money.ZERO));
+		budget(1, () -> transactionRepository.findByExternalAtmTrue());
+		budget(1, () -> transactionRepository.countTransactionsSince(account, since));
+
+		// Ids de cuenta y tarjeta de cada movimiento (acumulador diario, journal): sin cargas perezosas
+		budget(1, () -> transactionRepository.findLastTransactions(account, Pageable.ofSize(5))
+				.forEach(t -> {
+					t.getAccount().getId();
+					if (t.getCard() != null) {
+						t.getCard().getId();
+					}
+				}));
+	}
+
+	@Test
+	void holdSnapshotAndIdempotencyRepositoryQueryBudgets() {
+		budget(1, () -> cardHoldRepository.findByStatus(HoldStatus.OPEN));
+		budget(1, () -> cardHoldRepository.close(hold.getId(), HoldStatus.RELEASED));
+		budget(1, () -> cardHoldRepository.expireDue(LocalDateTime.now()));
+
+		budget(1, () -> balanceSnapshotRepository.findLatest(account.getId(), Pageable.ofSize(1)));
+		budget(1, () -> balanceSnapshotRepository.findLatestByAccountId(account.getId()).orElseThrow());
+		budget(1, () -> balanceSnapshotRepository.findByAccountIdAndOpeningTrue(account.getId()).orElseThrow());
+		budget(1, () -> balanceSnapshotRepository.findLedgerAccountIds());
+		budget(1, () -> balanceSnapshotRepository.deleteSuperseded(account.getId(), snapshot.getId()));
+
+		budget(1, () -> {
+			try (Stream<String> keys = idempotencyKeyRepository.streamKeys()) {
+				keys.count();
+			}
+		});
+		budget(1, () -> idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(1)));
+	}
+
+	// Ejecuta el bloque en una transacción con la caché de segundo nivel vacía y comprueba el número de sentencias
+	private void budget(int queries, Runnable block) {
+		entityManagerFactory.getCache().evictAll();
+		QueryCounter.expect(queries, () -> transactionTemplate.executeWithoutResult(status -> {
+			block.run();
+			entityManager.flush();
+		}));
+	}
 }
@@ -0,0 +1,235 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.AccountRepository;
+import repository.CustomerRepository;
+import repository.TransactionRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class AccountCreditCoalescerTest {
+
+	private static final Money ONE = Money.of("1.00");
+
+	@Autowired
+	private AccountCreditCoalescer coalescer;
+
+	@Autowired
+	private BalanceService balanceService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ConnectionPoolLimiter connectionPoolLimiter;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void concurrentCreditsShareBatchesAndKeepTheirOwnBalanceAfter() throws Exception {
+		UUID accountId = createAccount(true);
+		Set<Money> balances = new ConcurrentSkipListSet<>();
+		long batches = coalescer.getBatchCount();
+
+		run(32, 10, () -> balances.add(credit(accountId).getBalanceAfter()));
+
+		Set<Money> expected = new TreeSet<>();
+		for (int i = 1; i <= 320; i++) {
+			expected.add(Money.ofCents(i * 100L));
+		}
+		assertEquals(expected, balances);
+		assertEquals(Money.of("320.00"), accountRepository.findById(accountId).orElseThrow().getBalance());
+		assertEquals(320, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM transactions WHERE account_id = ?", Integer.class, accountId));
+		assertTrue(coalescer.getBatchCount() - batches <= 320);
+	}
+
+	@Test
+	void leaderHandsOffAfterItsTurnAndIdleLanesAreRemoved() throws Exception {
+		UUID accountId = createAccount(true);
+		// Un abono por lote: cada abono ajeno es un lote más para el líder
+		AccountCreditCoalescer coalescer = new AccountCreditCoalescer(accountRepository, transactionRepository,
+				balanceService, connectionPoolLimiter, entityManager, true, 1, Duration.ZERO);
+		int others = 3 * AccountCreditCoalescer.MAX_BATCHES_PER_LEADER;
+		Map<Thread, Integer> applied = new ConcurrentHashMap<>();
+		CountDownLatch leading = new CountDownLatch(1);
+		CountDownLatch queued = new CountDownLatch(1);
+		BiFunction<Account, Money, Transaction> movement = (account, balance) -> {
+			applied.merge(Thread.currentThread(), 1, Integer::sum);
+			return Transaction.createDeposit(account, null, ONE, balance);
+		};
+
+		List<Thread> threads = new ArrayList<>();
+		Thread first = new Thread(() -> coalescer.credit(accountId, ONE, (account, balance) -> {
+			// El primer líder no sigue hasta que todos los demás esperan en la cola
+			leading.countDown();
+			await(queued);
+			return movement.apply(account, balance);
+		}));
+		threads.add(first);
+		first.start();
+		assertTrue(leading.await(30, TimeUnit.SECONDS));
+		for (int i = 0; i < others; i++) {
+			Thread other = new Thread(() -> coalescer.credit(accountId, ONE, movement));
+			threads.add(other);
+			other.start();
+			while (other.getState() != Thread.State.WAITING) {
+				Thread.sleep(1);
+			}
+		}
+		queued.countDown();
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+		}
+
+		assertEquals(others + 1, applied.values().stream().mapToInt(Integer::intValue).sum());
+		assertEquals(1 + AccountCreditCoalescer.MAX_BATCHES_PER_LEADER, applied.get(first));
+		assertTrue(applied.size() > 1);
+		assertEquals(Money.ofCents((others + 1) * 100L),
+				accountRepository.findById(accountId).orElseThrow().getBalance());
+		assertEquals(0, coalescer.getLaneCount());
+	}
+
+	@Test
+	void failedBatchFailsEveryCaller() {
+		UUID accountId = createAccount(false);
+
+		assertThrows(IllegalArgumentException.class, () -> credit(accountId));
+		assertThrows(IllegalArgumentException.class, () -> coalescer.credit(accountId, Money.ZERO,
+				(account, balance) -> Transaction.createDeposit(account, null, Money.ZERO, balance)));
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM transactions WHERE account_id = ?", Integer.class, accountId));
+	}
+
+	/**
+	 * 64 hilos ingresando en una sola cuenta: transacción por ingreso con
+	 * @Version y reintentos frente a ingresos agrupados. Se lanza con
+	 * -Dbenchmarks=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void hotAccountContention() throws Exception {
+		UUID direct = createAccount(true);
+		UUID coalesced = createAccount(true);
+		AtomicInteger failed = new AtomicInteger();
+		long conflicts = balanceService.getConflictCount();
+
+		double rate = run(64, 100, () -> {
+			try {
+				balanceService.executeWithRetry(() -> {
+					Account account = accountRepository.findById(direct).orElseThrow();
+					account.deposit(ONE);
+					return transactionRepository.save(Transaction.createDeposit(account, null, ONE, account.getBalance()));
+				});
+			} catch (OptimisticLockingFailureException e) {
+				failed.incrementAndGet();
+			}
+		});
+		System.out.printf("transacción por ingreso: %.0f ingresos/s, %d conflictos de versión, %d fallidos%n",
+				rate, balanceService.getConflictCount() - conflicts, failed.get());
+
+		long credits = coalescer.getCreditCount();
+		long batches = coalescer.getBatchCount();
+		rate = run(64, 100, () -> credit(coalesced));
+		System.out.printf("ingresos agrupados: %.0f ingresos/s, %.1f ingresos por lote%n", rate,
+				(double) (coalescer.getCreditCount() - credits) / (coalescer.getBatchCount() - batches));
+	}
+
+	// Devuelve las operaciones por segundo
+	private double run(int threads, int operationsPerThread, Runnable operation) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < operationsPerThread; i++) {
+					operation.run();
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsed = System.nanoTime() - begin;
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		return threads * operationsPerThread / (elapsed / 1e9);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(30, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Transaction credit(UUID accountId) {
+		return coalescer.credit(accountId, ONE,
+				(account, balance) -> Transaction.createTransferIn(account, ONE, balance, "ES0000000001", "Nóminas SA"));
+	}
+
+	private UUID createAccount(boolean active) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setActive(active);
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+			return account.getId();
+		});
+	}
+}
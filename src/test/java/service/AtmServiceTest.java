@@ -0,0 +1,228 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.AtmReceipt;
+import dto.RecentTransaction;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import enumerado.CardType;
+import enumerado.TransactionType;
+import es.nextdigital.demo.DemoApplication;
+import repository.CustomerRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+@AutoConfigureMockMvc
+class AtmServiceTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(5_000_000_000_000_000L);
+
+	@Autowired
+	private AtmService atmService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void withdrawsDepositsAndListsMovements() {
+		String cardNumber = createCard(Money.of("100.00"), new BigDecimal("600.00"));
+
+		AtmReceipt withdrawal = atmService.withdraw(cardNumber, Money.of("40.00"), true);
+		assertEquals(Money.of("2.00"), withdrawal.commission());
+		assertEquals(Money.of("58.00"), withdrawal.balance());
+
+		AtmReceipt deposit = atmService.deposit(cardNumber, Money.of("12.00"));
+		assertEquals(Money.of("70.00"), deposit.balance());
+		assertEquals(Money.of("70.00"), atmService.getBalance(cardNumber));
+
+		List<RecentTransaction> movements = atmService.getLastMovements(cardNumber, 10);
+		assertEquals(2, movements.size());
+		assertEquals(TransactionType.DEPOSIT, movements.get(0).type());
+		assertEquals(Money.of("-40.00"), movements.get(1).amount());
+	}
+
+	@Test
+	void rejectsWithdrawalsOverBalanceOrDailyLimit() {
+		String cardNumber = createCard(Money.of("1000.00"), new BigDecimal("100.00"));
+
+		atmService.withdraw(cardNumber, Money.of("80.00"), false);
+		assertThrows(IllegalArgumentException.class, () -> atmService.withdraw(cardNumber, Money.of("30.00"), false));
+
+		String poorCard = createCard(Money.of("10.00"), null);
+		assertThrows(IllegalArgumentException.class, () -> atmService.withdraw(poorCard, Money.of("10.01"), false));
+		assertEquals(Money.of("10.00"), atmService.getBalance(poorCard));
+	}
+
+	@Test
+	void apiReturnsReceiptAndMapsRejections() throws Exception {
+		String cardNumber = createCard(Money.of("50.00"), null);
+
+		mockMvc.perform(post("/atm/cards/{cardNumber}/withdrawals", cardNumber)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"amount\": 20.00, \"externalAtm\": false}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance").value(30.00))
+				.andExpect(jsonPath("$.transactionReference").exists());
+		mockMvc.perform(get("/atm/cards/{cardNumber}/balance", cardNumber))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance").value(30.00));
+		mockMvc.perform(post("/atm/cards/{cardNumber}/withdrawals", cardNumber)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"amount\": 31.00}"))
+				.andExpect(status().isUnprocessableEntity());
+		mockMvc.perform(get("/atm/cards/{cardNumber}/balance", "0000000000000000"))
+				.andExpect(status().isUnprocessableEntity());
+	}
+
+	@Test
+	void limiterRejectsWhenPermitsAreExhausted() throws Exception {
+		ConnectionPoolLimiter limiter = new ConnectionPoolLimiter(1, Duration.ofMillis(50));
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> holder = executor.submit(() -> limiter.call(() -> {
+			holding.countDown();
+			await(release);
+			return null;
+		}));
+		holding.await();
+
+		assertThrows(RejectedExecutionException.class, () -> limiter.call(() -> null));
+		release.countDown();
+		holder.get();
+		assertEquals("ok", limiter.call(() -> "ok"));
+		executor.shutdown();
+	}
+
+	/**
+	 * Carga mixta (60% retiros, 20% ingresos, 10% saldo, 10% movimientos) de
+	 * 1000 clientes concurrentes sobre 200 tarjetas: pool de 200 hilos de
+	 * plataforma frente a un hilo virtual por petición. Informa de p50, p99 y
+	 * operaciones por segundo. Los hilos virtuales requieren Java 21 (perfil
+	 * jdk21); con un JDK anterior la comparación queda omitida tras medir el
+	 * pool. Se lanza con -Dbenchmarks=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void platformVersusVirtualThreadLoad() throws Exception {
+		List<String> cards = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			cards.add(createCard(Money.of("1000000.00"), null));
+		}
+		int clients = 1000;
+		int requestsPerClient = 50;
+
+		runLoad("plataforma", Executors.newFixedThreadPool(200), cards, clients, requestsPerClient);
+		ExecutorService virtual = VirtualThreads.newPerTaskExecutor().orElse(null);
+		assumeTrue(virtual != null, "Hilos virtuales no disponibles en Java " + Runtime.version() + ": usar -Pjdk21");
+		runLoad("virtuales", virtual, cards, clients, requestsPerClient);
+	}
+
+	private void runLoad(String mode, ExecutorService executor, List<String> cards, int clients,
+						 int requestsPerClient) throws Exception {
+		long[] latencies = new long[clients * requestsPerClient];
+		AtomicLong rejected = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int c = 0; c < clients; c++) {
+			int client = c;
+			futures.add(executor.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int r = 0; r < requestsPerClient; r++) {
+					String cardNumber = cards.get(random.nextInt(cards.size()));
+					long begin = System.nanoTime();
+					try {
+						int operation = random.nextInt(10);
+						if (operation < 6) {
+							atmService.withdraw(cardNumber, Money.of("1.00"), false);
+						} else if (operation < 8) {
+							atmService.deposit(cardNumber, Money.of("1.00"));
+						} else if (operation < 9) {
+							atmService.getBalance(cardNumber);
+						} else {
+							atmService.getLastMovements(cardNumber, 10);
+						}
+					} catch (RuntimeException e) {
+						rejected.incrementAndGet();
+					}
+					latencies[client * requestsPerClient + r] = System.nanoTime() - begin;
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsed = System.nanoTime() - begin;
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		Arrays.sort(latencies);
+		System.out.printf("%s: %.0f ops/s, p50 %.2f ms, p99 %.2f ms, %d rechazadas%n", mode,
+				latencies.length / (elapsed / 1e9), latencies[latencies.length / 2] / 1e6,
+				latencies[(int) (latencies.length * 0.99)] / 1e6, rejected.get());
+	}
+
+	private String createCard(Money balance, BigDecimal dailyLimit) {
+		String cardNumber = String.valueOf(CARD_NUMBERS.incrementAndGet());
+		transactionTemplate.executeWithoutResult(status -> {
+			String suffix = cardNumber.substring(8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			account.addCard(new Card(cardNumber, "hash", CardType.DEBIT, dailyLimit, null, true, true, account));
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+		});
+		return cardNumber;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Customer;
+import entities.Money;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.AccountRepository;
+import repository.CustomerRepository;
+
+/**
+ * Varios hilos retiran a la vez de la misma cuenta. Comprueba que no se
+ * pierde ninguna actualización e informa del rendimiento y de la tasa de
+ * conflictos de cada modo.
+ */
+@SpringBootTest(classes = DemoApplication.class)
+class BalanceServiceContentionTest {
+
+	private static final int THREADS = 8;
+	private static final int OPERATIONS_PER_THREAD = 50;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void optimisticRetryLosesNoUpdates() throws Exception {
+		BalanceService service = new BalanceService(accountRepository, transactionTemplate,
+				new RetryPolicy(50, Duration.ofMillis(1), Duration.ofMillis(20)), false);
+		runContention("optimista", service);
+	}
+
+	@Test
+	void conditionalUpdateLosesNoUpdates() throws Exception {
+		BalanceService service = new BalanceService(accountRepository, transactionTemplate,
+				new RetryPolicy(1, Duration.ZERO, Duration.ZERO), true);
+		runContention("UPDATE condicional", service);
+	}
+
+	@Test
+	void conditionalUpdateKeepsPendingChangesOfTheOuterTransaction() {
+		UUID accountId = createAccount(Money.of("10.00"));
+		transactionTemplate.executeWithoutResult(status -> {
+			accountRepository.findById(accountId).orElseThrow().getCustomer().setPhoneNumber("600111222");
+			assertEquals(1, accountRepository.debitIfSufficient(accountId, Money.of("4.00")));
+			assertEquals(1, accountRepository.credit(accountId, Money.of("1.00")));
+		});
+
+		assertEquals(Money.of("7.00"), accountRepository.findBalanceById(accountId).orElseThrow());
+		assertEquals("600111222", transactionTemplate.execute(status ->
+				accountRepository.findById(accountId).orElseThrow().getCustomer().getPhoneNumber()));
+	}
+
+	@Test
+	void conditionalUpdateRefreshesOnlyTheAffectedAccount() {
+		UUID accountId = createAccount(Money.of("10.00"));
+		transactionTemplate.executeWithoutResult(status -> {
+			Account account = accountRepository.findById(accountId).orElseThrow();
+			Customer customer = account.getCustomer();
+			customer.getFirstName();
+			assertEquals(1, accountRepository.debitIfSufficient(accountId, Money.of("4.00")));
+
+			// El llamante sigue trabajando con sus entidades y ve el saldo nuevo
+			assertTrue(entityManager.contains(account));
+			assertTrue(entityManager.contains(customer));
+			assertEquals(Money.of("6.00"), account.getBalance());
+			account.deposit(Money.of("1.00"));
+		});
+
+		assertEquals(Money.of("7.00"), accountRepository.findBalanceById(accountId).orElseThrow());
+	}
+
+	private void runContention(String mode, BalanceService service) throws Exception {
+		int total = THREADS * OPERATIONS_PER_THREAD;
+		// Saldo para la mitad de los retiros: el resto debe rechazarse
+		UUID accountId = createAccount(Money.ofCents(total / 2 * 100L));
+		AtomicInteger succeeded = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+					try {
+						service.withdraw(accountId, Money.of("1.00"));
+						succeeded.incrementAndGet();
+					} catch (IllegalArgumentException e) {
+						rejected.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsed = System.nanoTime() - begin;
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		Money finalBalance = accountRepository.findBalanceById(accountId).orElseThrow();
+		assertEquals(total / 2, succeeded.get());
+		assertEquals(total / 2, rejected.get());
+		assertTrue(finalBalance.isZero());
+
+		System.out.printf("%s: %.0f ops/s, %d intentos, %d conflictos (%.1f%%)%n",
+				mode, total / (elapsed / 1e9), service.getAttemptCount(), service.getConflictCount(),
+				100.0 * service.getConflictCount() / service.getAttemptCount());
+	}
+
+	private UUID createAccount(Money balance) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+			return account.getId();
+		});
+	}
+}
@@ -0,0 +1,108 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import dto.CardAuthorization;
+import entities.CardAuthorizationChangedEvent;
+import enumerado.CardType;
+import repository.CardRepository;
+
+class CardAuthorizationCacheTest {
+
+	private final CardRepository cardRepository = mock(CardRepository.class);
+
+	CardAuthorizationCacheTest() {
+		when(cardRepository.findAuthorizationByCardNumber(anyString())).thenAnswer(invocation -> Optional.of(
+				new CardAuthorization(UUID.randomUUID(), invocation.getArgument(0), CardType.DEBIT,
+						new BigDecimal("600.00"), null, true, true, UUID.randomUUID())));
+	}
+
+	@Test
+	void servesRepeatedLookupsFromCache() {
+		CardAuthorizationCache cache = cache(Clock.systemUTC(), 10);
+
+		assertTrue(cache.findActiveAndReady("4000000000000001").isPresent());
+		assertTrue(cache.findActiveAndReady("4000000000000001").isPresent());
+
+		verify(cardRepository, times(1)).findAuthorizationByCardNumber("4000000000000001");
+		assertEquals(new CardAuthorizationCache.CacheStats(1, 1, 0, 1), cache.getStats());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedEntry() {
+		CardAuthorizationCache cache = cache(Clock.systemUTC(), 2);
+
+		cache.get("1");
+		cache.get("2");
+		cache.get("1");
+		cache.get("3");
+		cache.get("1");
+		cache.get("2");
+
+		verify(cardRepository, times(1)).findAuthorizationByCardNumber("1");
+		verify(cardRepository, times(2)).findAuthorizationByCardNumber("2");
+		assertEquals(2, cache.getStats().evictions());
+	}
+
+	@Test
+	void expiresEntriesAfterTtl() {
+		Instant start = Instant.parse("2024-05-10T10:00:00Z");
+		Clock clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(start, start.plus(Duration.ofMinutes(4)), start.plus(Duration.ofMinutes(6)));
+		CardAuthorizationCache cache = cache(clock, 10);
+
+		cache.get("1");
+		cache.get("1");
+		cache.get("1");
+
+		verify(cardRepository, times(2)).findAuthorizationByCardNumber("1");
+	}
+
+	@Test
+	void invalidatesOnCardChange() {
+		CardAuthorizationCache cache = cache(Clock.systemUTC(), 10);
+
+		cache.get("1");
+		cache.onCardAuthorizationChanged(new CardAuthorizationChangedEvent("1"));
+		cache.get("1");
+
+		verify(cardRepository, times(2)).findAuthorizationByCardNumber("1");
+	}
+
+	@Test
+	void doesNotCacheALoadInvalidatedMidway() {
+		CardAuthorizationCache cache = cache(Clock.systemUTC(), 10);
+		CardAuthorization stale = new CardAuthorization(UUID.randomUUID(), "1", CardType.DEBIT,
+				new BigDecimal("600.00"), null, true, true, UUID.randomUUID());
+		// El commit que cambia la tarjeta llega mientras se lee el estado anterior
+		when(cardRepository.findAuthorizationByCardNumber("1")).thenAnswer(invocation -> {
+			cache.onCardAuthorizationChanged(new CardAuthorizationChangedEvent("1"));
+			return Optional.of(stale);
+		});
+
+		cache.get("1");
+		cache.get("1");
+
+		verify(cardRepository, times(2)).findAuthorizationByCardNumber("1");
+		assertEquals(0, cache.getStats().size());
+	}
+
+	private CardAuthorizationCache cache(Clock clock, int maxSize) {
+		return new CardAuthorizationCache(cardRepository, clock, maxSize, Duration.ofMinutes(5));
+	}
+}
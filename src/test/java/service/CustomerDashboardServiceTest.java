@@ -0,0 +1,93 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.CustomerDashboard;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManagerFactory;
+import repository.CustomerRepository;
+import repository.TransactionRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class CustomerDashboardServiceTest {
+
+	@Autowired
+	private CustomerDashboardService dashboardService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void loadsFiveAccountsAndTenCardsInTwoStatements() {
+		UUID customerId = seedCustomer(5, 2, 8);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		try {
+			CustomerDashboard dashboard = dashboardService.getDashboard(customerId, 5);
+
+			assertEquals(2, statistics.getPrepareStatementCount());
+			assertEquals(0, statistics.getEntityLoadCount());
+			assertEquals(5, dashboard.accounts().size());
+			assertEquals(10, dashboard.accounts().stream().mapToInt(a -> a.cards().size()).sum());
+			dashboard.accounts().forEach(account -> {
+				assertEquals(5, account.lastTransactions().size());
+				assertEquals(Money.of("8.00"), account.balance());
+				assertTrue(account.cards().get(0).maskedNumber().startsWith("************"));
+			});
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+	}
+
+	private UUID seedCustomer(int accounts, int cardsPerAccount, int transactionsPerAccount) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			for (int a = 0; a < accounts; a++) {
+				Account account = new Account("A-" + suffix + a, "ES00" + suffix + a, customer);
+				account.setBalance(Money.of("8.00"));
+				customer.getAccounts().add(account);
+				for (int c = 0; c < cardsPerAccount; c++) {
+					account.addCard(new Card(String.format("%08d%d%d%06d", Math.abs(suffix.hashCode()) % 100_000_000, a, c, 0),
+							"hash", CardType.DEBIT, null, null, true, true, account));
+				}
+			}
+			customerRepository.save(customer);
+			for (Account account : customer.getAccounts()) {
+				for (int t = 1; t <= transactionsPerAccount; t++) {
+					transactionRepository.save(Transaction.createDeposit(account, null, Money.of("1.00"),
+							Money.ofCents(t * 100L)));
+				}
+			}
+			return customer.getId();
+		});
+	}
+}
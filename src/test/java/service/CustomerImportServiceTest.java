@@ -0,0 +1,214 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dto.ImportSummary;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import enumerado.CardType;
+import enumerado.ExportFormat;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.CardRepository;
+import repository.CustomerRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class CustomerImportServiceTest {
+
+	private static final String CSV_HEADER = String.join(",", CustomerImportService.CSV_COLUMNS) + "\n";
+
+	@Autowired
+	private CustomerImportService importService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CardRepository cardRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private UniqueKeyFilters uniqueKeyFilters;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void importsCsvGraphs() throws Exception {
+		String p = prefix();
+		String csv = CSV_HEADER
+				+ p + "1,Ana,\"Pérez, García\"," + p + "1@example.com,D" + p + "1,,A" + p + "1,ES" + p + "1,CHECKING,100.50,"
+				+ p + "11,hash,DEBIT,300,,true,true\n"
+				+ p + "1,Ana,\"Pérez, García\"," + p + "1@example.com,D" + p + "1,,A" + p + "1,ES" + p + "1,CHECKING,100.50,"
+				+ p + "12,hash,CREDIT,,1000,true,false\n"
+				+ p + "1,Ana,\"Pérez, García\"," + p + "1@example.com,D" + p + "1,,A" + p + "2,ES" + p + "2,SAVINGS,0,"
+				+ ",,,,,,\n"
+				+ p + "2,Luis,Gómez," + p + "2@example.com,,,,,,,,,,,,,\n"
+				+ p + "3,Eva,Ruiz,,,,,,,,,,,,,,\n";
+
+		ImportSummary summary = importService.importCustomers(stream(csv), ExportFormat.CSV, null);
+		assertEquals(2, summary.customers());
+		assertEquals(2, summary.accounts());
+		assertEquals(2, summary.cards());
+		assertEquals(1, summary.rejected());
+		assertTrue(summary.errors().get(0).contains("email"));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			Customer customer = customerRepository.findByCustomerNumber(p + "1").orElseThrow();
+			assertEquals("Pérez, García", customer.getLastName());
+			assertEquals(2, customer.getAccounts().size());
+			Account checking = customer.getAccounts().stream()
+					.filter(account -> account.getAccountNumber().equals("A" + p + "1")).findFirst().orElseThrow();
+			assertEquals(Money.of("100.50"), checking.getBalance());
+			assertEquals(2, checking.getCards().size());
+			Card credit = cardRepository.findByCardNumber(p + "12").orElseThrow();
+			assertEquals(CardType.CREDIT, credit.getType());
+			assertFalse(credit.isPinChanged());
+			assertTrue(customerRepository.findByCustomerNumber(p + "2").orElseThrow().getAccounts().isEmpty());
+		});
+		assertTrue(uniqueKeyFilters.existsByCardNumber(p + "11"));
+		assertThrows(IllegalArgumentException.class, () -> importService.importCustomers(
+				stream("customer_number,email\n"), ExportFormat.CSV, null));
+	}
+
+	@Test
+	void resumesFromCheckpoint() throws Exception {
+		String p = prefix();
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			ndjson.append(customerJson(p, i)).append('\n');
+		}
+		CustomerImportService chunked = chunkedService(2);
+		Path checkpoint = directory.resolve("import.checkpoint");
+
+		ImportSummary first = chunked.importCustomers(stream(ndjson.toString()), ExportFormat.NDJSON, checkpoint);
+		assertEquals(10, first.customers());
+		assertEquals(10, first.cards());
+		assertEquals("10", Files.readString(checkpoint));
+
+		// Caída con el checkpoint en 4 y bloques posteriores ya confirmados
+		Files.writeString(checkpoint, "4");
+		ImportSummary resumed = chunked.importCustomers(stream(ndjson.toString()), ExportFormat.NDJSON, checkpoint);
+		assertEquals(4, resumed.resumedFrom());
+		assertEquals(0, resumed.customers());
+		assertEquals(6, resumed.skipped());
+		assertEquals("10", Files.readString(checkpoint));
+	}
+
+	@Test
+	void duplicatesInsideTheFileRejectOnlyTheRepeatedCustomer() throws Exception {
+		String p = prefix();
+		String ndjson = customerJson(p, 0) + "\n" + customerJson(p, 1) + "\n"
+				+ customerJson(p, 2).replace(p + "2@example.com", p + "1@example.com") + "\n";
+
+		ImportSummary summary = chunkedService(10).importCustomers(stream(ndjson), ExportFormat.NDJSON, null);
+		assertEquals(2, summary.customers());
+		assertEquals(1, summary.rejected());
+		assertTrue(customerRepository.findByCustomerNumber(p + "0").isPresent());
+		assertFalse(customerRepository.findByCustomerNumber(p + "2").isPresent());
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void benchmarkImport() throws Exception {
+		int customers = Integer.getInteger("import.customers", 200_000);
+		String p = prefix();
+		Path file = directory.resolve("customers.ndjson");
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			for (int i = 0; i < customers; i++) {
+				writer.write(customerJson(p, i));
+				writer.write('\n');
+			}
+		}
+
+		// Referencia: save() cliente a cliente
+		int baseline = Math.min(customers, 5_000);
+		long start = System.nanoTime();
+		for (int i = 0; i < baseline; i++) {
+			String suffix = p + "S" + i;
+			Customer customer = new Customer(suffix, "Ana", "Pérez", suffix + "@example.com", null, true,
+					new ArrayList<>());
+			Account account = new Account("A" + suffix, "ES" + suffix, customer);
+			account.addCard(new Card(String.valueOf(i), "hash", CardType.DEBIT, null, null, true, true, account));
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+		}
+		double savePerSecond = baseline * 1e9 / (System.nanoTime() - start);
+
+		List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+		System.gc();
+		heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+		ImportSummary summary;
+		try (InputStream input = Files.newInputStream(file)) {
+			summary = importService.importCustomers(input, ExportFormat.NDJSON, directory.resolve("bench.checkpoint"));
+		}
+		long peakHeap = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+		System.out.printf("save(): %.0f clientes/s; importación: %d clientes (%d filas) en %d ms, "
+						+ "%.0f clientes/s, %.0f filas/s, pico de heap %d MB%n",
+				savePerSecond, summary.customers(), summary.customers() + summary.accounts() + summary.cards(),
+				summary.elapsed().toMillis(), summary.customersPerSecond(),
+				summary.customersPerSecond() * 3, peakHeap / (1024 * 1024));
+	}
+
+	private CustomerImportService chunkedService(int chunkSize) {
+		return new CustomerImportService(entityManager, transactionManager, uniqueKeyFilters, objectMapper,
+				chunkSize, 2, 2, 50);
+	}
+
+	// Prefijo numérico de 10 dígitos: los números de tarjeta no pasan de 16
+	private static String prefix() {
+		return String.valueOf(1_000_000_000L + Math.floorMod(UUID.randomUUID().getLeastSignificantBits(), 8_000_000_000L));
+	}
+
+	private static String customerJson(String p, int i) {
+		String id = p + i;
+		return "{\"customerNumber\":\"" + id + "\",\"firstName\":\"Ana\",\"lastName\":\"Pérez\","
+				+ "\"email\":\"" + id + "@example.com\",\"accounts\":[{\"accountNumber\":\"A" + id + "\","
+				+ "\"iban\":\"ES" + id + "\",\"balance\":10.00,\"cards\":[{\"cardNumber\":\"" + id + "\","
+				+ "\"pinHash\":\"hash\",\"type\":\"DEBIT\",\"active\":true,\"pinChanged\":true}]}]}";
+	}
+
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,119 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class CustomerNameIndexTest {
+
+	private final CustomerNameIndex index = new CustomerNameIndex();
+
+	@Test
+	void ignoresAccentsAndCase() {
+		UUID jose = UUID.randomUUID();
+		index.put(jose, "José", "Núñez");
+
+		assertEquals(List.of(jose), index.search("JOSE", 10));
+		assertEquals(List.of(jose), index.search("nunez", 10));
+		assertEquals(List.of(jose), index.search("sé nú", 10));
+	}
+
+	@Test
+	void ranksExactThenPrefixThenSubstring() {
+		UUID substring = UUID.randomUUID();
+		UUID prefix = UUID.randomUUID();
+		UUID exact = UUID.randomUUID();
+		UUID secondSubstring = UUID.randomUUID();
+		index.put(substring, "Mariana", "López");
+		index.put(prefix, "Anabel", "Ruiz");
+		index.put(exact, "Ana", "García");
+		index.put(secondSubstring, "Juliana", "Gil");
+
+		assertEquals(List.of(exact, prefix, substring, secondSubstring), index.search("ana", 10));
+		assertEquals(List.of(exact, prefix), index.search("ana", 2));
+	}
+
+	@Test
+	void reflectsUpdatesAndRemovals() {
+		UUID id = UUID.randomUUID();
+		index.put(id, "Lucía", "Martín");
+		index.put(id, "Lucía", "Sanz");
+
+		assertTrue(index.search("martin", 10).isEmpty());
+		assertEquals(List.of(id), index.search("sanz", 10));
+
+		index.remove(id);
+		assertTrue(index.search("sanz", 10).isEmpty());
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void searchesFirstOrLastNameOnly() {
+		UUID ana = UUID.randomUUID();
+		UUID martin = UUID.randomUUID();
+		index.put(ana, "Ana", "Martín");
+		index.put(martin, "Martín", "Ánaya");
+
+		assertEquals(List.of(martin), index.search("martin", 10, CustomerNameIndex.Field.FIRST_NAME));
+		assertEquals(List.of(ana), index.search("martin", 10, CustomerNameIndex.Field.LAST_NAME));
+		assertEquals(List.of(ana), index.search("an", 10, CustomerNameIndex.Field.FIRST_NAME));
+		assertEquals(List.of(martin), index.search("anaya", 10, CustomerNameIndex.Field.LAST_NAME));
+		assertTrue(index.search("ana martin", 10, CustomerNameIndex.Field.LAST_NAME).isEmpty());
+		assertEquals(List.of(ana), index.search("ana martin", 10));
+	}
+
+	@Test
+	void shortQueriesScanNames() {
+		UUID id = UUID.randomUUID();
+		index.put(id, "Íñigo", "Ortiz");
+
+		assertEquals(List.of(id), index.search("in", 10));
+	}
+
+	/**
+	 * Latencia de búsqueda con 1.000.000 de clientes. Se lanza con -Dbenchmarks=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void latencyAtOneMillionCustomers() {
+		String[] firstNames = { "Ana", "José", "María", "Lucía", "Javier", "Carmen", "Íñigo", "Pablo", "Elena", "Sofía" };
+		String[] syllables = { "gar", "cí", "ló", "pez", "mar", "tín", "san", "chez", "ro", "drí", "guez", "fer",
+				"nán", "dez", "gon", "zá", "lez", "pé", "rez", "mo", "re", "no", "jim", "na", "al", "va", "do",
+				"gó", "mez", "ruiz" };
+		Random random = new Random(42);
+		long start = System.nanoTime();
+		for (int i = 0; i < 1_000_000; i++) {
+			// Dos apellidos de 2 a 4 sílabas
+			StringBuilder lastName = new StringBuilder();
+			for (int surname = 0; surname < 2; surname++) {
+				if (surname > 0) {
+					lastName.append(' ');
+				}
+				for (int s = 2 + random.nextInt(3); s > 0; s--) {
+					lastName.append(syllables[random.nextInt(syllables.length)]);
+				}
+			}
+			index.put(UUID.randomUUID(), firstNames[random.nextInt(firstNames.length)], lastName.toString());
+		}
+		System.out.printf("Carga: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+		for (String query : Arrays.asList("ma", "garcí", "sanchez", "gonzalez", "lucia marro", "dezferna", "zzz")) {
+			for (int warmup = 0; warmup < 20; warmup++) {
+				index.search(query, 20);
+			}
+			int iterations = 200;
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				index.search(query, 20);
+			}
+			System.out.printf("'%s': %d µs/búsqueda%n", query, (System.nanoTime() - start) / iterations / 1000);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.CustomerName;
+import entities.Customer;
+import es.nextdigital.demo.DemoApplication;
+import repository.CustomerRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class CustomerSearchServiceTest {
+
+	@Autowired
+	private CustomerSearchService searchService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void searchesFirstAndLastNameInTheIndex() throws InterruptedException {
+		String suffix = suffix();
+		UUID inigo = createCustomer("Íñigo" + suffix, "Núñez" + suffix);
+		UUID nunez = createCustomer("Núñez" + suffix, "Ortiz" + suffix);
+		awaitReady();
+
+		assertEquals(List.of(nunez), ids(searchService.searchByFirstName("nunez" + suffix, 10)));
+		assertEquals(List.of(inigo), ids(searchService.searchByLastName("NUNEZ" + suffix, 10)));
+		assertEquals(List.of(inigo, nunez), ids(searchService.search("nunez" + suffix, 10)));
+	}
+
+	@Test
+	void databaseFallbackIgnoresAccents() {
+		String suffix = suffix();
+		UUID id = createCustomer("Íñigo" + suffix, "Núñez" + suffix);
+
+		assertEquals(List.of(id), ids(customerRepository.findByFirstNameContainingIgnoreCase("INIGO" + suffix)));
+		assertEquals(List.of(id), ids(customerRepository.findByLastNameContainingIgnoreCase("nuñez" + suffix)));
+		assertEquals(List.of(id), ids(customerRepository.searchByName("inigo" + suffix + " nunez" + suffix)));
+	}
+
+	@Test
+	void failedLoadIsRetried() {
+		CustomerRepository failing = mock(CustomerRepository.class);
+		UUID id = UUID.randomUUID();
+		when(failing.findNamesAfter(any(), any()))
+				.thenThrow(new IllegalStateException("Base de datos no disponible"))
+				.thenReturn(List.of(new CustomerName(id, "Ana", "Pérez")));
+		CustomerSearchService service = new CustomerSearchService(failing, Duration.ZERO);
+
+		service.load();
+
+		assertTrue(service.isReady());
+		assertEquals(List.of(id), service.searchIds("perez", 10));
+	}
+
+	private void awaitReady() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (!searchService.isReady() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(searchService.isReady());
+	}
+
+	private UUID createCustomer(String firstName, String lastName) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			return customerRepository.save(new Customer("C-" + suffix, firstName, lastName, suffix + "@example.com",
+					null, true, new ArrayList<>())).getId();
+		});
+	}
+
+	// Solo letras, para que el índice y la base de datos las normalicen igual
+	private static String suffix() {
+		return UUID.randomUUID().toString().replaceAll("[^a-f]", "");
+	}
+
+	private static List<UUID> ids(List<Customer> customers) {
+		return customers.stream().map(Customer::getId).toList();
+	}
+}
@@ -0,0 +1,108 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import entities.Account;
+import entities.Card;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+import repository.TransactionRepository;
+
+class DailyWithdrawalAccumulatorTest {
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2024-05-10T10:00:00Z"));
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+	private final DailyWithdrawalAccumulator accumulator =
+			new DailyWithdrawalAccumulator(transactionRepository, clock);
+
+	@Test
+	void accumulatesWithdrawalsAndChecksCardLimit() {
+		Card card = card(new BigDecimal("600.00"));
+
+		accumulator.registerWithdrawal(withdrawal(card, "200.00"));
+		accumulator.registerWithdrawal(withdrawal(card, "300.00"));
+		accumulator.registerWithdrawal(Transaction.createDeposit(card.getAccount(), card,
+				Money.of("1000.00"), Money.ZERO));
+
+		assertEquals(Money.of("500.00"), accumulator.getTodayCardTotal(card.getId()));
+		assertEquals(Money.of("500.00"), accumulator.getTodayAccountTotal(card.getAccount().getId()));
+		assertTrue(accumulator.canWithdraw(card, Money.of("100.00")));
+		assertFalse(accumulator.canWithdraw(card, Money.of("100.01")));
+	}
+
+	@Test
+	void rollsOverAtMidnight() {
+		Card card = card(new BigDecimal("600.00"));
+		accumulator.registerWithdrawal(withdrawal(card, "600.00"));
+
+		clock.instant = Instant.parse("2024-05-11T00:00:01Z");
+
+		assertEquals(Money.ZERO, accumulator.getTodayCardTotal(card.getId()));
+		assertTrue(accumulator.canWithdraw(card, Money.of("600.00")));
+	}
+
+	@Test
+	void rebuildReplacesTotalsWithTheTable() {
+		Card card = card(new BigDecimal("600.00"));
+		accumulator.registerWithdrawal(withdrawal(card, "100.00"));
+		List<Object[]> rows = List.<Object[]>of(new Object[] {
+				card.getAccount().getId(), card.getId(), new BigDecimal("250.00") });
+		when(transactionRepository.sumWithdrawalsSinceByAccountAndCard(any())).thenReturn(rows);
+
+		accumulator.rebuild();
+
+		assertEquals(Money.of("250.00"), accumulator.getTodayCardTotal(card.getId()));
+		assertEquals(Money.of("250.00"), accumulator.getTodayAccountTotal(card.getAccount().getId()));
+	}
+
+	private static Card card(BigDecimal dailyLimit) {
+		Account account = new Account("0001", "ES0000000000000000000001", null);
+		account.setId(UUID.randomUUID());
+		Card card = new Card("4000000000000001", "hash", CardType.DEBIT, dailyLimit, null, true, true, account);
+		card.setId(UUID.randomUUID());
+		return card;
+	}
+
+	private static Transaction withdrawal(Card card, String amount) {
+		return Transaction.createWithdrawal(card.getAccount(), card, Money.of(amount),
+				Money.ZERO, false, Money.ZERO);
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(java.time.ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.TransactionRepository;
+
+/**
+ * Compara la consulta SUM del repositorio con el acumulador en memoria
+ * sobre una cuenta con 10.000 retiros. Se lanza con -Dbenchmarks=true.
+ */
+@SpringBootTest(classes = DemoApplication.class)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class DailyWithdrawalBenchmarkTest {
+
+	private static final int TRANSACTIONS = 10_000;
+	private static final int ITERATIONS = 2_000;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private DailyWithdrawalAccumulator accumulator;
+
+	@Test
+	void sumQueryVersusAccumulator() {
+		Card card = transactionTemplate.execute(status -> seed());
+		Account account = card.getAccount();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			transactionRepository.getTodayWithdrawalTotal(account);
+		}
+		long queryNanos = (System.nanoTime() - start) / ITERATIONS;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			accumulator.canWithdraw(card, Money.of("10.00"));
+		}
+		long accumulatorNanos = (System.nanoTime() - start) / ITERATIONS;
+
+		System.out.printf("getTodayWithdrawalTotal: %d ns/op, acumulador: %d ns/op (%d transacciones)%n",
+				queryNanos, accumulatorNanos, TRANSACTIONS);
+	}
+
+	private Card seed() {
+		Customer customer = new Customer("BENCH-1", "Bench", "Mark", "bench@example.com", null, true, new ArrayList<>());
+		Account account = new Account("BENCH-ACC-1", "ES0000000000000000009999", customer);
+		Card card = new Card("4999000000000001", "hash", CardType.DEBIT,
+				new BigDecimal("1000000.00"), null, true, true, account);
+		customer.getAccounts().add(account);
+		account.addCard(card);
+		entityManager.persist(customer);
+
+		List<Transaction> batch = new ArrayList<>();
+		for (int i = 0; i < TRANSACTIONS; i++) {
+			Transaction transaction = Transaction.createWithdrawal(account, card, Money.of("1.00"),
+					Money.ZERO, false, Money.ZERO);
+			transaction.setTransactionReference("BENCH-" + i);
+			batch.add(transaction);
+		}
+		transactionRepository.saveAll(batch);
+		return card;
+	}
+}
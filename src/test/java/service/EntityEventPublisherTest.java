@@ -0,0 +1,135 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Los eventos de dominio se publican también en las escrituras que no pasan
+ * por el save() de un repositorio: persist, cascadas y cambios detectados
+ * en el flush.
+ */
+@SpringBootTest(classes = DemoApplication.class)
+class EntityEventPublisherTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(7_300_000_000_000_000L);
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private DailyWithdrawalAccumulator accumulator;
+
+	@Autowired
+	private CardAuthorizationCache cardAuthorizationCache;
+
+	@Autowired
+	private CustomerSearchService searchService;
+
+	@Test
+	void persistedWithdrawalsReachTheAccumulator() {
+		Card card = createCard("Ana", "Pérez");
+
+		transactionTemplate.executeWithoutResult(status -> entityManager.persist(withdrawal(card, "40.00")));
+		transactionTemplate.executeWithoutResult(status -> {
+			entityManager.persist(withdrawal(card, "25.00"));
+			entityManager.flush();
+			status.setRollbackOnly();
+		});
+
+		assertEquals(Money.of("40.00"), accumulator.getTodayCardTotal(card.getId()));
+		assertEquals(Money.of("40.00"), accumulator.getTodayAccountTotal(card.getAccount().getId()));
+	}
+
+	@Test
+	void dirtyCheckedCardChangesInvalidateTheCache() {
+		Card card = createCard("Ana", "Pérez");
+		assertTrue(cardAuthorizationCache.findActiveAndReady(card.getCardNumber()).isPresent());
+
+		transactionTemplate.executeWithoutResult(status ->
+				entityManager.find(Card.class, card.getId()).setActive(false));
+
+		assertFalse(cardAuthorizationCache.findActiveAndReady(card.getCardNumber()).isPresent());
+	}
+
+	@Test
+	void cardNumberChangesInvalidateThePreviousNumber() {
+		Card card = createCard("Ana", "Pérez");
+		String newNumber = String.valueOf(CARD_NUMBERS.incrementAndGet());
+		assertTrue(cardAuthorizationCache.findActiveAndReady(card.getCardNumber()).isPresent());
+
+		transactionTemplate.executeWithoutResult(status ->
+				entityManager.find(Card.class, card.getId()).setCardNumber(newNumber));
+
+		assertFalse(cardAuthorizationCache.findActiveAndReady(card.getCardNumber()).isPresent());
+		assertTrue(cardAuthorizationCache.findActiveAndReady(newNumber).isPresent());
+	}
+
+	@Test
+	void dirtyCheckedNameChangesReachTheSearchIndex() throws InterruptedException {
+		String suffix = UUID.randomUUID().toString().replaceAll("[^a-f]", "");
+		Card card = createCard("Ana" + suffix, "Pérez" + suffix);
+		UUID customerId = card.getAccount().getCustomer().getId();
+		awaitReady();
+		assertEquals(List.of(customerId), searchService.searchIds("perez" + suffix, 10));
+
+		transactionTemplate.executeWithoutResult(status ->
+				entityManager.find(Customer.class, customerId).setLastName("Gómez" + suffix));
+
+		assertEquals(List.of(), searchService.searchIds("perez" + suffix, 10));
+		assertEquals(List.of(customerId), searchService.searchIds("gomez" + suffix, 10));
+	}
+
+	// Alta por cascada desde el cliente, sin pasar por ningún repositorio
+	private Card createCard(String firstName, String lastName) {
+		String cardNumber = String.valueOf(CARD_NUMBERS.incrementAndGet());
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, firstName, lastName, suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(Money.of("500.00"));
+			Card card = new Card(cardNumber, "hash", CardType.DEBIT, null, null, true, true, account);
+			account.addCard(card);
+			customer.getAccounts().add(account);
+			entityManager.persist(customer);
+			return card;
+		});
+	}
+
+	private static Transaction withdrawal(Card card, String amount) {
+		return Transaction.createWithdrawal(card.getAccount(), card, Money.of(amount),
+				Money.ZERO, false, Money.ZERO);
+	}
+
+	private void awaitReady() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (!searchService.isReady() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(searchService.isReady());
+	}
+}
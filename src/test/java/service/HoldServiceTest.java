@@ -0,0 +1,198 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dto.AtmReceipt;
+import dto.CardAuthorization;
+import dto.HoldReceipt;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import enumerado.CardType;
+import enumerado.HoldStatus;
+import es.nextdigital.demo.DemoApplication;
+import repository.AccountRepository;
+import repository.CardHoldRepository;
+import repository.CardRepository;
+import repository.CustomerRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+@AutoConfigureMockMvc
+class HoldServiceTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(6_000_000_000_000_000L);
+
+	@Autowired
+	private AtmService atmService;
+
+	@Autowired
+	private HoldService holdService;
+
+	@Autowired
+	private CardAuthorizationCache cardAuthorizationCache;
+
+	@Autowired
+	private DailyWithdrawalAccumulator withdrawalAccumulator;
+
+	@Autowired
+	private VelocityEngine velocityEngine;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private CardHoldRepository holdRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CardRepository cardRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void holdReservesBalanceUntilCaptured() {
+		String cardNumber = createCard(Money.of("100.00"), null);
+
+		HoldReceipt hold = atmService.placeHold(cardNumber, Money.of("60.00"), true);
+		assertEquals(Money.of("38.00"), hold.availableBalance());
+		assertEquals(Money.of("100.00"), atmService.getBalance(cardNumber));
+		assertThrows(IllegalArgumentException.class, () -> atmService.withdraw(cardNumber, Money.of("40.00"), false));
+		assertThrows(IllegalArgumentException.class, () -> atmService.placeHold(cardNumber, Money.of("40.00"), false));
+
+		// Las retenciones abiertas sobreviven a un reinicio
+		holdService.rebuild();
+		assertEquals(Money.of("38.00"), atmService.getAvailableBalance(cardNumber));
+
+		AtmReceipt receipt = atmService.captureHold(cardNumber, hold.holdId());
+		assertEquals(Money.of("38.00"), receipt.balance());
+		assertEquals(Money.of("2.00"), receipt.commission());
+		assertEquals(Money.of("38.00"), atmService.getAvailableBalance(cardNumber));
+		assertEquals(HoldStatus.CAPTURED, holdRepository.findById(hold.holdId()).orElseThrow().getStatus());
+		assertThrows(IllegalArgumentException.class, () -> atmService.captureHold(cardNumber, hold.holdId()));
+	}
+
+	@Test
+	void holdReservesDailyLimitUntilReleased() {
+		String cardNumber = createCard(Money.of("500.00"), new BigDecimal("100.00"));
+		String otherCard = createCard(Money.of("500.00"), null);
+
+		HoldReceipt hold = atmService.placeHold(cardNumber, Money.of("70.00"), false);
+		assertThrows(IllegalArgumentException.class, () -> atmService.withdraw(cardNumber, Money.of("40.00"), false));
+		assertThrows(IllegalArgumentException.class, () -> atmService.releaseHold(otherCard, hold.holdId()));
+
+		atmService.releaseHold(cardNumber, hold.holdId());
+		assertEquals(Money.of("500.00"), atmService.getAvailableBalance(cardNumber));
+		assertEquals(Money.of("460.00"), atmService.withdraw(cardNumber, Money.of("40.00"), false).balance());
+		assertEquals(HoldStatus.RELEASED, holdRepository.findById(hold.holdId()).orElseThrow().getStatus());
+		assertThrows(IllegalArgumentException.class, () -> atmService.captureHold(cardNumber, hold.holdId()));
+	}
+
+	@Test
+	void releasingAHoldClosedMeanwhileIsAConflict() throws Exception {
+		String cardNumber = createCard(Money.of("100.00"), null);
+		HoldReceipt hold = atmService.placeHold(cardNumber, Money.of("30.00"), false);
+		// Otra instancia la caduca antes de que llegue la liberación
+		transactionTemplate.executeWithoutResult(status -> holdRepository.close(hold.holdId(), HoldStatus.EXPIRED));
+
+		mockMvc.perform(delete("/atm/cards/{cardNumber}/holds/{holdId}", cardNumber, hold.holdId()))
+				.andExpect(status().isConflict());
+		assertEquals(HoldStatus.EXPIRED, holdRepository.findById(hold.holdId()).orElseThrow().getStatus());
+		assertEquals(Money.of("100.00"), atmService.getAvailableBalance(cardNumber));
+	}
+
+	@Test
+	void sweeperExpiresHolds() {
+		String cardNumber = createCard(Money.of("50.00"), new BigDecimal("100.00"));
+		CardAuthorization card = cardAuthorizationCache.findActiveAndReady(cardNumber).orElseThrow();
+		HoldService expiring = new HoldService(holdRepository, accountRepository, cardRepository, ledgerService,
+				withdrawalAccumulator, velocityEngine, transactionTemplate, Duration.ZERO, 16, Clock.systemDefaultZone());
+
+		HoldService.OpenHold hold = expiring.place(card, Money.of("50.00"), Money.ZERO, false);
+		assertEquals(Money.ZERO, expiring.getAvailableBalance(card.accountId()));
+		assertEquals(Money.of("50.00"), expiring.getRemainingDailyLimit(card));
+		assertThrows(IllegalArgumentException.class, () -> expiring.getOpenHold(card.cardId(), hold.id()));
+
+		assertEquals(1, expiring.expireDue());
+		assertEquals(0, expiring.getOpenCount());
+		assertEquals(Money.of("50.00"), expiring.getAvailableBalance(card.accountId()));
+		assertEquals(Money.of("100.00"), expiring.getRemainingDailyLimit(card));
+		assertEquals(HoldStatus.EXPIRED, holdRepository.findById(hold.id()).orElseThrow().getStatus());
+		assertNull(expiring.getRemainingDailyLimit(cardAuthorizationCache.findActiveAndReady(
+				createCard(Money.ZERO, null)).orElseThrow()));
+	}
+
+	@Test
+	void holdEndpoints() throws Exception {
+		String cardNumber = createCard(Money.of("100.00"), null);
+
+		String body = mockMvc.perform(post("/atm/cards/{cardNumber}/holds", cardNumber)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"amount\": 30.00, \"externalAtm\": false}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.availableBalance").value(70.00))
+				.andReturn().getResponse().getContentAsString();
+		JsonNode hold = objectMapper.readTree(body);
+
+		mockMvc.perform(get("/atm/cards/{cardNumber}/balance", cardNumber))
+				.andExpect(jsonPath("$.balance").value(100.00))
+				.andExpect(jsonPath("$.available").value(70.00));
+		mockMvc.perform(post("/atm/cards/{cardNumber}/holds/{holdId}/capture", cardNumber, hold.get("holdId").asText()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance").value(70.00));
+		mockMvc.perform(delete("/atm/cards/{cardNumber}/holds/{holdId}", cardNumber, UUID.randomUUID()))
+				.andExpect(status().isUnprocessableEntity());
+	}
+
+	private String createCard(Money balance, BigDecimal dailyLimit) {
+		String cardNumber = String.valueOf(CARD_NUMBERS.incrementAndGet());
+		transactionTemplate.executeWithoutResult(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			account.addCard(new Card(cardNumber, "hash", CardType.DEBIT, dailyLimit, null, true, true, account));
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+		});
+		return cardNumber;
+	}
+}
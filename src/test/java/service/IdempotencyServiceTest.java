@@ -0,0 +1,259 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import controller.AtmController;
+import dto.AtmReceipt;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import enumerado.CardType;
+import enumerado.TransactionType;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.CustomerRepository;
+import repository.IdempotencyKeyRepository;
+import repository.TransactionRepository;
+import service.IdempotencyService.IdempotentRequest;
+
+@SpringBootTest(classes = DemoApplication.class)
+@AutoConfigureMockMvc
+class IdempotencyServiceTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(7_000_000_000_000_000L);
+
+	@Autowired
+	private AtmService atmService;
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private IdempotencyKeyRepository keyRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void retryReturnsOriginalReceipt() {
+		String cardNumber = createCard(Money.of("100.00"));
+		String key = UUID.randomUUID().toString();
+
+		AtmReceipt first = atmService.withdraw(cardNumber, Money.of("30.00"), false, key);
+		AtmReceipt retry = atmService.withdraw(cardNumber, Money.of("30.00"), false, key);
+		assertEquals(first.transactionReference(), retry.transactionReference());
+		assertEquals(Money.of("70.00"), atmService.getBalance(cardNumber));
+		String id = IdempotencyService.request(key, "withdraw", cardNumber, Money.of("30.00"), false).id();
+		assertEquals(first.transactionReference(), keyRepository.findById(id).orElseThrow().getTransactionReference());
+
+		// Tras un reinicio (LRU vacía) la clave se resuelve con el filtro y la tabla
+		idempotencyService.clearRecent();
+		idempotencyService.rebuild();
+		long lookups = idempotencyService.getLookupCount();
+		AtmReceipt afterRestart = atmService.withdraw(cardNumber, Money.of("30.00"), false, key);
+		assertEquals(first.transactionReference(), afterRestart.transactionReference());
+		assertEquals(first.amount(), afterRestart.amount());
+		assertEquals(first.balance(), afterRestart.balance());
+		assertEquals(lookups + 1, idempotencyService.getLookupCount());
+		assertEquals(Money.of("70.00"), atmService.getBalance(cardNumber));
+
+		// Una operación sin clave no deja rastro
+		atmService.deposit(cardNumber, Money.of("5.00"));
+		assertEquals(Money.of("75.00"), atmService.getBalance(cardNumber));
+		assertThrows(IllegalArgumentException.class,
+				() -> atmService.deposit(cardNumber, Money.of("5.00"), " "));
+	}
+
+	@Test
+	void keyIsScopedToCardAndOperation() {
+		String cardNumber = createCard(Money.of("100.00"));
+		String otherCardNumber = createCard(Money.of("100.00"));
+		String key = UUID.randomUUID().toString();
+
+		AtmReceipt mine = atmService.withdraw(cardNumber, Money.of("30.00"), false, key);
+		AtmReceipt other = atmService.withdraw(otherCardNumber, Money.of("30.00"), false, key);
+		AtmReceipt deposit = atmService.deposit(cardNumber, Money.of("30.00"), key);
+
+		assertNotEquals(mine.transactionReference(), other.transactionReference());
+		assertNotEquals(mine.transactionReference(), deposit.transactionReference());
+		assertEquals(Money.of("100.00"), atmService.getBalance(cardNumber));
+		assertEquals(Money.of("70.00"), atmService.getBalance(otherCardNumber));
+	}
+
+	@Test
+	void retryWithAnotherRequestIsAConflict() {
+		String cardNumber = createCard(Money.of("100.00"));
+		String key = UUID.randomUUID().toString();
+		atmService.withdraw(cardNumber, Money.of("30.00"), false, key);
+
+		assertThrows(ConflictException.class, () -> atmService.withdraw(cardNumber, Money.of("50.00"), false, key));
+		assertThrows(ConflictException.class, () -> atmService.withdraw(cardNumber, Money.of("30.00"), true, key));
+
+		// También sin la LRU, con la huella guardada en la tabla
+		idempotencyService.clearRecent();
+		assertThrows(ConflictException.class, () -> atmService.withdraw(cardNumber, Money.of("50.00"), false, key));
+		assertEquals(Money.of("70.00"), atmService.getBalance(cardNumber));
+	}
+
+	@Test
+	void newKeysSkipTheDatabase() {
+		String cardNumber = createCard(Money.ZERO);
+		long lookups = idempotencyService.getLookupCount();
+		for (int i = 0; i < 20; i++) {
+			atmService.deposit(cardNumber, Money.of("1.00"), UUID.randomUUID().toString());
+		}
+		// Con una probabilidad de falso positivo del 1 %, 20 claves nuevas no deberían leer la tabla
+		assertTrue(idempotencyService.getLookupCount() - lookups <= 1);
+		assertEquals(Money.of("20.00"), atmService.getBalance(cardNumber));
+	}
+
+	@Test
+	void concurrentRetriesDebitOnce() throws Exception {
+		String cardNumber = createCard(Money.of("100.00"));
+		String key = UUID.randomUUID().toString();
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<AtmReceipt>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return atmService.withdraw(cardNumber, Money.of("10.00"), false, key);
+				}));
+			}
+			start.countDown();
+			Set<String> references = new HashSet<>();
+			for (Future<AtmReceipt> result : results) {
+				references.add(result.get(30, TimeUnit.SECONDS).transactionReference());
+			}
+			assertEquals(1, references.size());
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(Money.of("90.00"), atmService.getBalance(cardNumber));
+	}
+
+	@Test
+	void bloomFilterHasNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		List<String> added = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			added.add(UUID.randomUUID().toString());
+		}
+		added.forEach(filter::add);
+		assertTrue(added.stream().allMatch(filter::mightContain));
+
+		long falsePositives = IntStream.range(0, 10_000)
+				.mapToObj(i -> UUID.randomUUID().toString())
+				.filter(filter::mightContain)
+				.count();
+		assertTrue(falsePositives < 300, "Falsos positivos: " + falsePositives);
+		assertFalse(new BloomFilter(10, 0.01).mightContain("x"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void keysRememberedDuringRebuildReachTheNewFilter() {
+		IdempotencyKeyRepository keys = mock(IdempotencyKeyRepository.class);
+		IdempotencyService service = new IdempotencyService(keys, mock(TransactionRepository.class),
+				mock(EntityManager.class), mock(PlatformTransactionManager.class), mock(ObjectProvider.class),
+				1, 1_000, Duration.ofDays(1));
+		IdempotentRequest request = IdempotencyService.request("k", "deposit", "4000000000000001", "25.00");
+		IdempotentRequest other = IdempotencyService.request("k2", "deposit", "4000000000000001", "25.00");
+		AtmReceipt receipt = new AtmReceipt("R-1", TransactionType.DEPOSIT, Money.of("25.00"), Money.ZERO,
+				Money.of("25.00"), LocalDateTime.now());
+		// La operación termina mientras se lee la tabla, que aún no tiene su clave, y sale de la LRU
+		when(keys.streamKeys()).thenAnswer(invocation -> {
+			service.execute(request, () -> receipt);
+			service.execute(other, () -> receipt);
+			return Stream.empty();
+		});
+
+		service.rebuild();
+		service.clearRecent();
+		service.execute(request, () -> receipt);
+
+		// El filtro nuevo tiene la clave: el reintento la busca en la tabla
+		assertEquals(1, service.getLookupCount());
+	}
+
+	@Test
+	void idempotencyKeyHeader() throws Exception {
+		String cardNumber = createCard(Money.of("50.00"));
+		String key = UUID.randomUUID().toString();
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(post("/atm/cards/{cardNumber}/deposits", cardNumber)
+							.header(AtmController.IDEMPOTENCY_KEY, key)
+							.contentType(MediaType.APPLICATION_JSON)
+							.content("{\"amount\": 25.00}"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.balance").value(75.00));
+		}
+		assertEquals(Money.of("75.00"), atmService.getBalance(cardNumber));
+
+		mockMvc.perform(post("/atm/cards/{cardNumber}/deposits", cardNumber)
+						.header(AtmController.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"amount\": 30.00}"))
+				.andExpect(status().isConflict());
+		assertEquals(Money.of("75.00"), atmService.getBalance(cardNumber));
+	}
+
+	private String createCard(Money balance) {
+		String cardNumber = String.valueOf(CARD_NUMBERS.incrementAndGet());
+		transactionTemplate.executeWithoutResult(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			account.addCard(new Card(cardNumber, "hash", CardType.DEBIT, null, null, true, true, account));
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+		});
+		return cardNumber;
+	}
+}
@@ -0,0 +1,82 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import es.nextdigital.demo.DemoApplication;
+import repository.AccountRepository;
+import repository.CustomerRepository;
+
+/**
+ * En modo libro mayor la columna {@code accounts.balance} se queda en el
+ * saldo de apertura: los lectores de saldo deben pasar por
+ * {@link LedgerService}.
+ */
+@SpringBootTest(classes = DemoApplication.class, properties = "ledger.enabled=true")
+class LedgerModeBalanceTest {
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private BalanceService balanceService;
+
+	@Autowired
+	private CustomerDashboardService dashboardService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void balanceReadersSeeLedgerAppends() {
+		Customer customer = createCustomer(Money.of("100.00"));
+		UUID accountId = customer.getAccounts().get(0).getId();
+		Money amount = Money.of("30.00");
+		ledgerService.append(accountId, amount.negate(),
+				(account, balance) -> Transaction.createWithdrawal(account, null, amount, balance, false, Money.ZERO));
+
+		assertEquals(Money.of("100.00"), accountRepository.findBalanceById(accountId).orElseThrow());
+		assertEquals(Money.of("70.00"), balanceService.getBalance(accountId));
+		assertEquals(Money.of("70.00"), dashboardService.getDashboard(customer.getId(), 0)
+				.accounts().get(0).balance());
+	}
+
+	@Test
+	void directBalanceMovementsAreRejected() {
+		UUID accountId = createCustomer(Money.of("100.00")).getAccounts().get(0).getId();
+
+		assertThrows(IllegalStateException.class, () -> balanceService.withdraw(accountId, Money.of("1.00")));
+		assertThrows(IllegalStateException.class, () -> balanceService.deposit(accountId, Money.of("1.00")));
+		assertEquals(Money.of("100.00"), balanceService.getBalance(accountId));
+	}
+
+	private Customer createCustomer(Money balance) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			customer.getAccounts().add(account);
+			return customerRepository.save(customer);
+		});
+	}
+}
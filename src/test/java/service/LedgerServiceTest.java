@@ -0,0 +1,228 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.LedgerVerification;
+import entities.Account;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import es.nextdigital.demo.DemoApplication;
+import repository.AccountRepository;
+import repository.CustomerRepository;
+import repository.TransactionRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class LedgerServiceTest {
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private LedgerVerifier ledgerVerifier;
+
+	@Autowired
+	private BalanceService balanceService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void balanceIsSnapshotPlusDeltaAndAccountRowIsNotWritten() {
+		UUID accountId = createAccount(Money.of("100.00"));
+		Long version = accountRepository.findById(accountId).orElseThrow().getVersion();
+
+		deposit(accountId, "50.00");
+		Transaction withdrawal = withdraw(accountId, "30.00");
+		assertEquals(Money.of("120.00"), withdrawal.getBalanceAfter());
+		assertThrows(IllegalArgumentException.class, () -> withdraw(accountId, "120.01"));
+
+		assertEquals(Money.of("120.00"), ledgerService.getBalance(accountId));
+		Account account = accountRepository.findById(accountId).orElseThrow();
+		assertEquals(Money.of("100.00"), account.getBalance());
+		assertEquals(version, account.getVersion());
+	}
+
+	@Test
+	void compactionKeepsOpeningAndLatestSnapshot() {
+		UUID accountId = createAccount(Money.of("10.00"));
+		for (int i = 0; i < 3; i++) {
+			deposit(accountId, "1.00");
+			assertTrue(ledgerService.compact(accountId));
+		}
+		assertFalse(ledgerService.compact(accountId));
+		deposit(accountId, "1.00");
+
+		assertEquals(0, ledgerService.getPendingCount(UUID.randomUUID()));
+		assertEquals(1, ledgerService.getPendingCount(accountId));
+		assertEquals(Money.of("14.00"), ledgerService.getBalance(accountId));
+		assertEquals(2, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM balance_snapshots WHERE account_id = ?", Integer.class, accountId));
+	}
+
+	@Test
+	void replayDetectsTamperingAndRebuildRestoresBalance() {
+		UUID accountId = createAccount(Money.of("100.00"));
+		Transaction first = deposit(accountId, "25.00");
+		withdraw(accountId, "5.00");
+		ledgerService.compact(accountId);
+		deposit(accountId, "1.00");
+
+		LedgerVerification clean = ledgerVerifier.verify(accountId).orElseThrow();
+		assertTrue(clean.isConsistent());
+		assertEquals(3, clean.transactions());
+		assertEquals(Money.of("121.00"), clean.replayedBalance());
+
+		jdbcTemplate.update("UPDATE transactions SET balance_after = 0 WHERE id = ?", first.getId());
+		jdbcTemplate.update("UPDATE balance_snapshots SET balance = balance + 7 "
+				+ "WHERE account_id = ? AND is_opening = FALSE", accountId);
+		LedgerVerification tampered = ledgerVerifier.verify(accountId).orElseThrow();
+		assertEquals(1, tampered.mismatches());
+		assertEquals(first.getTransactionReference(), tampered.firstMismatchReference());
+		assertEquals(Money.of("128.00"), tampered.ledgerBalance());
+
+		assertEquals(Money.of("121.00"), ledgerService.rebuild(accountId).orElseThrow());
+		assertEquals(Money.of("121.00"), ledgerService.getBalance(accountId));
+		assertTrue(ledgerVerifier.verify(createAccount(Money.ZERO)).isEmpty());
+	}
+
+	@Test
+	void transactionsDatedBeforeTheCutoffStillCount() {
+		UUID accountId = createAccount(Money.of("10.00"));
+		deposit(accountId, "5.00");
+		assertTrue(ledgerService.compact(accountId));
+
+		// Reloj que retrocede: la transacción siguiente lleva fecha anterior a la del corte
+		ledgerService.append(accountId, Money.of("2.00"), (account, balance) -> {
+			Transaction deposit = Transaction.createDeposit(account, null, Money.of("2.00"), balance);
+			deposit.setCreatedAt(deposit.getCreatedAt().minusMinutes(5));
+			return deposit;
+		});
+
+		assertEquals(Money.of("17.00"), ledgerService.getPersistedBalance(accountId));
+		assertTrue(ledgerService.compact(accountId));
+		assertEquals(Money.of("17.00"), ledgerService.getPersistedBalance(accountId));
+		LedgerVerification verification = ledgerVerifier.verify(accountId).orElseThrow();
+		assertTrue(verification.isConsistent());
+		assertEquals(2, verification.transactions());
+	}
+
+	/**
+	 * Ingresos concurrentes de 16 hilos sobre 8 cuentas: saldo en la fila de
+	 * la cuenta con @Version y reintentos frente a libro mayor de solo
+	 * inserciones. Se lanza con -Dbenchmarks=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void inPlaceVersusLedgerWriteThroughput() throws Exception {
+		List<UUID> inPlace = new ArrayList<>();
+		List<UUID> ledger = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			inPlace.add(createAccount(Money.ZERO));
+			ledger.add(createAccount(Money.ZERO));
+		}
+		Money amount = Money.of("1.00");
+		long conflicts = balanceService.getConflictCount();
+
+		runWrites("fila de cuenta", inPlace, accountId -> balanceService.executeWithRetry(() -> {
+			Account account = accountRepository.findById(accountId).orElseThrow();
+			account.deposit(amount);
+			return transactionRepository.save(Transaction.createDeposit(account, null, amount, account.getBalance()));
+		}));
+		System.out.printf("  conflictos de versión: %d%n", balanceService.getConflictCount() - conflicts);
+		runWrites("libro mayor", ledger, accountId -> deposit(accountId, "1.00"));
+	}
+
+	private void runWrites(String mode, List<UUID> accounts, Consumer<UUID> write)
+			throws Exception {
+		int threads = 16;
+		int writesPerThread = 500;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		AtomicInteger failed = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < writesPerThread; i++) {
+					try {
+						write.accept(accounts.get(ThreadLocalRandom.current().nextInt(accounts.size())));
+					} catch (OptimisticLockingFailureException e) {
+						failed.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsed = System.nanoTime() - begin;
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		System.out.printf("%s: %.0f escrituras/s, %d fallidas tras agotar los reintentos%n", mode,
+				threads * writesPerThread / (elapsed / 1e9), failed.get());
+	}
+
+	private Transaction deposit(UUID accountId, String amount) {
+		Money money = Money.of(amount);
+		return ledgerService.append(accountId, money,
+				(account, balance) -> Transaction.createDeposit(account, null, money, balance));
+	}
+
+	private Transaction withdraw(UUID accountId, String amount) {
+		Money money = Money.of(amount);
+		return ledgerService.append(accountId, money.negate(),
+				(account, balance) -> Transaction.createWithdrawal(account, null, money, balance, false, Money.ZERO));
+	}
+
+	private UUID createAccount(Money balance) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+			return account.getId();
+		});
+	}
+}
@@ -0,0 +1,142 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Customer;
+import es.nextdigital.demo.DemoApplication;
+import repository.CustomerRepository;
+
+/**
+ * Primario y réplica son dos bases H2 en memoria independientes: la réplica
+ * recibe una copia del esquema y la replicación se simula escribiendo en
+ * ella el latido. Un cliente que solo existe en la réplica indica de qué
+ * base ha leído cada consulta.
+ */
+@SpringBootTest(classes = DemoApplication.class, properties = {
+		"datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+		"datasource.replica.hikari.maximum-pool-size=3",
+		"datasource.replica.max-lag=PT5S",
+		"datasource.replica.lag-check-interval=PT1H" })
+class ReadReplicaTest {
+
+	@Autowired
+	private ReadReplicaDataSource dataSource;
+
+	@Autowired
+	private ReplicaLagMonitor lagMonitor;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private JdbcTemplate primary;
+
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void copySchemaToReplica() {
+		primary = new JdbcTemplate(dataSource.getPrimary());
+		replica = new JdbcTemplate(dataSource.getReplica());
+		lagMonitor.check();
+		List<String> script = primary.queryForList("SCRIPT NODATA", String.class);
+		replica.execute("DROP ALL OBJECTS");
+		script.forEach(replica::execute);
+		replica.update("INSERT INTO customers (id, customer_number, first_name, last_name, email, is_active) "
+				+ "VALUES (?, 'R-1', 'Solo', 'Réplica', 'replica@example.com', TRUE)", UUID.randomUUID());
+	}
+
+	@Test
+	void reportingQueriesAndReadOnlyTransactionsUseTheReplica() {
+		replicate(Instant.now());
+		assertTrue(dataSource.isReplicaUsable());
+		long primaryActive = primary.queryForObject("SELECT COUNT(*) FROM customers WHERE is_active", Long.class);
+		long replicaConnections = dataSource.getReplicaConnections();
+
+		assertEquals(1, customerRepository.countByActiveTrue());
+		TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		readOnly.setReadOnly(true);
+		assertEquals(1L, (long) readOnly.execute(status -> customerRepository.countByActiveTrue()));
+		assertEquals(2, dataSource.getReplicaConnections() - replicaConnections);
+
+		// Dentro de una transacción de escritura la consulta de informes se une a ella, en el primario
+		assertEquals(primaryActive, (long) transactionTemplate.execute(status -> customerRepository.countByActiveTrue()));
+		// Las lecturas fijadas al primario no pasan por la réplica aunque sean de solo lectura
+		assertEquals(primaryActive, (long) ReadReplicaDataSource.onPrimary(() ->
+				readOnly.execute(status -> customerRepository.countByActiveTrue())));
+		assertEquals(2, dataSource.getReplicaConnections() - replicaConnections);
+	}
+
+	@Test
+	void writesGoToThePrimary() {
+		replicate(Instant.now());
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		transactionTemplate.execute(status -> customerRepository.save(new Customer("C-" + suffix, "Ana", "Pérez",
+				suffix + "@example.com", "600000000", true, new ArrayList<>())));
+
+		assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM customers WHERE customer_number = ?",
+				Long.class, "C-" + suffix));
+		assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM customers WHERE customer_number = ?",
+				Long.class, "C-" + suffix));
+	}
+
+	@Test
+	void naturalIdLookupsReadThePrimary() {
+		replicate(Instant.now());
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		transactionTemplate.execute(status -> customerRepository.save(new Customer("C-" + suffix, "Ana", "Pérez",
+				suffix + "@example.com", "600000000", true, new ArrayList<>())));
+		long replicaConnections = dataSource.getReplicaConnections();
+
+		// Lo que se cargue aquí acaba en la caché de segundo nivel: nunca debe venir de la réplica
+		assertTrue(customerRepository.findByCustomerNumber("C-" + suffix).isPresent());
+		assertTrue(customerRepository.findByCustomerNumber("R-1").isEmpty());
+		assertEquals(0, dataSource.getReplicaConnections() - replicaConnections);
+	}
+
+	@Test
+	void fallsBackToThePrimaryWhenTheReplicaLags() {
+		replicate(Instant.now().minus(Duration.ofMinutes(1)));
+		assertFalse(dataSource.isReplicaUsable());
+		long primaryActive = primary.queryForObject("SELECT COUNT(*) FROM customers WHERE is_active", Long.class);
+		long fallbacks = dataSource.getFallbackCount();
+
+		assertEquals(primaryActive, customerRepository.countByActiveTrue());
+		assertEquals(1, dataSource.getFallbackCount() - fallbacks);
+
+		replicate(Instant.now());
+		assertEquals(1, customerRepository.countByActiveTrue());
+	}
+
+	@Test
+	void unknownLagFallsBackToThePrimary() {
+		replica.execute("DROP TABLE IF EXISTS replica_heartbeat");
+		lagMonitor.check();
+		assertTrue(dataSource.getReplicaLag().isEmpty());
+		assertFalse(dataSource.isReplicaUsable());
+	}
+
+	// Simula que la réplica ha recibido el latido escrito en el instante indicado
+	private void replicate(Instant beatAt) {
+		replica.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at TIMESTAMP NOT NULL)");
+		replica.update("MERGE INTO replica_heartbeat (id, beat_at) KEY (id) VALUES (1, ?)", Timestamp.from(beatAt));
+		lagMonitor.check();
+	}
+}
@@ -0,0 +1,181 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.RepositoryMethodStats;
+import dto.SlowRepositoryCall;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import enumerado.CardType;
+import es.nextdigital.demo.DemoApplication;
+import repository.AccountRepository;
+import repository.CardRepository;
+import repository.CustomerRepository;
+import repository.TransactionRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+@AutoConfigureMockMvc
+class RepositoryMetricsTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(9_100_000_000_000_000L);
+
+	@Autowired
+	private RepositoryMetrics repositoryMetrics;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CardRepository cardRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void recordsLatencyRowsAndStatementsPerMethod() throws Exception {
+		Customer customer = createCustomer();
+		UUID accountId = customer.getAccounts().get(0).getId();
+		repositoryMetrics.reset();
+
+		for (int i = 0; i < 20; i++) {
+			assertEquals(1, cardRepository.findByAccountId(accountId).size());
+			assertFalse(customerRepository.existsByEmail(UUID.randomUUID() + "@example.com"));
+		}
+
+		RepositoryMethodStats byAccount = repositoryMetrics.getStats("CardRepository.findByAccountId(UUID)")
+				.orElseThrow();
+		assertEquals(20, byAccount.calls());
+		assertEquals(0, byAccount.errors());
+		assertEquals(1.0, byAccount.rowsPerCall());
+		assertEquals(1.0, byAccount.statementsPerCall());
+		assertTrue(byAccount.p50Micros() > 0);
+		assertTrue(byAccount.p50Micros() <= byAccount.p95Micros());
+		assertTrue(byAccount.p99Micros() <= byAccount.maxMicros());
+		assertEquals(20, repositoryMetrics.getStats("CustomerRepository.existsByEmail(String)")
+				.orElseThrow().calls());
+
+		mockMvc.perform(get("/actuator/repositories"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.methods[?(@.method == 'CardRepository.findByAccountId(UUID)')].calls")
+						.value(20));
+	}
+
+	@Test
+	void defaultMethodsAreRecordedOnce() {
+		Customer customer = createCustomer();
+		Account account = customer.getAccounts().get(0);
+		repositoryMetrics.reset();
+
+		transactionRepository.getTodayWithdrawalTotal(account);
+
+		assertEquals(1, repositoryMetrics.getStats("TransactionRepository.getTodayWithdrawalTotal(Account)")
+				.orElseThrow().calls());
+		assertTrue(repositoryMetrics.getStats("TransactionRepository.getWithdrawalTotalSince(Account, LocalDateTime)")
+				.isEmpty());
+	}
+
+	@Test
+	void slowCallsAreLoggedWithMaskedParameters() throws Exception {
+		RepositoryMetrics metrics = new RepositoryMetrics(Duration.ofMillis(5), 2);
+		Method findByCardNumber = CardRepository.class.getMethod("findByCardNumber", String.class);
+		Method findByIds = CardRepository.class.getMethod("findAllById", Iterable.class);
+		RepositoryMetrics.MethodMetrics byNumber = metrics.register(CardRepository.class, findByCardNumber);
+
+		metrics.record(byNumber, new Object[] { "4000123412341234" }, 1_000_000, 1, Optional.empty(), false);
+		metrics.record(byNumber, new Object[] { "4000123412345678" }, 7_000_000, 1, Optional.empty(), false);
+		metrics.record(metrics.register(CardRepository.class, findByIds),
+				new Object[] { List.of("5500123412349999") }, 9_000_000, 2, List.of(), true);
+
+		List<SlowRepositoryCall> slow = metrics.report().slowCalls();
+		assertEquals(2, slow.size());
+		assertEquals("CardRepository.findByCardNumber(String)", slow.get(0).method());
+		assertEquals("[cardNumber=************5678]", slow.get(0).parameters());
+		assertEquals("[ids=[************9999]]", slow.get(1).parameters());
+		assertTrue(slow.get(1).failed());
+		assertEquals(1, metrics.getStats("CardRepository.findAllById(Iterable)").orElseThrow().errors());
+	}
+
+	@Test
+	void accountNumbersAndPhonesAreMasked() throws Exception {
+		RepositoryMetrics metrics = new RepositoryMetrics(Duration.ZERO, 10);
+		Method byAccountNumber = AccountRepository.class.getMethod("findByAccountNumber", String.class);
+		Method byLastName = CustomerRepository.class.getMethod("findByLastNameContainingIgnoreCase", String.class);
+
+		metrics.record(metrics.register(AccountRepository.class, byAccountNumber),
+				new Object[] { "A-1234" }, 1_000_000, 1, Optional.empty(), false);
+		metrics.record(metrics.register(CustomerRepository.class, byLastName),
+				new Object[] { "00491500051234567890" }, 1_000_000, 1, List.of(), false);
+		metrics.record(metrics.register(CustomerRepository.class, byLastName),
+				new Object[] { "+34600111222" }, 1_000_000, 1, List.of(), false);
+
+		List<SlowRepositoryCall> slow = metrics.report().slowCalls();
+		assertEquals("[accountNumber=**1234]", slow.get(0).parameters());
+		assertEquals("[lastName=****************7890]", slow.get(1).parameters());
+		assertEquals("[lastName=********1222]", slow.get(2).parameters());
+	}
+
+	@Test
+	void endpointCannotResetMetrics() throws Exception {
+		mockMvc.perform(delete("/actuator/repositories"))
+				.andExpect(status().isMethodNotAllowed());
+	}
+
+	@Test
+	void histogramPercentilesStayWithinBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 100_000; value++) {
+			histogram.record(value * 1_000);
+		}
+		assertEquals(100_000, histogram.getCount());
+		assertEquals(100_000_000, histogram.getMax());
+		assertWithin(50_000_000, histogram.percentile(0.50));
+		assertWithin(95_000_000, histogram.percentile(0.95));
+		assertWithin(99_000_000, histogram.percentile(0.99));
+		assertEquals(100_000_000, histogram.percentile(1.0));
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(actual >= expected && actual <= expected * 1.125, expected + " -> " + actual);
+	}
+
+	private Customer createCustomer() {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					"600000000", true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.addCard(new Card(String.valueOf(CARD_NUMBERS.incrementAndGet()), "hash", CardType.DEBIT,
+					null, null, true, true, account));
+			customer.getAccounts().add(account);
+			return customerRepository.save(customer);
+		});
+	}
+}
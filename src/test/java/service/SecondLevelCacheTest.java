@@ -0,0 +1,189 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import enumerado.CardType;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManagerFactory;
+import repository.AccountRepository;
+import repository.CardRepository;
+import repository.CustomerRepository;
+
+@SpringBootTest(classes = DemoApplication.class,
+		properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SecondLevelCacheTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(9_000_000_000_000_000L);
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CardRepository cardRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void naturalIdLookupsSkipTheDatabaseOnceCached() {
+		Customer customer = createCustomer();
+		String cardNumber = firstCardNumber(customer);
+		entityManagerFactory.getCache().evictAll();
+
+		assertTrue(customerRepository.findByCustomerNumber(customer.getCustomerNumber()).isPresent());
+		assertTrue(cardRepository.findByCardNumber(cardNumber).isPresent());
+		assertTrue(customerRepository.findByEmail(customer.getEmail()).isPresent());
+		assertTrue(customerRepository.findByDocumentNumber(customer.getDocumentNumber()).isPresent());
+
+		long statements = statistics.getPrepareStatementCount();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(customer.getId(),
+					customerRepository.findByCustomerNumber(customer.getCustomerNumber()).orElseThrow().getId());
+			assertEquals(cardNumber, cardRepository.findByCardNumber(cardNumber).orElseThrow().getCardNumber());
+			assertEquals(customer.getId(), customerRepository.findByEmail(customer.getEmail()).orElseThrow().getId());
+			assertEquals(customer.getId(),
+					customerRepository.findByDocumentNumber(customer.getDocumentNumber()).orElseThrow().getId());
+		}
+		assertEquals(statements, statistics.getPrepareStatementCount());
+
+		assertFalse(customerRepository.findByCustomerNumber("NO-EXISTE").isPresent());
+		assertFalse(cardRepository.findByCardNumber(String.valueOf(CARD_NUMBERS.incrementAndGet())).isPresent());
+	}
+
+	@Test
+	void writesAreVisibleThroughTheCache() {
+		Customer customer = createCustomer();
+		String cardNumber = firstCardNumber(customer);
+		String oldEmail = customer.getEmail();
+		assertTrue(cardRepository.findByCardNumber(cardNumber).orElseThrow().isActive());
+		assertTrue(customerRepository.findByEmail(oldEmail).isPresent());
+
+		String newEmail = UUID.randomUUID() + "@example.com";
+		transactionTemplate.executeWithoutResult(status -> {
+			cardRepository.findByCardNumber(cardNumber).orElseThrow().setActive(false);
+			customerRepository.findById(customer.getId()).orElseThrow().setEmail(newEmail);
+		});
+
+		assertFalse(cardRepository.findByCardNumber(cardNumber).orElseThrow().isActive());
+		assertFalse(customerRepository.findByEmail(oldEmail).isPresent());
+		assertEquals(customer.getId(), customerRepository.findByEmail(newEmail).orElseThrow().getId());
+
+		transactionTemplate.executeWithoutResult(status -> customerRepository.deleteById(customer.getId()));
+		assertFalse(customerRepository.findByCustomerNumber(customer.getCustomerNumber()).isPresent());
+		assertFalse(cardRepository.findByCardNumber(cardNumber).isPresent());
+	}
+
+	@Test
+	void balanceUpdatesKeepReferenceDataCachedAndNeverServeStaleBalances() {
+		Customer customer = createCustomer();
+		UUID accountId = customer.getAccounts().get(0).getId();
+		customerRepository.findByCustomerNumber(customer.getCustomerNumber()).orElseThrow();
+		assertTrue(entityManagerFactory.getCache().contains(Customer.class, customer.getId()));
+
+		transactionTemplate.executeWithoutResult(status -> accountRepository.credit(accountId, Money.of("25.00")));
+
+		// El UPDATE nativo declara sus tablas: no vacía las regiones de clientes y tarjetas
+		assertTrue(entityManagerFactory.getCache().contains(Customer.class, customer.getId()));
+		assertFalse(entityManagerFactory.getCache().contains(Account.class, accountId));
+		assertEquals(Money.of("25.00"), accountRepository.findById(accountId).orElseThrow().getBalance());
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void benchmarkReadMix() {
+		int customers = 2_000;
+		List<Customer> created = new ArrayList<>();
+		for (int i = 0; i < customers; i++) {
+			created.add(createCustomer());
+		}
+		List<String> cardNumbers = created.stream().map(this::firstCardNumber).toList();
+		entityManagerFactory.getCache().evictAll();
+		statistics.clear();
+
+		// 70 % tarjeta, 15 % cliente, 10 % email, 5 % abonos (escritura de saldo)
+		Random random = new Random(42);
+		int operations = 50_000;
+		int lookups = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < operations; i++) {
+			int index = random.nextInt(customers);
+			int kind = random.nextInt(100);
+			if (kind < 70) {
+				cardRepository.findByCardNumber(cardNumbers.get(index)).orElseThrow();
+				lookups++;
+			} else if (kind < 85) {
+				customerRepository.findByCustomerNumber(created.get(index).getCustomerNumber()).orElseThrow();
+				lookups++;
+			} else if (kind < 95) {
+				customerRepository.findByEmail(created.get(index).getEmail()).orElseThrow();
+				lookups++;
+			} else {
+				UUID accountId = created.get(index).getAccounts().get(0).getId();
+				transactionTemplate.executeWithoutResult(status -> accountRepository.credit(accountId, Money.of("1.00")));
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		long hits = statistics.getSecondLevelCacheHitCount() + statistics.getNaturalIdCacheHitCount()
+				+ statistics.getQueryCacheHitCount();
+		long misses = statistics.getSecondLevelCacheMissCount() + statistics.getNaturalIdCacheMissCount()
+				+ statistics.getQueryCacheMissCount();
+		long writes = operations - lookups;
+		long lookupStatements = statistics.getPrepareStatementCount() - writes;
+		System.out.printf("%d búsquedas y %d abonos en %d ms: aciertos de caché %.1f %% (%d/%d), "
+						+ "%d sentencias SQL en búsquedas frente a %d sin caché (-%.1f %%)%n",
+				lookups, writes, elapsed / 1_000_000, 100.0 * hits / (hits + misses), hits, hits + misses,
+				lookupStatements, lookups, 100.0 * (lookups - lookupStatements) / lookups);
+	}
+
+	private String firstCardNumber(Customer customer) {
+		return customer.getAccounts().get(0).getCards().get(0).getCardNumber();
+	}
+
+	private Customer createCustomer() {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					"D" + suffix, true, new ArrayList<>());
+			customer.setDocumentNumber("D" + suffix);
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.addCard(new Card(String.valueOf(CARD_NUMBERS.incrementAndGet()), "hash", CardType.DEBIT,
+					null, null, true, true, account));
+			customer.getAccounts().add(account);
+			return customerRepository.save(customer);
+		});
+	}
+}
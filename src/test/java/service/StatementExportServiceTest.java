@@ -0,0 +1,136 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Customer;
+import enumerado.ExportFormat;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.CustomerRepository;
+
+/**
+ * Comprueba que la exportación nunca retiene en el contexto de persistencia
+ * más de {@link StatementExportService#CLEAR_INTERVAL} transacciones, sea
+ * cual sea el tamaño del extracto: la memoria usada no crece con las filas.
+ */
+@SpringBootTest(classes = DemoApplication.class)
+@AutoConfigureMockMvc
+class StatementExportServiceTest {
+
+	private static final int ROWS = 5_000;
+
+	@Autowired
+	private StatementExportService exportService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private UUID accountId;
+
+	@BeforeEach
+	void seed() {
+		accountId = transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+			return account.getId();
+		});
+		LocalDateTime base = LocalDateTime.now();
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			rows.add(new Object[] { UUID.randomUUID(), accountId, Timestamp.valueOf(base.minusSeconds(i)),
+					"REF-" + UUID.randomUUID(), "Ingreso, \"cajero\" " + i });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO transactions (id, account_id, transaction_type, amount, "
+				+ "balance_after, created_at, commission, is_external_atm, transaction_reference, status, description) "
+				+ "VALUES (?, ?, 'DEPOSIT', 1.00, 1.00, ?, 0, FALSE, ?, 'COMPLETED', ?)", rows);
+	}
+
+	@Test
+	void csvKeepsPersistenceContextBounded() throws Exception {
+		ContextProbe output = new ContextProbe();
+		long exported = exportService.export(accountId, ExportFormat.CSV, output);
+
+		assertEquals(ROWS, exported);
+		assertEquals(ROWS + 1, output.lines);
+		assertTrue(output.maxManagedEntities > 0 && output.maxManagedEntities <= StatementExportService.CLEAR_INTERVAL,
+				"entidades gestionadas: " + output.maxManagedEntities);
+	}
+
+	@Test
+	void ndjsonKeepsPersistenceContextBounded() throws Exception {
+		ContextProbe output = new ContextProbe();
+		long exported = exportService.export(accountId, ExportFormat.NDJSON, output);
+
+		assertEquals(ROWS, exported);
+		assertEquals(ROWS, output.lines);
+		assertTrue(output.maxManagedEntities > 0 && output.maxManagedEntities <= StatementExportService.CLEAR_INTERVAL,
+				"entidades gestionadas: " + output.maxManagedEntities);
+	}
+
+	@Test
+	void unknownFormatIsABadRequest() throws Exception {
+		mockMvc.perform(get("/accounts/{accountId}/statement", accountId).param("format", "xml"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/accounts/{accountId}/statement", accountId).param("format", "NdJson"))
+				.andExpect(status().isOk());
+	}
+
+	// Salida que descarta los datos y mide el contexto de persistencia en cada escritura
+	private final class ContextProbe extends OutputStream {
+		private int maxManagedEntities;
+		private int lines;
+
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				if (bytes[i] == '\n') {
+					lines++;
+				}
+			}
+			int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+			maxManagedEntities = Math.max(maxManagedEntities, managed);
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.CursorPage;
+import entities.Account;
+import entities.Customer;
+import entities.Transaction;
+import enumerado.ExportFormat;
+import enumerado.TransactionType;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.AccountRepository;
+import repository.CustomerRepository;
+import repository.TransactionRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class TransactionArchiveTest {
+
+	// Días de antigüedad de cada grupo de transacciones: tres meses fuera del horizonte y uno dentro
+	private static final int[] AGES = { 200, 150, 100, 1 };
+	private static final int PER_AGE = 10;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Autowired
+	private TransactionHistoryService historyService;
+
+	@Autowired
+	private StatementExportService exportService;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private UUID accountId;
+	private LocalDateTime now;
+
+	@BeforeEach
+	void seed() {
+		now = LocalDateTime.now();
+		accountId = createAccount();
+		List<Object[]> rows = new ArrayList<>();
+		for (int age : AGES) {
+			for (int i = 0; i < PER_AGE; i++) {
+				rows.add(new Object[] { UUID.randomUUID(), accountId, Timestamp.valueOf(now.minusDays(age).minusMinutes(i)),
+						"REF-" + UUID.randomUUID(), rows.size() + 1 });
+			}
+		}
+		insert(rows);
+	}
+
+	@Test
+	void archivesOldRowsAndRoutesReads() throws Exception {
+		assertTrue(transactionArchive.archive() >= 3 * PER_AGE);
+		assertEquals(PER_AGE, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM transactions WHERE account_id = ?", Integer.class, accountId));
+		for (int age : new int[] { 200, 150, 100 }) {
+			assertTrue(transactionArchive.getArchivedMonths().contains(YearMonth.from(now.minusDays(age))));
+		}
+
+		// Rango completo, rango reciente y rango solo en el archivo
+		Account account = accountRepository.findById(accountId).orElseThrow();
+		assertEquals(AGES.length * PER_AGE, transactionArchive.findByAccountAndCreatedAtBetween(
+				account, now.minusYears(1), now).size());
+		assertEquals(PER_AGE, transactionArchive.findByAccountAndCreatedAtBetween(
+				account, now.minusDays(30), now).size());
+		assertEquals(PER_AGE, transactionArchive.findByAccountAndCreatedAtBetween(
+				account, now.minusDays(201), now.minusDays(199)).size());
+
+		// Historial por cursor: la tabla caliente y después el archivo, en orden
+		List<Transaction> history = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<Transaction> page = historyService.getHistory(accountId, cursor, 7);
+			history.addAll(page.items());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertEquals(AGES.length * PER_AGE, history.size());
+		for (int i = 1; i < history.size(); i++) {
+			assertTrue(!history.get(i).getCreatedAt().isAfter(history.get(i - 1).getCreatedAt()));
+		}
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		assertEquals(AGES.length * PER_AGE, exportService.export(accountId, ExportFormat.CSV, output));
+
+		// Libro mayor: secuencias 1 a 40 de la más antigua a la más reciente
+		assertEquals(0, new BigDecimal(AGES.length * PER_AGE).compareTo(transactionArchive.sumNetAmountAfter(
+				accountId, 0L, now.minusYears(1))));
+		assertEquals(AGES.length * PER_AGE, transactionArchive.findLatestLedgerSequence(accountId));
+		transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<Transaction> after = transactionArchive.streamAfter(accountId, PER_AGE,
+					now.minusDays(151))) {
+				assertEquals(3 * PER_AGE, after.count());
+			}
+		});
+	}
+
+	@Test
+	void fullHistoryFindersReadTheArchive() {
+		transactionArchive.archive();
+		Account account = accountRepository.findById(accountId).orElseThrow();
+
+		List<Transaction> all = transactionArchive.findByAccountOrderByCreatedAtDesc(account);
+		assertEquals(AGES.length * PER_AGE, all.size());
+		for (int i = 1; i < all.size(); i++) {
+			assertTrue(!all.get(i).getCreatedAt().isAfter(all.get(i - 1).getCreatedAt()));
+		}
+		assertEquals(AGES.length * PER_AGE, transactionArchive.findByAccountAndTypeOrderByCreatedAtDesc(
+				account, TransactionType.DEPOSIT).size());
+		assertEquals(0, transactionArchive.findByAccountAndTypeOrderByCreatedAtDesc(
+				account, TransactionType.WITHDRAWAL).size());
+	}
+
+	@Test
+	void refreshSeesArchivingDoneByAnotherInstance() {
+		TransactionArchive other = new TransactionArchive(transactionRepository, entityManager,
+				transactionManager, Duration.ofDays(90), 1000, Clock.systemDefaultZone());
+		other.afterSingletonsInstantiated();
+		transactionArchive.archive();
+		Account account = accountRepository.findById(accountId).orElseThrow();
+
+		other.refresh();
+
+		assertEquals(transactionArchive.getArchivedMonths(), other.getArchivedMonths());
+		assertEquals(transactionArchive.getArchivedUntil(), other.getArchivedUntil());
+		assertEquals(AGES.length * PER_AGE, other.findByAccountAndCreatedAtBetween(
+				account, now.minusYears(1), now).size());
+	}
+
+	@Test
+	void openStreamDoesNotHoldBackArchiving() {
+		ExecutorService archiver = Executors.newSingleThreadExecutor();
+		try {
+			TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+			readOnly.setReadOnly(true);
+			long streamed = readOnly.execute(status -> {
+				try (Stream<Transaction> rows = transactionArchive.streamByAccountId(accountId)) {
+					Iterator<Transaction> iterator = rows.iterator();
+					iterator.next();
+					// Con el Stream a medias, el lote no espera a que se cierre
+					Future<Long> archived = archiver.submit(transactionArchive::archive);
+					assertTrue(archived.get(10, TimeUnit.SECONDS) >= 3 * PER_AGE);
+					long count = 1;
+					while (iterator.hasNext()) {
+						iterator.next();
+						count++;
+					}
+					return count;
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			// El Stream ve el estado de cuando se abrió: cada fila una vez
+			assertEquals(AGES.length * PER_AGE, streamed);
+		} finally {
+			archiver.shutdownNow();
+		}
+	}
+
+	@Test
+	void archiveSurvivesRestart() {
+		transactionArchive.archive();
+		TransactionArchive restarted = new TransactionArchive(transactionRepository, entityManager,
+				transactionManager, Duration.ofDays(90), 1000, Clock.systemDefaultZone());
+		restarted.afterSingletonsInstantiated();
+
+		assertEquals(transactionArchive.getArchivedMonths(), restarted.getArchivedMonths());
+		assertEquals(transactionArchive.getArchivedUntil(), restarted.getArchivedUntil());
+		assertEquals(3 * PER_AGE, restarted.findByAccountAndCreatedAtBetween(
+				accountRepository.findById(accountId).orElseThrow(), now.minusYears(1), now.minusDays(90)).size());
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void benchmarkHotQueries() {
+		int accounts = 200;
+		int rowsPerAccount = Integer.getInteger("archive.rows", 1_000_000) / accounts;
+		List<UUID> ids = new ArrayList<>();
+		for (int a = 0; a < accounts; a++) {
+			UUID id = createAccount();
+			ids.add(id);
+			List<Object[]> rows = new ArrayList<>(rowsPerAccount);
+			for (int i = 0; i < rowsPerAccount; i++) {
+				// Dos años de historia; el 5 % más reciente dentro del horizonte
+				long minutes = (long) i * 730 * 24 * 60 / rowsPerAccount;
+				rows.add(new Object[] { UUID.randomUUID(), id, Timestamp.valueOf(now.minusMinutes(minutes)),
+						"REF-" + UUID.randomUUID(), rowsPerAccount - i });
+			}
+			insert(rows);
+		}
+		double before = hotQueryMicros(ids);
+		long start = System.nanoTime();
+		long archived = transactionArchive.archive();
+		long archiveMillis = (System.nanoTime() - start) / 1_000_000;
+		double after = hotQueryMicros(ids);
+		System.out.printf("%d transacciones archivadas en %d ms (%.0f/s); consultas calientes: %.1f µs antes, %.1f µs después%n",
+				archived, archiveMillis, archived * 1000.0 / Math.max(1, archiveMillis), before, after);
+	}
+
+	// Media de findLastTransactions + countTransactionsSince + getWithdrawalTotalSince por cuenta
+	private double hotQueryMicros(List<UUID> ids) {
+		List<Account> accounts = accountRepository.findAllById(ids);
+		long start = 0;
+		int rounds = 5;
+		for (int round = 0; round <= rounds; round++) {
+			if (round == 1) {
+				start = System.nanoTime();
+			}
+			for (Account account : accounts) {
+				transactionRepository.findLastTransactions(account, PageRequest.ofSize(10));
+				transactionRepository.countTransactionsSince(account, now.minusDays(7));
+				transactionRepository.getWithdrawalTotalSince(account, now.minusDays(1));
+			}
+		}
+		return (System.nanoTime() - start) / 1000.0 / (rounds * accounts.size());
+	}
+
+	private UUID createAccount() {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+			return account.getId();
+		});
+	}
+
+	private void insert(List<Object[]> rows) {
+		jdbcTemplate.batchUpdate("INSERT INTO transactions (id, account_id, transaction_type, amount, "
+				+ "balance_after, created_at, commission, is_external_atm, transaction_reference, status, "
+				+ "ledger_sequence) VALUES (?, ?, 'DEPOSIT', 1.00, 1.00, ?, 0, FALSE, ?, 'COMPLETED', ?)", rows);
+	}
+}
@@ -0,0 +1,163 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.CursorPage;
+import entities.Account;
+import entities.Customer;
+import entities.Transaction;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.CustomerRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class TransactionHistoryServiceTest {
+
+	@Autowired
+	private TransactionHistoryService historyService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void walksEveryTransactionOnceInOrder() {
+		Account account = createAccount();
+		// Pares de filas con el mismo created_at para forzar el desempate por id
+		insertTransactions(account.getId(), 25, 2);
+
+		List<Transaction> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<Transaction> page = historyService.getHistory(account.getId(), cursor, 10);
+			seen.addAll(page.items());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+
+		assertEquals(25, seen.size());
+		Set<UUID> ids = new HashSet<>();
+		for (int i = 0; i < seen.size(); i++) {
+			ids.add(seen.get(i).getId());
+			if (i > 0) {
+				Transaction previous = seen.get(i - 1);
+				Transaction current = seen.get(i);
+				int byDate = current.getCreatedAt().compareTo(previous.getCreatedAt());
+				// La base de datos ordena los UUID como bytes sin signo, igual que su forma textual
+				assertFalse(byDate > 0
+						|| (byDate == 0 && current.getId().toString().compareTo(previous.getId().toString()) < 0));
+			}
+		}
+		assertEquals(25, ids.size());
+	}
+
+	/**
+	 * Latencia de la página 1, 10, 100 y 1000 (20 filas) con OFFSET frente a
+	 * cursor sobre una cuenta de 1.000.000 de transacciones. Las dos consultas
+	 * piden una fila de más y ninguna cuenta el total. Tras calentar ambas se
+	 * toma la mediana de las siete páginas que empiezan en cada una: H2
+	 * reutiliza el resultado de una consulta repetida con los mismos
+	 * parámetros, así que no se repite la misma página.
+	 * Se lanza con -Dbenchmarks=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void offsetVersusKeysetLatency() {
+		Account account = createAccount();
+		insertTransactions(account.getId(), 1_000_000, 1);
+		int size = 20;
+		int samples = 7;
+		int[] pages = { 1, 10, 100, 1000 };
+
+		// Cursor con el que empieza cada página; recorrerlas calienta la consulta por cursor
+		String[] cursors = new String[pages[pages.length - 1] + samples];
+		for (int page = 1; page < cursors.length; page++) {
+			cursors[page] = historyService.getHistory(account.getId(), cursors[page - 1], size).nextCursor();
+		}
+		for (int page = 2000; page < 2200; page++) {
+			findPageWithOffset(account.getId(), page, size);
+		}
+
+		for (int first : pages) {
+			long[] keyset = new long[samples];
+			long[] offset = new long[samples];
+			for (int i = 0; i < samples; i++) {
+				int page = first + i;
+				long start = System.nanoTime();
+				historyService.getHistory(account.getId(), cursors[page - 1], size);
+				keyset[i] = System.nanoTime() - start;
+				start = System.nanoTime();
+				findPageWithOffset(account.getId(), page, size);
+				offset[i] = System.nanoTime() - start;
+			}
+			System.out.printf("página %4d: offset %8d µs, cursor %8d µs%n", first,
+					median(offset) / 1000, median(keyset) / 1000);
+		}
+	}
+
+	// Paginación por OFFSET sin COUNT, como la haría un Slice, con el mismo orden de índice que el cursor
+	private List<Transaction> findPageWithOffset(UUID accountId, int page, int size) {
+		return entityManager.createQuery("SELECT t FROM Transaction t WHERE t.account.id = :accountId "
+						+ "ORDER BY t.account.id, t.createdAt DESC, t.id", Transaction.class)
+				.setParameter("accountId", accountId)
+				.setFirstResult((page - 1) * size)
+				.setMaxResults(size + 1)
+				.getResultList();
+	}
+
+	private static long median(long[] samples) {
+		Arrays.sort(samples);
+		return samples[samples.length / 2];
+	}
+
+	private Account createAccount() {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+			return account;
+		});
+	}
+
+	private void insertTransactions(UUID accountId, int count, int rowsPerInstant) {
+		LocalDateTime base = LocalDateTime.now();
+		int batchSize = 10_000;
+		for (int from = 0; from < count; from += batchSize) {
+			List<Object[]> batch = new ArrayList<>();
+			for (int i = from; i < Math.min(count, from + batchSize); i++) {
+				batch.add(new Object[] { UUID.randomUUID(), accountId,
+						Timestamp.valueOf(base.minusSeconds(i / rowsPerInstant)), "REF-" + UUID.randomUUID() });
+			}
+			jdbcTemplate.batchUpdate("INSERT INTO transactions (id, account_id, transaction_type, amount, "
+					+ "balance_after, created_at, commission, is_external_atm, transaction_reference, status) "
+					+ "VALUES (?, ?, 'DEPOSIT', 1.00, 1.00, ?, 0, FALSE, ?, 'COMPLETED')", batch);
+		}
+	}
+}
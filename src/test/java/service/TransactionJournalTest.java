@@ -0,0 +1,304 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import entities.Account;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import es.nextdigital.demo.DemoApplication;
+import jakarta.persistence.EntityManager;
+import repository.AccountRepository;
+import repository.CustomerRepository;
+import repository.IdempotencyKeyRepository;
+import repository.TransactionRepository;
+import service.IdempotencyService.IdempotentRequest;
+
+@SpringBootTest(classes = DemoApplication.class,
+		properties = { "ledger.enabled=true", "journal.enabled=true", "journal.retry-delay=10ms" })
+class TransactionJournalTest {
+
+	private static Path journalPath;
+
+	@DynamicPropertySource
+	static void journalPath(DynamicPropertyRegistry registry) throws IOException {
+		journalPath = Files.createTempDirectory("journal").resolve("transactions.journal");
+		registry.add("journal.path", journalPath::toString);
+	}
+
+	@TempDir
+	Path tempDir;
+
+	@Autowired
+	private TransactionJournal journal;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private IdempotencyKeyRepository idempotencyKeyRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void journalFileStopsAtTornRecordAndSkipsPreviousGenerations() throws IOException {
+		Path path = tempDir.resolve("file.journal");
+		try (JournalFile file = new JournalFile(path, 4096)) {
+			int first = file.append(bytes("uno"));
+			file.append(bytes("dos"));
+			file.append(bytes("tres"));
+			file.awaitDurable(file.getWrittenPosition());
+			file.checkpoint(first);
+		}
+
+		// Un byte cambiado en el último registro invalida su CRC
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 'X' }),
+					JournalFile.HEADER_SIZE + 3 * JournalFile.RECORD_HEADER_SIZE + 6 + 1);
+		}
+		try (JournalFile file = new JournalFile(path, 4096)) {
+			List<byte[]> records = file.readUnconfirmed();
+			assertEquals(1, records.size());
+			assertArrayEquals(bytes("dos"), records.get(0));
+
+			// Tras el reset, los registros de la generación anterior no se leen
+			file.reset();
+			assertTrue(file.readUnconfirmed().isEmpty());
+			file.append(bytes("cuatro"));
+		}
+		try (JournalFile file = new JournalFile(path, 4096)) {
+			List<byte[]> records = file.readUnconfirmed();
+			assertEquals(1, records.size());
+			assertArrayEquals(bytes("cuatro"), records.get(0));
+		}
+	}
+
+	@Test
+	void ledgerAppendGoesThroughJournalAndIsInsertedInBatch() {
+		UUID accountId = createAccount(Money.of("100.00"));
+		Money amount = Money.of("40.00");
+		Transaction withdrawal = ledgerService.append(accountId, amount.negate(),
+				(account, balance) -> Transaction.createWithdrawal(account, null, amount, balance, false, Money.ZERO));
+
+		assertEquals(Money.of("60.00"), ledgerService.getBalance(accountId));
+		journal.awaitFlushed();
+		Transaction stored = transactionRepository.findByTransactionReference(withdrawal.getTransactionReference())
+				.orElseThrow();
+		assertEquals(Money.of("-40.00"), stored.getAmount());
+		assertEquals(Money.of("60.00"), stored.getBalanceAfter());
+		assertEquals(withdrawal.getLedgerSequence(), stored.getLedgerSequence());
+		assertEquals(Money.of("60.00"), ledgerService.getPersistedBalance(accountId));
+	}
+
+	@Test
+	void failedJournalWriteRollsBackTheMovementWrites() {
+		UUID accountId = createAccount(Money.of("100.00"));
+		IdempotentRequest request = IdempotencyService.request(UUID.randomUUID().toString(), "withdraw", "tarjeta");
+		int pending = journal.getPendingCount();
+
+		// Una descripción de más de 64 KB no cabe en el registro: falla la escritura en el journal
+		assertThrows(UncheckedIOException.class, () -> ledgerService.append(accountId, Money.of("-40.00"),
+				(account, balance) -> {
+					Transaction withdrawal = Transaction.createWithdrawal(account, null, Money.of("40.00"), balance,
+							false, Money.ZERO);
+					withdrawal.setDescription("x".repeat(70_000));
+					idempotencyService.record(request, withdrawal);
+					return withdrawal;
+				}));
+
+		assertEquals(pending, journal.getPendingCount());
+		assertFalse(idempotencyKeyRepository.existsById(request.id()));
+		assertEquals(Money.of("100.00"), ledgerService.getBalance(accountId));
+		journal.awaitFlushed();
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM transactions WHERE account_id = ?", Integer.class, accountId));
+	}
+
+	@Test
+	void replayInsertsOnlyMissingTransactions() {
+		UUID accountId = createAccount(Money.ZERO);
+		Account account = accountRepository.findById(accountId).orElseThrow();
+		Transaction inserted = transactionTemplate.execute(status -> transactionRepository.save(
+				Transaction.createDeposit(account, null, Money.of("5.00"), Money.of("5.00"))));
+		Transaction lost = Transaction.createDeposit(account, null, Money.of("7.00"), Money.of("12.00"));
+
+		Path path = tempDir.resolve("replay.journal");
+		try (JournalFile file = new JournalFile(path, 4096)) {
+			file.append(TransactionJournal.encode(inserted));
+			file.awaitDurable(file.append(TransactionJournal.encode(lost)));
+		}
+
+		assertEquals(1, replay(path));
+		assertEquals(0, replay(path));
+		assertEquals(2, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM transactions WHERE account_id = ?", Integer.class, accountId));
+		assertEquals(Money.of("12.00"), transactionRepository.findByTransactionReference(
+				lost.getTransactionReference()).orElseThrow().getBalanceAfter());
+	}
+
+	@Test
+	void recordThatCannotBeInsertedIsSetAsideWithoutBlockingTheRest() throws IOException {
+		UUID accountId = createAccount(Money.ZERO);
+		Account deleted = new Account("A-borrada", "ES00borrada", null);
+		deleted.setId(UUID.randomUUID());
+		long deadLettered = journal.getDeadLetteredCount();
+
+		Transaction poison = journal.append(Transaction.createDeposit(deleted, null, Money.of("1.00"), Money.of("1.00")));
+		Transaction valid = ledgerService.append(accountId, Money.of("3.00"),
+				(account, balance) -> Transaction.createDeposit(account, null, Money.of("3.00"), balance));
+		journal.awaitFlushed();
+
+		assertTrue(transactionRepository.findByTransactionReference(valid.getTransactionReference()).isPresent());
+		assertTrue(transactionRepository.findByTransactionReference(poison.getTransactionReference()).isEmpty());
+		assertEquals(deadLettered + 1, journal.getDeadLetteredCount());
+		byte[] dead = Files.readAllBytes(journalPath.resolveSibling("transactions.journal.dead"));
+		assertEquals(poison.getTransactionReference(), TransactionJournal.referenceOf(
+				Arrays.copyOfRange(dead, dead.length - TransactionJournal.encode(poison).length, dead.length)));
+	}
+
+	/**
+	 * Altas confirmadas por segundo con 1, 16 y 256 escritores: commit JPA
+	 * por alta frente a journal con sync agrupado e inserción en lote. Se
+	 * lanza con -Dbenchmarks=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void journalVersusDirectInsertThroughput() throws Exception {
+		Account account = accountRepository.findById(createAccount(Money.ZERO)).orElseThrow();
+		Money amount = Money.of("1.00");
+		for (int writers : new int[] { 1, 16, 256 }) {
+			runWrites("JPA directo", writers, i -> transactionTemplate.execute(status ->
+					transactionRepository.save(Transaction.createDeposit(account, null, amount, amount))));
+			long begin = System.nanoTime();
+			runWrites("journal", writers, i -> journal.append(
+					Transaction.createDeposit(account, null, amount, amount)));
+			journal.awaitFlushed();
+			System.out.printf("  journal insertado en la base de datos: %.0f altas/s%n",
+					totalWrites(writers) / ((System.nanoTime() - begin) / 1e9));
+		}
+	}
+
+	private void runWrites(String mode, int writers, Consumer<Integer> write) throws Exception {
+		int writesPerThread = totalWrites(writers) / writers;
+		ExecutorService executor = Executors.newFixedThreadPool(writers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < writers; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < writesPerThread; i++) {
+					write.accept(i);
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsed = System.nanoTime() - begin;
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		System.out.printf("%s, %d escritores: %.0f altas confirmadas/s%n", mode, writers,
+				writers * writesPerThread / (elapsed / 1e9));
+	}
+
+	private static int totalWrites(int writers) {
+		return Math.max(4096, writers * 16);
+	}
+
+	private int replay(Path path) {
+		TransactionJournal recovery = new TransactionJournal(path, DataSize.ofKilobytes(4), 100,
+				Duration.ofMillis(10), 3, Duration.ofMillis(10), entityManager, transactionRepository, eventPublisher,
+				transactionManager);
+		try {
+			return recovery.replay();
+		} finally {
+			try {
+				recovery.destroy();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private UUID createAccount(Money balance) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+			return account.getId();
+		});
+	}
+}
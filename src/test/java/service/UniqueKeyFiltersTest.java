@@ -0,0 +1,148 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import enumerado.CardType;
+import es.nextdigital.demo.DemoApplication;
+import repository.CardRepository;
+import repository.CustomerRepository;
+
+@SpringBootTest(classes = DemoApplication.class)
+class UniqueKeyFiltersTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(8_000_000_000_000_000L);
+
+	@Autowired
+	private UniqueKeyFilters uniqueKeyFilters;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CardRepository cardRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void awaitLoad() throws InterruptedException {
+		for (int i = 0; i < 500 && !uniqueKeyFilters.isReady(); i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(uniqueKeyFilters.isReady());
+	}
+
+	@Test
+	void newKeysSkipTheDatabase() {
+		long queries = uniqueKeyFilters.getQueryCount();
+		long saved = uniqueKeyFilters.getSavedQueryCount();
+		for (int i = 0; i < 100; i++) {
+			String suffix = UUID.randomUUID().toString();
+			assertFalse(uniqueKeyFilters.existsByEmail(suffix + "@example.com"));
+			assertFalse(uniqueKeyFilters.existsByCardNumber(String.valueOf(CARD_NUMBERS.incrementAndGet())));
+		}
+		// Con un 1 % de falsos positivos, casi ninguna de las 200 claves llega a la base de datos
+		assertTrue(uniqueKeyFilters.getQueryCount() - queries <= 10);
+		assertEquals(200, uniqueKeyFilters.getSavedQueryCount() - saved
+				+ uniqueKeyFilters.getQueryCount() - queries);
+	}
+
+	@Test
+	void filtersFollowInsertsUpdatesAndDeletes() {
+		String cardNumber = String.valueOf(CARD_NUMBERS.incrementAndGet());
+		Customer customer = createCustomer(cardNumber);
+
+		// Las tarjetas entran en cascada con el cliente
+		assertTrue(uniqueKeyFilters.existsByCustomerNumber(customer.getCustomerNumber()));
+		assertTrue(uniqueKeyFilters.existsByEmail(customer.getEmail()));
+		assertTrue(uniqueKeyFilters.existsByDocumentNumber(customer.getDocumentNumber()));
+		assertTrue(uniqueKeyFilters.existsByCardNumber(cardNumber));
+
+		String newEmail = UUID.randomUUID() + "@example.com";
+		transactionTemplate.executeWithoutResult(status ->
+				customerRepository.findById(customer.getId()).orElseThrow().setEmail(newEmail));
+		assertTrue(uniqueKeyFilters.existsByEmail(newEmail));
+		assertFalse(uniqueKeyFilters.existsByEmail(customer.getEmail()));
+
+		transactionTemplate.executeWithoutResult(status -> customerRepository.deleteById(customer.getId()));
+		assertFalse(uniqueKeyFilters.existsByCustomerNumber(customer.getCustomerNumber()));
+		assertFalse(uniqueKeyFilters.existsByCardNumber(cardNumber));
+		assertFalse(cardRepository.existsByCardNumber(cardNumber));
+
+		// Tras un reinicio la carga encuentra las claves que siguen en la tabla
+		Customer other = createCustomer(String.valueOf(CARD_NUMBERS.incrementAndGet()));
+		uniqueKeyFilters.load();
+		assertTrue(uniqueKeyFilters.existsByEmail(other.getEmail()));
+	}
+
+	@Test
+	void countingFilterSupportsRemoval() {
+		CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+		List<String> kept = new ArrayList<>();
+		List<String> removed = new ArrayList<>();
+		for (int i = 0; i < 5_000; i++) {
+			kept.add(UUID.randomUUID().toString());
+			removed.add(UUID.randomUUID().toString());
+		}
+		kept.forEach(filter::add);
+		removed.forEach(filter::add);
+		removed.forEach(filter::remove);
+
+		assertTrue(kept.stream().allMatch(filter::mightContain));
+		assertTrue(removed.stream().filter(filter::mightContain).count() < 150);
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void benchmarkTenMillionKeys() {
+		int keys = 10_000_000;
+		CountingBloomFilter filter = new CountingBloomFilter(keys, 0.01);
+		long start = System.nanoTime();
+		for (int i = 0; i < keys; i++) {
+			filter.add("K" + i);
+		}
+		long loaded = System.nanoTime();
+		int probes = 1_000_000;
+		int falsePositives = 0;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain("N" + i)) {
+				falsePositives++;
+			}
+		}
+		long probed = System.nanoTime();
+		System.out.printf("%d claves: %.1f MB por filtro, %d funciones hash, carga %d ms, "
+						+ "%d consultas evitadas de %d (%.2f %% falsos positivos), %.0f ns por comprobación%n",
+				keys, filter.getMemoryBytes() / (1024.0 * 1024.0), filter.getHashCount(),
+				(loaded - start) / 1_000_000, probes - falsePositives, probes,
+				100.0 * falsePositives / probes, (double) (probed - loaded) / probes);
+	}
+
+	private Customer createCustomer(String cardNumber) {
+		return transactionTemplate.execute(status -> {
+			String suffix = UUID.randomUUID().toString().substring(0, 8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					"D" + suffix, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.addCard(new Card(cardNumber, "hash", CardType.DEBIT, null, null, true, true, account));
+			customer.getAccounts().add(account);
+			return customerRepository.save(customer);
+		});
+	}
+}
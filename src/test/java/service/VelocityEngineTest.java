@@ -0,0 +1,244 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import dto.HoldReceipt;
+import entities.Account;
+import entities.Card;
+import entities.Customer;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+import enumerado.VelocityWindow;
+import es.nextdigital.demo.DemoApplication;
+import repository.CardRepository;
+import repository.CustomerRepository;
+import repository.TransactionRepository;
+
+@SpringBootTest(classes = DemoApplication.class,
+		properties = "velocity.rules=card:10m:count:2, account:24h:amount:500.00")
+class VelocityEngineTest {
+
+	private static final AtomicLong CARD_NUMBERS = new AtomicLong(9_300_000_000_000_000L);
+
+	@Autowired
+	private AtmService atmService;
+
+	@Autowired
+	private VelocityEngine velocityEngine;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CardRepository cardRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void rejectsWithdrawalsOverTheConfiguredRules() {
+		String cardNumber = createCard(Money.of("1000.00"));
+		UUID cardId = cardRepository.findByCardNumber(cardNumber).orElseThrow().getId();
+
+		atmService.withdraw(cardNumber, Money.of("20.00"), false);
+		atmService.withdraw(cardNumber, Money.of("30.00"), false);
+		assertEquals(2, velocityEngine.getCardCount(cardId, VelocityWindow.ONE_MINUTE));
+		assertEquals(Money.of("50.00"), velocityEngine.getCardAmount(cardId, VelocityWindow.ONE_DAY));
+
+		long rejected = velocityEngine.getRejectedCount();
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> atmService.withdraw(cardNumber, Money.of("10.00"), false));
+		assertEquals("Operación denegada por el control de fraude", error.getMessage());
+		assertThrows(IllegalArgumentException.class, () -> atmService.placeHold(cardNumber, Money.of("10.00"), false));
+		assertEquals(rejected + 2, velocityEngine.getRejectedCount());
+		// Los retiros denegados no cuentan ni mueven saldo
+		assertEquals(2, velocityEngine.getCardCount(cardId, VelocityWindow.ONE_MINUTE));
+		assertEquals(Money.of("950.00"), atmService.getBalance(cardNumber));
+	}
+
+	@Test
+	void openHoldsCountTowardsTheRules() {
+		String cardNumber = createCard(Money.of("1000.00"));
+		UUID cardId = cardRepository.findByCardNumber(cardNumber).orElseThrow().getId();
+
+		HoldReceipt first = atmService.placeHold(cardNumber, Money.of("20.00"), false);
+		HoldReceipt second = atmService.placeHold(cardNumber, Money.of("20.00"), false);
+		assertThrows(IllegalArgumentException.class, () -> atmService.placeHold(cardNumber, Money.of("20.00"), false));
+		assertThrows(IllegalArgumentException.class, () -> atmService.withdraw(cardNumber, Money.of("20.00"), false));
+
+		// Al cobrarla pasa de retención a retiro: sigue contando una vez
+		atmService.captureHold(cardNumber, first.holdId());
+		assertEquals(1, velocityEngine.getCardCount(cardId, VelocityWindow.TEN_MINUTES));
+		assertThrows(IllegalArgumentException.class, () -> atmService.placeHold(cardNumber, Money.of("20.00"), false));
+
+		// Liberada, deja de contar
+		atmService.releaseHold(cardNumber, second.holdId());
+		atmService.withdraw(cardNumber, Money.of("20.00"), false);
+		assertEquals(Money.of("960.00"), atmService.getBalance(cardNumber));
+	}
+
+	@Test
+	void rejectsWithdrawalsOverTheAccountAmount() {
+		String cardNumber = createCard(Money.of("1000.00"));
+
+		atmService.withdraw(cardNumber, Money.of("450.00"), false);
+		assertThrows(IllegalArgumentException.class, () -> atmService.withdraw(cardNumber, Money.of("50.01"), false));
+		atmService.withdraw(cardNumber, Money.of("50.00"), false);
+	}
+
+	@Test
+	void rebuildsWindowsFromTheLastDayOfWithdrawals() {
+		String cardNumber = createCard(Money.of("1000.00"));
+		Card card = cardRepository.findByCardNumber(cardNumber).orElseThrow();
+		atmService.withdraw(cardNumber, Money.of("25.00"), false);
+		atmService.withdraw(cardNumber, Money.of("15.00"), false);
+
+		velocityEngine.rebuild();
+
+		assertEquals(2, velocityEngine.getCardCount(card.getId(), VelocityWindow.TEN_MINUTES));
+		assertEquals(Money.of("40.00"), velocityEngine.getCardAmount(card.getId(), VelocityWindow.ONE_DAY));
+		assertEquals(Money.of("40.00"), velocityEngine.getAccountAmount(
+				cardRepository.findAuthorizationByCardNumber(cardNumber).orElseThrow().accountId(),
+				VelocityWindow.ONE_DAY));
+	}
+
+	@Test
+	void windowsSlideAndIdleCardsAreForgotten() {
+		MutableClock clock = new MutableClock(Instant.parse("2024-05-10T10:00:00Z"));
+		VelocityEngine engine = new VelocityEngine(mock(TransactionRepository.class),
+				mock(PlatformTransactionManager.class),
+				List.of(VelocityRule.parse("card:1m:count:2"), VelocityRule.parse("card:24h:amount:100.00")), clock);
+		Card card = card();
+
+		engine.registerWithdrawal(withdrawal(card, "30.00"));
+		engine.registerWithdrawal(withdrawal(card, "30.00"));
+		engine.registerWithdrawal(Transaction.createDeposit(card.getAccount(), card, Money.of("500.00"),
+				Money.ZERO));
+		assertEquals("card:1m:count:2", engine.check(card.getAccount().getId(), card.getId(), Money.of("1.00"))
+				.orElseThrow().toString());
+
+		clock.instant = clock.instant.plus(Duration.ofMinutes(2));
+		assertEquals(0, engine.getCardCount(card.getId(), VelocityWindow.ONE_MINUTE));
+		assertEquals(2, engine.getCardCount(card.getId(), VelocityWindow.TEN_MINUTES));
+		assertTrue(engine.check(card.getAccount().getId(), card.getId(), Money.of("40.00")).isEmpty());
+		assertEquals("card:24h:amount:100.00", engine.check(card.getAccount().getId(), card.getId(),
+				Money.of("40.01")).orElseThrow().toString());
+
+		clock.instant = clock.instant.plus(Duration.ofHours(24));
+		assertEquals(Money.ZERO, engine.getCardAmount(card.getId(), VelocityWindow.ONE_DAY));
+		engine.sweep();
+		assertEquals(0, engine.getTrackedCards());
+		assertEquals(0, engine.getTrackedAccounts());
+	}
+
+	@Test
+	void parsesAndRejectsRules() {
+		VelocityRule rule = VelocityRule.parse(" Account:10M:Amount:250.5 ");
+		assertEquals(VelocityRule.Scope.ACCOUNT, rule.scope());
+		assertEquals(VelocityWindow.TEN_MINUTES, rule.window());
+		assertEquals(25_050, rule.limit());
+		assertThrows(IllegalArgumentException.class, () -> VelocityRule.parse("card:5m:count:3"));
+		assertThrows(IllegalArgumentException.class, () -> VelocityRule.parse("card:1m:count"));
+		assertThrows(IllegalArgumentException.class, () -> VelocityRule.parse("card:1m:amount:1.005"));
+	}
+
+	@Test
+	void concurrentUpdatesAreNotLost() throws InterruptedException {
+		SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMinutes(1), 12);
+		long now = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int thread = 0; thread < 8; thread++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					counter.add(now, 1, 100);
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(80_000, counter.count(now));
+		assertEquals(8_000_000, counter.cents(now));
+		counter.add(now, -1, -100);
+		assertEquals(79_999, counter.count(now));
+		assertFalse(counter.isIdle(now));
+		assertTrue(counter.isIdle(now + Duration.ofMinutes(1).toMillis()));
+	}
+
+	private String createCard(Money balance) {
+		String cardNumber = String.valueOf(CARD_NUMBERS.incrementAndGet());
+		transactionTemplate.executeWithoutResult(status -> {
+			String suffix = cardNumber.substring(8);
+			Customer customer = new Customer("C-" + suffix, "Ana", "Pérez", suffix + "@example.com",
+					null, true, new ArrayList<>());
+			Account account = new Account("A-" + suffix, "ES00" + suffix, customer);
+			account.setBalance(balance);
+			account.addCard(new Card(cardNumber, "hash", CardType.DEBIT, new BigDecimal("10000.00"), null,
+					true, true, account));
+			customer.getAccounts().add(account);
+			customerRepository.save(customer);
+		});
+		return cardNumber;
+	}
+
+	private static Card card() {
+		Account account = new Account("0001", "ES0000000000000000000001", null);
+		account.setId(UUID.randomUUID());
+		Card card = new Card("4000000000000001", "hash", CardType.DEBIT, null, null, true, true, account);
+		card.setId(UUID.randomUUID());
+		return card;
+	}
+
+	private static Transaction withdrawal(Card card, String amount) {
+		return Transaction.createWithdrawal(card.getAccount(), card, Money.of(amount),
+				Money.ZERO, false, Money.ZERO);
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
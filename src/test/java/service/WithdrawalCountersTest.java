@@ -0,0 +1,108 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import entities.Account;
+import entities.Card;
+import entities.Money;
+import entities.Transaction;
+import enumerado.CardType;
+
+class WithdrawalCountersTest {
+
+	// Céntimos acumulados por clave
+	private final WithdrawalCounters<Long> counters =
+			new WithdrawalCounters<>((current, at, count, cents) -> (current == null ? 0 : current) + cents);
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void rollbackSubtractsTheWithdrawal() {
+		Card card = card();
+		counters.register(withdrawal(card, "40.00"), 0);
+
+		TransactionSynchronizationManager.initSynchronization();
+		counters.register(withdrawal(card, "25.00"), 0);
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertEquals(4_000L, counters.card(card.getId()));
+		assertEquals(4_000L, counters.account(card.getAccount().getId()));
+	}
+
+	@Test
+	void rollbackAfterRebuildLeavesTheNewCountersAlone() {
+		Card card = card();
+		TransactionSynchronizationManager.initSynchronization();
+		counters.register(withdrawal(card, "25.00"), 0);
+
+		counters.rebuild(loader -> loader.add(card.getAccount().getId(), card.getId(), 0, 1, 1_000));
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertEquals(1_000L, counters.card(card.getId()));
+		assertEquals(1, counters.getCardCount());
+	}
+
+	@Test
+	void registrationsDuringRebuildReachTheNewCounters() throws Exception {
+		Card card = card();
+		List<CompletableFuture<Void>> registered = new ArrayList<>();
+
+		counters.rebuild(loader -> {
+			registered.add(CompletableFuture.runAsync(() -> counters.register(withdrawal(card, "25.00"), 0)));
+			// El retiro espera a que termine la reconstrucción en vez de ir a los mapas viejos
+			assertThrows(TimeoutException.class, () -> registered.get(0).get(100, TimeUnit.MILLISECONDS));
+			loader.add(card.getAccount().getId(), card.getId(), 0, 1, 1_000);
+		});
+		registered.get(0).get(5, TimeUnit.SECONDS);
+
+		assertEquals(3_500L, counters.card(card.getId()));
+		assertEquals(3_500L, counters.account(card.getAccount().getId()));
+	}
+
+	@Test
+	void sweepForgetsIdleCounters() {
+		Card card = card();
+		counters.register(withdrawal(card, "40.00"), 0);
+
+		counters.sweep(cents -> cents < 10_000);
+
+		assertNull(counters.card(card.getId()));
+		assertEquals(0, counters.getAccountCount());
+	}
+
+	private static void complete(int status) {
+		TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+	}
+
+	private static Card card() {
+		Account account = new Account("0001", "ES0000000000000000000001", null);
+		account.setId(UUID.randomUUID());
+		Card card = new Card("4000000000000001", "hash", CardType.DEBIT, null, null, true, true, account);
+		card.setId(UUID.randomUUID());
+		return card;
+	}
+
+	private static Transaction withdrawal(Card card, String amount) {
+		return Transaction.createWithdrawal(card.getAccount(), card, Money.of(amount),
+				Money.ZERO, false, Money.ZERO);
+	}
+}
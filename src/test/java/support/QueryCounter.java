@@ -0,0 +1,117 @@
+package support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cuenta las sentencias SQL que ejecuta el hilo actual dentro de un bloque,
+ * para fijar presupuestos de consultas en los tests y detectar N+1:
+ *
+ * <pre>
+ * QueryCounter.expect(1, () -&gt; cardRepository.findByCustomerId(id)
+ *         .forEach(card -&gt; card.getAccount().getIban()));
+ * </pre>
+ *
+ * Requiere {@link QueryCounterConfiguration} en el contexto. Solo ve lo que
+ * llega a la base de datos: las lecturas servidas por la caché de segundo
+ * nivel no cuentan, y las sentencias de otros hilos tampoco.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<List<String>> CAPTURE = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static Captured capture(Runnable block) {
+        List<String> statements = new ArrayList<>();
+        run(statements, () -> {
+            block.run();
+            return null;
+        });
+        return new Captured(List.copyOf(statements));
+    }
+
+    // Ejecuta el bloque, comprueba que lanza exactamente 'queries' sentencias y devuelve su resultado
+    public static <T> T expect(int queries, Supplier<T> block) {
+        List<String> statements = new ArrayList<>();
+        T value = run(statements, block);
+        new Captured(List.copyOf(statements)).assertCount(queries);
+        return value;
+    }
+
+    public static void expect(int queries, Runnable block) {
+        capture(block).assertCount(queries);
+    }
+
+    // Las capturas anidadas también suman en la exterior
+    private static <T> T run(List<String> statements, Supplier<T> block) {
+        List<String> outer = CAPTURE.get();
+        CAPTURE.set(statements);
+        try {
+            return block.get();
+        } finally {
+            CAPTURE.set(outer);
+            if (outer != null) {
+                outer.addAll(statements);
+            }
+        }
+    }
+
+    static void statementPrepared(String sql) {
+        List<String> statements = CAPTURE.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+    }
+
+    // Sentencias capturadas, en orden de ejecución
+    public record Captured(List<String> statements) {
+
+        public int count() {
+            return statements.size();
+        }
+
+        public long selects() {
+            return count("select");
+        }
+
+        public long inserts() {
+            return count("insert");
+        }
+
+        public long updates() {
+            return count("update");
+        }
+
+        public long deletes() {
+            return count("delete");
+        }
+
+        public void assertCount(int expected) {
+            assertEquals(expected, count(), () -> "Sentencias SQL ejecutadas:" + describe());
+        }
+
+        // Forma: número de SELECT, INSERT, UPDATE y DELETE
+        public void assertShape(int selects, int inserts, int updates, int deletes) {
+            assertEquals(List.of((long) selects, (long) inserts, (long) updates, (long) deletes),
+                    List.of(selects(), inserts(), updates(), deletes()),
+                    () -> "SELECT/INSERT/UPDATE/DELETE esperados; sentencias ejecutadas:" + describe());
+        }
+
+        private long count(String verb) {
+            return statements.stream()
+                    .filter(sql -> sql.stripLeading().toLowerCase(Locale.ROOT).startsWith(verb))
+                    .count();
+        }
+
+        private String describe() {
+            return statements.stream().map(sql -> "\n  " + sql).collect(Collectors.joining());
+        }
+    }
+}
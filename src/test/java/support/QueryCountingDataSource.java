@@ -0,0 +1,74 @@
+package support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource que pasa a {@link QueryCounter} cada sentencia SQL que se
+ * prepara ({@code prepareStatement}, {@code prepareCall}) o se ejecuta con un
+ * {@link Statement} simple. Un lote JDBC cuenta como una sentencia, igual
+ * que en las estadísticas de Hibernate.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> PREPARE = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "addBatch");
+
+    public QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            if (PREPARE.contains(method.getName()) && args != null && args[0] instanceof String sql) {
+                QueryCounter.statementPrepared(sql);
+            }
+            Object result = invoke(connection, method, args);
+            if ("createStatement".equals(method.getName())) {
+                Statement statement = (Statement) result;
+                return proxy(Statement.class, statement, (p, m, a) -> {
+                    if (EXECUTE.contains(m.getName()) && a != null && a.length > 0 && a[0] instanceof String sql) {
+                        QueryCounter.statementPrepared(sql);
+                    }
+                    return invoke(statement, m, a);
+                });
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[] { type },
+                handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}